@@ -0,0 +1,163 @@
+package model;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The BoardBenchmark class. JMH benchmarks of the Board operations that run on
+ * every game tick or key press, on each of the grid sizes offered by the menu bar.
+ * Every benchmark keeps its Board in a steady state: games that end are restarted
+ * from the same seed, so all sizes and runs see the same sequence of pieces.
+ *
+ * @author Logan Stafford
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+    /**
+     * The seed of the piece source of every benchmarked Board.
+     */
+    static final long SEED = 2020L;
+
+    /**
+     * The number of pieces dropped to fill the Board used by the toString benchmark.
+     */
+    private static final int FILL_DROPS = 8;
+
+    /**
+     * The grid size, written as width x height, as offered by TetrisMenuBar.setGridSize.
+     */
+    @Param({"10x20", "6x12", "14x28"})
+    private String mySize;
+
+    /**
+     * The Board being benchmarked.
+     */
+    private Board myBoard;
+
+    /**
+     * Creates a fresh Board of the benchmarked size and starts a game on it.
+     */
+    @Setup
+    public void setUp() {
+        myBoard = createBoard(mySize);
+        myBoard.newGame(SEED);
+    }
+
+    /**
+     * Moves the current piece down one row, freezing it and clearing lines when it lands.
+     *
+     * @return The packed state of the current piece.
+     */
+    @Benchmark
+    public int down() {
+        myBoard.down();
+        restartIfOver();
+        return myBoard.getCurrentPieceState();
+    }
+
+    /**
+     * Moves the current piece one column left and back again.
+     *
+     * @return The packed state of the current piece.
+     */
+    @Benchmark
+    public int leftRight() {
+        myBoard.left();
+        myBoard.right();
+        return myBoard.getCurrentPieceState();
+    }
+
+    /**
+     * Pushes the current I piece towards the left wall and rotates it. Once the piece
+     * reaches the wall every rotation has to search the wall kick offsets.
+     *
+     * @return The packed state of the current piece.
+     */
+    @Benchmark
+    public int rotateWithWallKick() {
+        if (PieceState.getPiece(myBoard.getCurrentPieceState()) != TetrisPiece.I) {
+            myBoard.setPieceSequence(Collections.singletonList(TetrisPiece.I));
+        }
+        myBoard.left();
+        myBoard.rotate();
+        return myBoard.getCurrentPieceState();
+    }
+
+    /**
+     * Hard drops the current piece, freezing it and clearing lines.
+     *
+     * @return The packed state of the new current piece.
+     */
+    @Benchmark
+    public int drop() {
+        myBoard.drop();
+        restartIfOver();
+        return myBoard.getCurrentPieceState();
+    }
+
+    /**
+     * Renders a partly filled Board as a String.
+     *
+     * @return The rendered Board.
+     */
+    @Benchmark
+    public String toStringPartlyFilled() {
+        if (myBoard.getPiecesFrozen() < FILL_DROPS) {
+            myBoard.newGame(SEED);
+            for (int i = 0; i < FILL_DROPS && !myBoard.isGameOver(); i++) {
+                myBoard.drop();
+            }
+        }
+        return myBoard.toString();
+    }
+
+    /**
+     * Draws the next piece from the piece source and spawns it.
+     *
+     * @return The packed state of the spawned piece.
+     */
+    @Benchmark
+    public int nextMovablePiece() {
+        return myBoard.nextMovablePiece(false);
+    }
+
+    /**
+     * Starts a new game from the benchmark seed once the current game is over.
+     */
+    private void restartIfOver() {
+        if (myBoard.isGameOver()) {
+            myBoard.newGame(SEED);
+        }
+    }
+
+    /**
+     * Creates a Board of a grid size written as width x height.
+     *
+     * @param theSize The grid size, for example "10x20".
+     * @return A new Board of that size.
+     */
+    static Board createBoard(final String theSize) {
+        final int separator = theSize.indexOf('x');
+        return new Board(Integer.parseInt(theSize.substring(0, separator)),
+                         Integer.parseInt(theSize.substring(separator + 1)), SEED);
+    }
+}
@@ -0,0 +1,123 @@
+package model;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The LineClearBenchmark class. JMH benchmark of freezing a piece that completes
+ * one to four rows, which runs the row check and compaction of Board.down. A single
+ * freeze takes too little time to be measured on its own, so before every iteration
+ * a batch of Boards is prepared, each with the bottom rows filled except for the
+ * leftmost column and a vertical I piece against the left wall just above them, and
+ * every iteration times one pass over the whole batch.
+ *
+ * @author Logan Stafford
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 50)
+@Measurement(iterations = 50)
+@Fork(1)
+public class LineClearBenchmark {
+
+    /**
+     * The number of Boards frozen in each iteration.
+     */
+    private static final int BATCH = 10000;
+
+    /**
+     * The grid size, written as width x height, as offered by TetrisMenuBar.setGridSize.
+     */
+    @Param({"10x20", "6x12", "14x28"})
+    private String mySize;
+
+    /**
+     * The number of rows completed by the frozen piece.
+     */
+    @Param({"1", "2", "3", "4"})
+    private int myLines;
+
+    /**
+     * The Boards frozen in the current iteration.
+     */
+    private Board[] myBoards;
+
+    /**
+     * Creates the Boards of the benchmarked size, which only deal I pieces.
+     */
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        myBoards = new Board[BATCH];
+        for (int i = 0; i < myBoards.length; i++) {
+            myBoards[i] = BoardBenchmark.createBoard(mySize);
+            myBoards[i].setPieceSequence(Collections.singletonList(TetrisPiece.I));
+        }
+    }
+
+    /**
+     * Prepares every Board of the batch to clear rows on its next move down.
+     */
+    @Setup(Level.Iteration)
+    public void setUpIteration() {
+        for (final Board board : myBoards) {
+            prepare(board);
+        }
+    }
+
+    /**
+     * Freezes the resting I piece of every Board of the batch, clearing the
+     * completed rows.
+     *
+     * @return The number of lines cleared, which is myLines times BATCH.
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int freezeAndClear() {
+        int result = 0;
+        for (final Board board : myBoards) {
+            board.down();
+            result += board.getLinesCleared();
+        }
+        return result;
+    }
+
+    /**
+     * Builds the rows to clear and lands a vertical I piece on top of the floor
+     * in the leftmost column, one row short of freezing.
+     *
+     * @param theBoard The Board to prepare.
+     */
+    private void prepare(final Board theBoard) {
+        theBoard.newGame();
+        for (int y = 0; y < myLines; y++) {
+            for (int x = 1; x < theBoard.getWidth(); x++) {
+                theBoard.setFrozenBlock(x, y, Block.J);
+            }
+        }
+        theBoard.rotate();
+        int state;
+        do {
+            state = theBoard.getCurrentPieceState();
+            theBoard.left();
+        } while (state != theBoard.getCurrentPieceState());
+        while (theBoard.isLegal(PieceState.down(theBoard.getCurrentPieceState()))) {
+            theBoard.down();
+        }
+    }
+}
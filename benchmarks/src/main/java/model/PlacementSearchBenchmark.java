@@ -0,0 +1,89 @@
+package model;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The PlacementSearchBenchmark class. JMH benchmarks of the placement search
+ * on a Board with a mid-game stack, built by letting a GreedyAgent play a number
+ * of pieces from the benchmark seed. Divide the placement count by the time of
+ * findBest for the placements scored per second.
+ *
+ * @author Logan Stafford
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlacementSearchBenchmark {
+
+    /**
+     * The number of pieces played to build the stack.
+     */
+    private static final int STACK_PIECES = 30;
+
+    /**
+     * The grid size, written as width x height, as offered by TetrisMenuBar.setGridSize.
+     */
+    @Param({"10x20", "6x12", "14x28"})
+    private String mySize;
+
+    /**
+     * The Board searched.
+     */
+    private Board myBoard;
+
+    /**
+     * The search being benchmarked.
+     */
+    private PlacementSearch mySearch;
+
+    /**
+     * Builds the stack and creates the search.
+     */
+    @Setup
+    public void setUp() {
+        myBoard = BoardBenchmark.createBoard(mySize);
+        myBoard.newGame(BoardBenchmark.SEED);
+        final GreedyAgent agent = new GreedyAgent();
+        agent.newGame();
+        while (myBoard.getPiecesFrozen() < STACK_PIECES && !myBoard.isGameOver()) {
+            agent.nextInput(myBoard).apply(myBoard);
+        }
+        mySearch = new PlacementSearch();
+    }
+
+    /**
+     * Enumerates every placement of the current piece.
+     *
+     * @return The number of placements found.
+     */
+    @Benchmark
+    public int search() {
+        return mySearch.search(myBoard);
+    }
+
+    /**
+     * Enumerates and scores every placement of the current piece.
+     *
+     * @return The best placement.
+     */
+    @Benchmark
+    public Placement findBest() {
+        return mySearch.findBest(myBoard, WeightedHeuristic.DEFAULT);
+    }
+}
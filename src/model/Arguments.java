@@ -0,0 +1,82 @@
+package model;
+
+/**
+ * The Arguments class. Reads the optional positional arguments of the command-line
+ * entry points of the model, each of which falls back to a default when it is
+ * not given.
+ *
+ * @author Logan Stafford
+ * @version 1.0
+ */
+final class Arguments {
+
+    /**
+     * The Arguments constructor; this class only has static methods.
+     */
+    private Arguments() {
+        // no instances
+    }
+
+    /**
+     * Returns a String argument.
+     *
+     * @param theArgs The command-line arguments.
+     * @param theIndex The position of the argument.
+     * @param theDefault The value used when the argument is not given.
+     * @return The argument, or the default.
+     */
+    static String getString(final String[] theArgs, final int theIndex,
+                            final String theDefault) {
+        String result = theDefault;
+        if (theArgs.length > theIndex) {
+            result = theArgs[theIndex];
+        }
+        return result;
+    }
+
+    /**
+     * Returns an int argument.
+     *
+     * @param theArgs The command-line arguments.
+     * @param theIndex The position of the argument.
+     * @param theDefault The value used when the argument is not given.
+     * @return The argument, or the default.
+     * @throws NumberFormatException if the argument is not an int.
+     */
+    static int getInt(final String[] theArgs, final int theIndex, final int theDefault) {
+        int result = theDefault;
+        if (theArgs.length > theIndex) {
+            result = Integer.parseInt(theArgs[theIndex]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a long argument.
+     *
+     * @param theArgs The command-line arguments.
+     * @param theIndex The position of the argument.
+     * @param theDefault The value used when the argument is not given.
+     * @return The argument, or the default.
+     * @throws NumberFormatException if the argument is not a long.
+     */
+    static long getLong(final String[] theArgs, final int theIndex, final long theDefault) {
+        long result = theDefault;
+        if (theArgs.length > theIndex) {
+            result = Long.parseLong(theArgs[theIndex]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of threads argument, which defaults to one per processor.
+     *
+     * @param theArgs The command-line arguments.
+     * @param theIndex The position of the argument.
+     * @return The argument, or the number of available processors.
+     * @throws NumberFormatException if the argument is not an int.
+     */
+    static int getThreads(final String[] theArgs, final int theIndex) {
+        return getInt(theArgs, theIndex, Runtime.getRuntime().availableProcessors());
+    }
+}
@@ -0,0 +1,129 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The BeamAgent class. A BeamAgent plays Tetris with a BeamSearch over the current
+ * piece, the next piece and a number of further preview pieces, within an optional
+ * time budget per piece.
+ *
+ * Run from the command line, it plays headless games and prints their throughput,
+ * the number of boards it scored per second and how often the TranspositionTable
+ * saved scoring a board.
+ *
+ * @author Logan Stafford
+ * @version 1.0
+ */
+public final class BeamAgent extends PlacementAgent {
+
+    /**
+     * The number of games played from the command line by default.
+     */
+    private static final int DEFAULT_GAMES = 4;
+
+    /**
+     * The number of Inputs after which a game played from the command line is abandoned.
+     */
+    private static final long MAX_INPUTS = 200_000L;
+
+    /**
+     * The number of nanoseconds in a millisecond.
+     */
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    /**
+     * The search used to choose placements.
+     */
+    private final BeamSearch mySearch;
+
+    /**
+     * The number of pieces after the current piece the search looks at.
+     */
+    private final int myPreview;
+
+    /**
+     * The time budget per piece in nanoseconds, or 0 for none.
+     */
+    private final long myBudget;
+
+    /**
+     * The BeamAgent constructor, which looks at the next piece with a BeamSearch of
+     * the default width and no time budget.
+     */
+    public BeamAgent() {
+        this(new BeamSearch(WeightedHeuristic.DEFAULT, BeamSearch.DEFAULT_BEAM_WIDTH), 1, 0);
+    }
+
+    /**
+     * The BeamAgent constructor.
+     *
+     * @param theSearch The search used to choose placements.
+     * @param thePreview The number of pieces after the current piece to look at: 0 for
+     *                   none, 1 for the next piece, more to preview the PieceSource.
+     * @param theBudgetMillis The time budget per piece in milliseconds, or 0 for none.
+     * @throws IllegalArgumentException if the preview or the budget is negative.
+     */
+    public BeamAgent(final BeamSearch theSearch, final int thePreview,
+                     final long theBudgetMillis) {
+        if (thePreview < 0 || theBudgetMillis < 0) {
+            throw new IllegalArgumentException("Invalid preview or time budget");
+        }
+        mySearch = theSearch;
+        myPreview = thePreview;
+        myBudget = theBudgetMillis * NANOS_PER_MILLI;
+    }
+
+    @Override
+    public Placement choose(final Board theBoard) {
+        final List<TetrisPiece> preview = new ArrayList<TetrisPiece>(myPreview);
+        if (myPreview > 0) {
+            preview.add(theBoard.getNextPiece());
+            preview.addAll(theBoard.getPreview(myPreview - 1));
+        }
+        return mySearch.findBest(theBoard, preview, myBudget);
+    }
+
+    /**
+     * Returns the search used to choose placements.
+     *
+     * @return The BeamSearch.
+     */
+    public BeamSearch getSearch() {
+        return mySearch;
+    }
+
+    /**
+     * Plays headless games from the command line and prints their throughput.
+     *
+     * @param theArgs Optional arguments: games, beam width, preview, time budget in
+     *                milliseconds, threads.
+     */
+    public static void main(final String[] theArgs) {
+        final int games = Arguments.getInt(theArgs, 0, DEFAULT_GAMES);
+        final int width = Arguments.getInt(theArgs, 1, BeamSearch.DEFAULT_BEAM_WIDTH);
+        final int preview = Arguments.getInt(theArgs, 2, 1);
+        final long budget = Arguments.getLong(theArgs, 3, 0);
+        final int threads = Arguments.getThreads(theArgs, 4);
+
+        final ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            final BeamSearch search = new BeamSearch(WeightedHeuristic.DEFAULT, width, pool,
+                                                     new TranspositionTable());
+            final BeamAgent agent = new BeamAgent(search, preview, budget);
+            final GameSimulator.Result result =
+                new GameSimulator(Board.DEFAULT_BOARD_WIDTH, Board.DEFAULT_BOARD_HEIGHT, 0,
+                                  MAX_INPUTS).run(agent, games);
+            final TranspositionTable table = search.getTable();
+            System.out.println(result);
+            System.out.printf("%d boards scored, %.0f boards/s, %.1f%% table hits%n",
+                              search.getEvaluations(),
+                              search.getEvaluations() * 1e9 / result.getNanos(),
+                              100.0 * table.getHits()
+                              / Math.max(1, table.getHits() + table.getMisses()));
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,434 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * The BeamSearch class. A BeamSearch chooses a placement of the current piece by
+ * looking ahead over the pieces that follow it: the next piece and any further
+ * preview. At every depth it places the piece of that depth in every reachable
+ * position on each board of the beam, scores the results with a Heuristic, and
+ * keeps only the best few boards - the beam - for the next depth. The placement
+ * of the current piece that leads to the best board at the deepest depth wins.
+ *
+ * The boards of a depth are expanded in parallel on a fork-join pool, each worker
+ * with its own PlacementSearch, or one after another on the calling thread for a
+ * search without a pool. Scores are kept in a TranspositionTable keyed by a
+ * hash of the board and the lines cleared on the way to it, so a board reached by
+ * different move orders, at this depth or on a later move, is scored once; such
+ * boards also take a single place in the beam. Given a time budget, the search
+ * stops deepening when the budget runs out and answers from the deepest complete
+ * depth.
+ *
+ * Boards are scored with the lines cleared over the whole sequence of placements,
+ * so the Heuristic's lines feature rewards a clear at any depth. A BeamSearch may
+ * be used by one thread at a time.
+ *
+ * @author Logan Stafford
+ * @version 1.0
+ */
+public final class BeamSearch {
+
+    /**
+     * The default number of boards kept at each depth.
+     */
+    public static final int DEFAULT_BEAM_WIDTH = 32;
+
+    /**
+     * The odd multiplier that mixes the lines cleared into the key of a board.
+     */
+    private static final long LINES_MULTIPLIER = 0xC2B2AE3D27D4EB4FL;
+
+    /**
+     * The most rows a single piece can clear.
+     */
+    private static final int MAX_CLEAR = 4;
+
+    /**
+     * The Node class. A Node is a board in the search: the placement that made it,
+     * the placement of the current piece it descends from, and its score.
+     */
+    private static final class Node {
+
+        /**
+         * The node this node's placement was made on, or null for the starting board.
+         */
+        private final Node myParent;
+
+        /**
+         * The packed resting state of the current piece this node descends from.
+         */
+        private final int myRoot;
+
+        /**
+         * The packed resting state of the placement made on the parent's board.
+         */
+        private final int myState;
+
+        /**
+         * The lines cleared on the way to this node.
+         */
+        private final int myLines;
+
+        /**
+         * The score of this node's board.
+         */
+        private final double myScore;
+
+        /**
+         * The key of this node's board in the TranspositionTable.
+         */
+        private final long myKey;
+
+        /**
+         * The board of this node, built only once the node is kept in the beam.
+         */
+        private BitBoard myBoard;
+
+        /**
+         * The Node constructor.
+         *
+         * @param theParent The node the placement was made on, or null.
+         * @param theRoot The packed resting state of the current piece it descends from.
+         * @param theState The packed resting state of the placement.
+         * @param theLines The lines cleared on the way to the node.
+         * @param theScore The score of the node's board.
+         * @param theKey The key of the node's board.
+         */
+        Node(final Node theParent, final int theRoot, final int theState, final int theLines,
+             final double theScore, final long theKey) {
+            myParent = theParent;
+            myRoot = theRoot;
+            myState = theState;
+            myLines = theLines;
+            myScore = theScore;
+            myKey = theKey;
+        }
+    }
+
+    /**
+     * The Heuristic boards are scored with.
+     */
+    private final Heuristic myHeuristic;
+
+    /**
+     * The number of boards kept at each depth.
+     */
+    private final int myBeamWidth;
+
+    /**
+     * The pool the boards of a depth are expanded on, or null for the calling thread.
+     */
+    private final ForkJoinPool myPool;
+
+    /**
+     * The scores of the boards seen.
+     */
+    private final TranspositionTable myTable;
+
+    /**
+     * The PlacementSearch of each worker thread.
+     */
+    private final ThreadLocal<PlacementSearch> mySearches =
+        ThreadLocal.withInitial(PlacementSearch::new);
+
+    /**
+     * The scratch board of each worker thread.
+     */
+    private final ThreadLocal<BitBoard> myScratch =
+        ThreadLocal.withInitial(() -> new BitBoard(1, 1));
+
+    /**
+     * The PlacementSearch that builds the chosen placement on the caller's thread.
+     */
+    private final PlacementSearch myRootSearch;
+
+    /**
+     * The rows cleared when a kept board is built.
+     */
+    private final int[] myCleared;
+
+    /**
+     * The number of boards scored, over every worker.
+     */
+    private final LongAdder myEvaluations = new LongAdder();
+
+    /**
+     * The depth the last search completed.
+     */
+    private int myDepth;
+
+    /**
+     * The BeamSearch constructor, which runs on the common pool with a new
+     * TranspositionTable.
+     *
+     * @param theHeuristic The Heuristic to score boards with.
+     * @param theBeamWidth The number of boards kept at each depth.
+     */
+    public BeamSearch(final Heuristic theHeuristic, final int theBeamWidth) {
+        this(theHeuristic, theBeamWidth, ForkJoinPool.commonPool(), new TranspositionTable());
+    }
+
+    /**
+     * The BeamSearch constructor.
+     *
+     * @param theHeuristic The Heuristic to score boards with.
+     * @param theBeamWidth The number of boards kept at each depth.
+     * @param thePool The pool to expand boards on, or null to expand them on the
+     *                calling thread.
+     * @param theTable The table to keep scores in; it may be shared with other
+     *                 searches that use the same Heuristic.
+     * @throws IllegalArgumentException if the beam width is not positive.
+     */
+    public BeamSearch(final Heuristic theHeuristic, final int theBeamWidth,
+                      final ForkJoinPool thePool, final TranspositionTable theTable) {
+        if (theBeamWidth < 1) {
+            throw new IllegalArgumentException("Invalid beam width: " + theBeamWidth);
+        }
+        myHeuristic = theHeuristic;
+        myBeamWidth = theBeamWidth;
+        myPool = thePool;
+        myTable = theTable;
+        myRootSearch = new PlacementSearch();
+        myCleared = new int[MAX_CLEAR];
+    }
+
+    /**
+     * Chooses a placement of a Board's current piece, searching as deep as the
+     * preview allows.
+     *
+     * @param theBoard The Board, which is not modified.
+     * @param thePreview The pieces that follow the current piece, in order.
+     * @return The chosen placement, or null if every placement ends the game.
+     */
+    public Placement findBest(final Board theBoard, final List<TetrisPiece> thePreview) {
+        return findBest(theBoard, thePreview, 0);
+    }
+
+    /**
+     * Chooses a placement of a Board's current piece, searching as deep as the
+     * preview and the time budget allow. The current piece is always searched,
+     * however small the budget.
+     *
+     * @param theBoard The Board, which is not modified.
+     * @param thePreview The pieces that follow the current piece, in order.
+     * @param theBudget The time budget in nanoseconds, or 0 for none.
+     * @return The chosen placement, or null if every placement ends the game.
+     */
+    public Placement findBest(final Board theBoard, final List<TetrisPiece> thePreview,
+                              final long theBudget) {
+        final long deadline = System.nanoTime() + theBudget;
+        myDepth = 0;
+        Placement result = null;
+        if (!theBoard.isGameOver() && theBoard.getCurrentPieceState() != PieceState.NONE) {
+            final BitBoard start = new BitBoard(theBoard.getOccupancy());
+            final Node root = new Node(null, PieceState.NONE, PieceState.NONE, 0, 0, 0);
+            root.myBoard = start;
+            List<Node> beam = new ArrayList<Node>();
+            beam.add(root);
+
+            for (int depth = 0; depth <= thePreview.size(); depth++) {
+                if (depth > 0 && theBudget > 0 && System.nanoTime() - deadline > 0) {
+                    break;
+                }
+                final List<Node> children = expand(beam, getStart(theBoard, thePreview, depth),
+                                                   depth > 0 && theBudget > 0, deadline);
+                if (children == null || children.isEmpty()) {
+                    break;
+                }
+                beam = select(children);
+                myDepth = depth + 1;
+            }
+
+            if (myDepth > 0) {
+                result = getPlacement(theBoard, beam.get(0));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the depth the last search completed.
+     *
+     * @return The number of pieces placed ahead, 0 if no placement was found.
+     */
+    public int getDepth() {
+        return myDepth;
+    }
+
+    /**
+     * Returns the number of boards scored, by every search of this BeamSearch.
+     *
+     * @return The number of boards scored, not counting TranspositionTable hits.
+     */
+    public long getEvaluations() {
+        return myEvaluations.sum();
+    }
+
+    /**
+     * Returns the table scores are kept in.
+     *
+     * @return The TranspositionTable.
+     */
+    public TranspositionTable getTable() {
+        return myTable;
+    }
+
+    /**
+     * Returns the state the piece of a depth starts from.
+     *
+     * @param theBoard The Board searched.
+     * @param thePreview The pieces that follow the current piece.
+     * @param theDepth The depth.
+     * @return The current piece's state at depth 0, else the spawn state of the
+     *         preview piece of the depth.
+     */
+    private static int getStart(final Board theBoard, final List<TetrisPiece> thePreview,
+                                final int theDepth) {
+        int result = theBoard.getCurrentPieceState();
+        if (theDepth > 0) {
+            /* A piece enters centered on the width of the piece after it; past the
+             * end of the preview that piece is unknown, so assume the same piece. */
+            final TetrisPiece piece = thePreview.get(theDepth - 1);
+            TetrisPiece following = piece;
+            if (theDepth < thePreview.size()) {
+                following = thePreview.get(theDepth);
+            }
+            result = Board.getSpawnState(piece, following, theBoard.getWidth(),
+                                         theBoard.getHeight());
+        }
+        return result;
+    }
+
+    /**
+     * Places a piece in every reachable position on every board of the beam, in parallel.
+     *
+     * @param theBeam The boards of the beam.
+     * @param theStart The packed state the piece starts from on every board.
+     * @param theTimed Whether the expansion may be cut short by the deadline.
+     * @param theDeadline The deadline, on the System.nanoTime clock.
+     * @return Every resulting board, or null if the deadline passed first.
+     */
+    private List<Node> expand(final List<Node> theBeam, final int theStart,
+                              final boolean theTimed, final long theDeadline) {
+        final List<List<Node>> expanded;
+        if (myPool == null) {
+            expanded = theBeam.stream()
+                            .map(node -> expand(node, theStart, theTimed, theDeadline))
+                            .collect(Collectors.toList());
+        } else {
+            try {
+                expanded = myPool.submit(() -> theBeam.parallelStream()
+                                .map(node -> expand(node, theStart, theTimed, theDeadline))
+                                .collect(Collectors.toList())).get();
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Search interrupted", ex);
+            } catch (final ExecutionException ex) {
+                if (ex.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) ex.getCause();
+                }
+                throw new IllegalStateException(ex.getCause());
+            }
+        }
+
+        List<Node> result = new ArrayList<Node>();
+        for (final List<Node> children : expanded) {
+            if (children == null) {
+                result = null;
+                break;
+            }
+            result.addAll(children);
+        }
+        return result;
+    }
+
+    /**
+     * Places a piece in every reachable position on one board and scores the results.
+     *
+     * @param theNode The board.
+     * @param theStart The packed state the piece starts from.
+     * @param theTimed Whether the expansion may be cut short by the deadline.
+     * @param theDeadline The deadline, on the System.nanoTime clock.
+     * @return The resulting boards, or null if the deadline has passed.
+     */
+    private List<Node> expand(final Node theNode, final int theStart, final boolean theTimed,
+                              final long theDeadline) {
+        List<Node> result = null;
+        if (!theTimed || System.nanoTime() - theDeadline <= 0) {
+            final PlacementSearch search = mySearches.get();
+            final BitBoard scratch = myScratch.get();
+            final long evaluations = search.getEvaluations();
+            final int count = search.search(theNode.myBoard, theStart);
+            result = new ArrayList<Node>(count);
+            for (int i = 0; i < count; i++) {
+                final int lines = theNode.myLines + search.place(i, scratch);
+                final long key = scratch.hash() ^ lines * LINES_MULTIPLIER;
+                double score = myTable.get(key);
+                if (Double.isNaN(score)) {
+                    score = search.evaluate(scratch, lines, myHeuristic);
+                    myTable.put(key, score);
+                }
+
+                final int state = search.getPlacementState(i);
+                int root = theNode.myRoot;
+                if (theNode.myParent == null) {
+                    root = state;
+                }
+                result.add(new Node(theNode, root, state, lines, score, key));
+            }
+            myEvaluations.add(search.getEvaluations() - evaluations);
+        }
+        return result;
+    }
+
+    /**
+     * Keeps the best distinct boards, in order of score, and builds them.
+     *
+     * @param theChildren The boards of a depth.
+     * @return The new beam, best first.
+     */
+    private List<Node> select(final List<Node> theChildren) {
+        final Set<Long> keys = new HashSet<Long>();
+        final List<Node> distinct = new ArrayList<Node>(theChildren.size());
+        for (final Node child : theChildren) {
+            if (keys.add(child.myKey)) {
+                distinct.add(child);
+            }
+        }
+        distinct.sort((theFirst, theSecond) -> Double.compare(theSecond.myScore,
+                                                               theFirst.myScore));
+
+        final List<Node> result = new ArrayList<Node>(distinct.subList(
+            0, Math.min(myBeamWidth, distinct.size())));
+        for (final Node node : result) {
+            node.myBoard = new BitBoard(node.myParent.myBoard);
+            node.myBoard.lock(PieceState.getPiece(node.myState),
+                              PieceState.getRotation(node.myState),
+                              PieceState.getX(node.myState), PieceState.getY(node.myState),
+                              myCleared);
+        }
+        return result;
+    }
+
+    /**
+     * Builds the placement of the current piece a node descends from.
+     *
+     * @param theBoard The Board searched.
+     * @param theBest The best node.
+     * @return The placement, with the Inputs that reach it.
+     */
+    private Placement getPlacement(final Board theBoard, final Node theBest) {
+        myRootSearch.search(theBoard);
+        final int index = myRootSearch.indexOf(theBest.myRoot);
+        final BitBoard board = new BitBoard(1, 1);
+        return myRootSearch.getPlacement(index, myRootSearch.place(index, board),
+                                         theBest.myScore);
+    }
+}
@@ -0,0 +1,370 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * The BitBoard class. This class is an occupancy index for the frozen blocks
+ * of a Board: every row of the board is stored as a single long, where bit x
+ * is set when the cell (x, row) holds a frozen block. Keeping this index in sync
+ * with the frozen blocks lets a collision test be done with a handful of AND
+ * operations against the precomputed row masks of a TetrisPiece, without walking
+ * any Points or allocating any objects.
+ *
+ * The index also keeps the height of every column (one more than its highest
+ * occupied row), which lets the landing row of a dropped piece be computed
+ * directly instead of stepping the piece down one row at a time.
+ *
+ * Because each row is a single long, a BitBoard supports boards of at most
+ * {@link #MAX_WIDTH} columns.
+ *
+ * @author Logan Stafford
+ * @version 1.0
+ */
+final class BitBoard {
+
+    /**
+     * The maximum number of columns a BitBoard can index.
+     */
+    static final int MAX_WIDTH = Long.SIZE;
+
+    /**
+     * The odd multiplier used to mix each row into the position hash.
+     */
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    /**
+     * The shift used to fold the high bits of the position hash into the low bits.
+     */
+    private static final int HASH_SHIFT = 29;
+
+    /**
+     * The occupancy masks of each row, indexed from the bottom row (0) upwards.
+     */
+    private long[] myRows;
+
+    /**
+     * The height of each column: one more than its highest occupied row, or 0 if empty.
+     */
+    private int[] myColumnHeights;
+
+    /**
+     * The width of the indexed board.
+     */
+    private int myWidth;
+
+    /**
+     * The height of the indexed board.
+     */
+    private int myHeight;
+
+    /**
+     * The BitBoard constructor.
+     *
+     * @param theWidth The width of the indexed board.
+     * @param theHeight The height of the indexed board.
+     */
+    BitBoard(final int theWidth, final int theHeight) {
+        myRows = new long[0];
+        myColumnHeights = new int[0];
+        reset(theWidth, theHeight);
+    }
+
+    /**
+     * The BitBoard copy constructor.
+     *
+     * @param theOther The BitBoard to copy.
+     */
+    BitBoard(final BitBoard theOther) {
+        myRows = new long[0];
+        myColumnHeights = new int[0];
+        copyFrom(theOther);
+    }
+
+    /**
+     * Makes this index a copy of another, reusing its arrays when the sizes match.
+     *
+     * @param theOther The BitBoard to copy.
+     */
+    void copyFrom(final BitBoard theOther) {
+        myWidth = theOther.myWidth;
+        myHeight = theOther.myHeight;
+        if (myRows.length != myHeight) {
+            myRows = new long[myHeight];
+        }
+        if (myColumnHeights.length != myWidth) {
+            myColumnHeights = new int[myWidth];
+        }
+        System.arraycopy(theOther.myRows, 0, myRows, 0, myHeight);
+        System.arraycopy(theOther.myColumnHeights, 0, myColumnHeights, 0, myWidth);
+    }
+
+    /**
+     * Clears every row of the index and resizes it to the given dimensions.
+     *
+     * @param theWidth The new width of the indexed board.
+     * @param theHeight The new height of the indexed board.
+     */
+    void reset(final int theWidth, final int theHeight) {
+        if (theWidth < 1 || theWidth > MAX_WIDTH) {
+            throw new IllegalArgumentException("Board width must be between 1 and "
+                                               + MAX_WIDTH + ": " + theWidth);
+        }
+        myWidth = theWidth;
+        myHeight = theHeight;
+        if (myRows.length == theHeight) {
+            Arrays.fill(myRows, 0L);
+        } else {
+            myRows = new long[theHeight];
+        }
+        if (myColumnHeights.length == theWidth) {
+            Arrays.fill(myColumnHeights, 0);
+        } else {
+            myColumnHeights = new int[theWidth];
+        }
+    }
+
+    /**
+     * Returns the width of the indexed board.
+     *
+     * @return The width of the indexed board.
+     */
+    int getWidth() {
+        return myWidth;
+    }
+
+    /**
+     * Returns the height of the indexed board.
+     *
+     * @return The height of the indexed board.
+     */
+    int getHeight() {
+        return myHeight;
+    }
+
+    /**
+     * Marks a cell as occupied. Cells outside of the board are ignored.
+     *
+     * @param theX The column of the cell.
+     * @param theY The row of the cell.
+     */
+    void set(final int theX, final int theY) {
+        if (theX >= 0 && theX < myWidth && theY >= 0 && theY < myHeight) {
+            myRows[theY] |= 1L << theX;
+            myColumnHeights[theX] = Math.max(myColumnHeights[theX], theY + 1);
+        }
+    }
+
+    /**
+     * Determines if a cell is occupied. Cells outside of the board are never occupied.
+     *
+     * @param theX The column of the cell.
+     * @param theY The row of the cell.
+     * @return True if the cell holds a frozen block, otherwise false.
+     */
+    boolean isOccupied(final int theX, final int theY) {
+        return theX >= 0 && theX < myWidth && theY >= 0 && theY < myHeight
+               && (myRows[theY] & (1L << theX)) != 0;
+    }
+
+    /**
+     * Returns the occupancy mask of a row.
+     *
+     * @param theY The row to return.
+     * @return The occupancy mask of the row.
+     */
+    long getRow(final int theY) {
+        return myRows[theY];
+    }
+
+    /**
+     * Determines if every cell of a row is occupied.
+     *
+     * @param theY The row to test.
+     * @return True if the row is complete, otherwise false.
+     */
+    boolean isRowFull(final int theY) {
+        return myRows[theY] == -1L >>> (MAX_WIDTH - myWidth);
+    }
+
+    /**
+     * Removes a set of rows from the index in a single pass, shifting the
+     * remaining rows down and leaving empty rows at the top.
+     *
+     * @param theRows The rows to remove, in ascending order.
+     * @param theCount The number of rows in theRows to remove.
+     */
+    void removeRows(final int[] theRows, final int theCount) {
+        int write = theRows[0];
+        for (int i = 0; i < theCount; i++) {
+            final int start = theRows[i] + 1;
+            int end = myHeight;
+            if (i + 1 < theCount) {
+                end = theRows[i + 1];
+            }
+            if (end > start) {
+                System.arraycopy(myRows, start, myRows, write, end - start);
+                write += end - start;
+            }
+        }
+        Arrays.fill(myRows, write, myHeight, 0L);
+        
+        /* Every removed row was complete, so each column lost that many rows below its top. */
+        for (int x = 0; x < myWidth; x++) {
+            int height = myColumnHeights[x] - theCount;
+            while (height > 0 && (myRows[height - 1] & (1L << x)) == 0) {
+                height--;
+            }
+            myColumnHeights[x] = height;
+        }
+    }
+
+    /**
+     * Locks a legally placed piece into the index and removes the rows it completes,
+     * as a Board does when a piece freezes. Every block of the piece must be on the
+     * board: callers exclude placements that lock above the top, which end the game
+     * on a Board, and such a piece is not checked here.
+     *
+     * @param thePiece The type of the piece.
+     * @param theRotation The rotation of the piece.
+     * @param theX The x-coordinate of the piece position.
+     * @param theY The y-coordinate of the piece position.
+     * @param theCleared Filled with the removed rows in ascending order; at least 4 long.
+     * @return The number of rows removed.
+     */
+    int lock(final TetrisPiece thePiece, final Rotation theRotation,
+             final int theX, final int theY, final int[] theCleared) {
+        final int minY = thePiece.getMinY(theRotation);
+        long covered = 0;
+        for (int local = thePiece.getMaxY(theRotation); local >= minY; local--) {
+            final long shifted = shift(thePiece.getRowMask(theRotation, local), theX);
+            final int row = theY + local;
+            myRows[row] |= shifted;
+            
+            /* The highest block of each column sets its height. */
+            for (long top = shifted & ~covered; top != 0; top &= top - 1) {
+                final int column = Long.numberOfTrailingZeros(top);
+                myColumnHeights[column] = Math.max(myColumnHeights[column], row + 1);
+            }
+            covered |= shifted;
+        }
+        
+        int count = 0;
+        for (int local = minY; local <= thePiece.getMaxY(theRotation); local++) {
+            if (isRowFull(theY + local)) {
+                theCleared[count++] = theY + local;
+            }
+        }
+        if (count > 0) {
+            removeRows(theCleared, count);
+        }
+        return count;
+    }
+
+    /**
+     * Returns a hash of the occupied cells and the size of the index, so that
+     * identical positions reached by different moves hash alike.
+     *
+     * @return The position hash.
+     */
+    long hash() {
+        long result = (long) myWidth << Integer.SIZE | myHeight;
+        for (int y = 0; y < myHeight; y++) {
+            result = (result ^ myRows[y]) * HASH_MULTIPLIER;
+            result ^= result >>> HASH_SHIFT;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the height of a column.
+     *
+     * @param theX The column.
+     * @return One more than the highest occupied row of the column, or 0 if it is empty.
+     */
+    int getColumnHeight(final int theX) {
+        return myColumnHeights[theX];
+    }
+
+    /**
+     * Computes the row a legally placed piece would land on if dropped straight down.
+     * When the piece is above the surface of every column it covers, the landing row
+     * comes directly from the column heights; otherwise (a piece tucked under an
+     * overhang) the piece is stepped down against the index until it collides.
+     *
+     * @param thePiece The type of the piece.
+     * @param theRotation The rotation of the piece.
+     * @param theX The x-coordinate of the piece position.
+     * @param theY The y-coordinate of the piece position.
+     * @return The y-coordinate of the piece position after the drop.
+     */
+    int getLandingY(final TetrisPiece thePiece, final Rotation theRotation,
+                    final int theX, final int theY) {
+        int landing = Integer.MIN_VALUE;
+        boolean aboveSurface = true;
+        for (int column = thePiece.getMinX(theRotation);
+                        column <= thePiece.getMaxX(theRotation); column++) {
+            final int bottom = thePiece.getColumnBottom(theRotation, column);
+            final int height = myColumnHeights[theX + column];
+            if (theY + bottom < height) {
+                aboveSurface = false;
+            }
+            landing = Math.max(landing, height - bottom);
+        }
+        
+        if (!aboveSurface) {
+            landing = theY;
+            while (!collides(thePiece, theRotation, theX, landing - 1)) {
+                landing--;
+            }
+        }
+        return landing;
+    }
+
+    /**
+     * Determines if a piece placed at the given position would leave the board
+     * through a wall or the floor, or would overlap a frozen block. Rows above the
+     * top of the board are free space.
+     *
+     * @param thePiece The type of the piece.
+     * @param theRotation The rotation of the piece.
+     * @param theX The x-coordinate of the piece position.
+     * @param theY The y-coordinate of the piece position.
+     * @return True if the placement is illegal, otherwise false.
+     */
+    boolean collides(final TetrisPiece thePiece, final Rotation theRotation,
+                     final int theX, final int theY) {
+        final int minY = thePiece.getMinY(theRotation);
+        final int maxY = thePiece.getMaxY(theRotation);
+
+        if (theX + thePiece.getMinX(theRotation) < 0
+            || theX + thePiece.getMaxX(theRotation) >= myWidth
+            || theY + minY < 0) {
+            return true;
+        }
+
+        final int top = Math.min(theY + maxY, myHeight - 1);
+        for (int row = theY + minY; row <= top; row++) {
+            if ((myRows[row] & shift(thePiece.getRowMask(theRotation, row - theY), theX)) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Moves a piece row mask from local columns to board columns.
+     *
+     * @param theMask The row mask in the piece's local columns.
+     * @param theX The x-coordinate of the piece position.
+     * @return The row mask in board columns.
+     */
+    static long shift(final long theMask, final int theX) {
+        final long result;
+        if (theX >= 0) {
+            result = theMask << theX;
+        } else {
+            result = theMask >>> -theX;
+        }
+        return result;
+    }
+}
@@ -1,30 +1,44 @@
 package model;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Observable;
 
 /**
  * The Board class. This class represents a Tetris board with all
- * corresponding properties and actions.
+ * corresponding properties and actions. Observers of a Board receive a
+ * BoardEvent for every change, and can read the board itself through
+ * the BoardView interface. A renderer that draws only what changed reads
+ * the changed cells through the BoardChanges interface.
  * 
  * @author Logan Stafford
  * @version 1.5
  * @date October 11th, 2020
  */
 @SuppressWarnings("deprecation")
-public class Board extends Observable {
+public class Board extends Observable implements BoardView, BoardChanges {
     
     /**
      * An integer representing the default width of a board.
      */
-    private static final int DEFAULT_BOARD_WIDTH = 10;
+    public static final int DEFAULT_BOARD_WIDTH = 10;
 
     /**
      * An integer representing the default height of a board.
      */
-    private static final int DEFAULT_BOARD_HEIGHT = 20;
+    public static final int DEFAULT_BOARD_HEIGHT = 20;
+    
+    /**
+     * An integer representing the number of spare rows shown above the board,
+     * where new pieces enter the game.
+     */
+    private static final int SPARE_ROWS = 4;
+    
+    /**
+     * An integer representing the most rows a single piece can complete at once.
+     */
+    private static final int MAX_CLEARED_ROWS = 4;
     
     /**
      * An integer representing the current width of a board.
@@ -37,15 +51,42 @@ public class Board extends Observable {
     private int myCurrentBoardHeight;
     
     /**
-     * A List containing all the frozen blocks on a board.
+     * A CellStorage containing all the frozen blocks on a board.
      */
-    private final List<Block[]> myFrozenBlocks;
+    private final CellStorage myFrozenBlocks;
+    
+    /**
+     * A BitBoard occupancy index of the frozen blocks, kept in sync with myFrozenBlocks
+     * and used for allocation-free collision checks.
+     */
+    private final BitBoard myOccupancy;
+    
+    /**
+     * A scratch array holding the complete rows found by checkRows; a piece
+     * can complete at most as many rows as it is tall.
+     */
+    private final int[] myCompleteRows = new int[MAX_CLEARED_ROWS];
     
     /**
      * A boolean value of the current game status (Think: Is the game over?)
      */
     private boolean myGameOver;
 
+    /**
+     * An integer counting the pieces frozen into the board during the current game.
+     */
+    private int myPiecesFrozen;
+
+    /**
+     * An integer counting the rows cleared during the current game.
+     */
+    private int myLinesCleared;
+
+    /**
+     * The PieceSource that supplies random pieces to this board.
+     */
+    private PieceSource myPieceSource;
+
     /**
      * A List containing a non-random sequence of TetrisPieces to loop through.
      */
@@ -62,16 +103,21 @@ public class Board extends Observable {
     private TetrisPiece myNextPiece;
     
     /**
-     * A MoveableTetrisPiece object that is currently movable (the current piece).
+     * The packed PieceState of the piece that is currently movable (the current piece),
+     * or PieceState.NONE if there is no current piece.
+     */
+    private int myCurrentPiece;
+
+    /**
+     * The cells that changed since the last call to clearChanges, as one bit mask per
+     * row with bit x set for column x. Only tracked while the board has observers.
      */
-    private MovableTetrisPiece myCurrentPiece;
+    private long[] myChangedRows;
 
     /**
-     * A boolean value to indicate when moving a piece down is part of a drop operation -
-     * used to prevent the Board from notifying observers for each incremental
-     * down movement in the drop.
+     * Whether every cell must be treated as changed since the last call to clearChanges.
      */
-    private boolean myDropStatus;
+    private boolean myAllChanged;
 
     /**
      * The Board constructor, used for default-sized boards.
@@ -87,16 +133,44 @@ public class Board extends Observable {
      * @param theHeight The desired height of the new board.
      */
     public Board(final int theWidth, final int theHeight) {
+        this(theWidth, theHeight, new PieceSource());
+    }
+
+    /**
+     * The Board constructor, used for boards with a seeded, reproducible piece stream.
+     * 
+     * @param theWidth The desired width of the new board.
+     * @param theHeight The desired height of the new board.
+     * @param theSeed The seed of the board's PieceSource.
+     */
+    public Board(final int theWidth, final int theHeight, final long theSeed) {
+        this(theWidth, theHeight, new PieceSource(theSeed));
+    }
+
+    /**
+     * The Board constructor, used for boards fed by a given PieceSource.
+     * 
+     * @param theWidth The desired width of the new board.
+     * @param theHeight The desired height of the new board.
+     * @param thePieceSource The PieceSource that supplies random pieces.
+     */
+    public Board(final int theWidth, final int theHeight, final PieceSource thePieceSource) {
         super();
         
+        myPieceSource = thePieceSource;
+        
         myCurrentBoardWidth = theWidth;
         myCurrentBoardHeight = theHeight;
         
-        myFrozenBlocks = new LinkedList<Block[]>();        
+        myFrozenBlocks = new ByteCellStorage(theWidth, theHeight);
+        myOccupancy = new BitBoard(theWidth, theHeight);
         myNonRandomPieces = new ArrayList<TetrisPiece>();
+        myChangedRows = new long[theHeight];
+        myAllChanged = true;
         
         /* Setting the index of the non-random pieces list to 0 (the first element/piece). */
         mySequenceIndex = 0;
+        myCurrentPiece = PieceState.NONE;
     }
     
     /**
@@ -116,6 +190,7 @@ public class Board extends Observable {
      * 
      * @return The current width of the board.
      */
+    @Override
     public int getWidth() {
         return myCurrentBoardWidth;
     }
@@ -125,6 +200,7 @@ public class Board extends Observable {
      * 
      * @return The current Height of the board.
      */
+    @Override
     public int getHeight() {
         return myCurrentBoardHeight;
     }
@@ -139,19 +215,48 @@ public class Board extends Observable {
         mySequenceIndex = 0;
         
        /* Resets the list of currently frozen blocks and re-populates the list.*/
-        myFrozenBlocks.clear();
-        for (int h = 0; h < myCurrentBoardHeight; h++) {
-            myFrozenBlocks.add(new Block[myCurrentBoardWidth]);
-        }
+        myFrozenBlocks.reset(myCurrentBoardWidth, myCurrentBoardHeight);
+        myOccupancy.reset(myCurrentBoardWidth, myCurrentBoardHeight);
 
         /* Resetting the "status" of the game. */
         myGameOver = false;
+        myPiecesFrozen = 0;
+        myLinesCleared = 0;
         myCurrentPiece = nextMovablePiece(true);
-        myDropStatus = false;
         
         /* Notifying all observer classes that the object data has changed. */
-        setChanged();
-        notifyObservers(toString());
+        fireEvent(BoardEvent.newGame());
+        checkSpawn();
+    }
+
+    /**
+     * Starts a new game with a fresh, seeded piece stream, so the game can be
+     * reproduced from the seed alone.
+     * 
+     * @param theSeed The seed of the new game's PieceSource.
+     */
+    public void newGame(final long theSeed) {
+        myPieceSource = new PieceSource(theSeed);
+        newGame();
+    }
+
+    /**
+     * Replaces the PieceSource that supplies random pieces to this board.
+     * The new source takes effect from the next piece that is prepared.
+     * 
+     * @param thePieceSource The new PieceSource.
+     */
+    public void setPieceSource(final PieceSource thePieceSource) {
+        myPieceSource = thePieceSource;
+    }
+
+    /**
+     * Returns the PieceSource that supplies random pieces to this board.
+     * 
+     * @return The board's PieceSource.
+     */
+    public PieceSource getPieceSource() {
+        return myPieceSource;
     }
 
     /**
@@ -171,15 +276,19 @@ public class Board extends Observable {
      * Clear full lines.
      */
     public void down() {
-        if (!move(myCurrentPiece.down())) {
+        if (myCurrentPiece != PieceState.NONE && !move(PieceState.down(myCurrentPiece))) {
             // the piece froze, so clear lines and update current piece
-            addPieceToBoardData(myFrozenBlocks, myCurrentPiece);
-            checkRows();
+            final boolean onBoard = freezePiece(myCurrentPiece);
+            checkRows(myCurrentPiece);
+            if (!onBoard) {
+                // the board is final before observers hear the game is over
+                endGame();
+            }
             if (!myGameOver) {
                 myCurrentPiece = nextMovablePiece(false);
+                fireEvent(BoardEvent.pieceMoved(PieceState.NONE, myCurrentPiece));
+                checkSpawn();
             }
-            setChanged();
-            notifyObservers(toString());
         }
     }
 
@@ -187,8 +296,8 @@ public class Board extends Observable {
      * Move the current piece left.
      */
     public void left() {
-        if (myCurrentPiece != null) {
-            move(myCurrentPiece.left());
+        if (myCurrentPiece != PieceState.NONE) {
+            move(PieceState.left(myCurrentPiece));
         }
     }
 
@@ -196,8 +305,8 @@ public class Board extends Observable {
      * Move the current piece right.
      */
     public void right() {
-        if (myCurrentPiece != null) {
-            move(myCurrentPiece.right());
+        if (myCurrentPiece != PieceState.NONE) {
+            move(PieceState.right(myCurrentPiece));
         }
     }
 
@@ -205,18 +314,18 @@ public class Board extends Observable {
      * Try to rotate the movable piece in the clockwise direction.
      */
     public void rotate() {
-        if (myCurrentPiece != null) {           
-            if (myCurrentPiece.getTetrisPiece() == TetrisPiece.O) {
-                move(myCurrentPiece.rotate());
+        if (myCurrentPiece != PieceState.NONE) {           
+            final int cwPiece = PieceState.rotate(myCurrentPiece);
+            if (PieceState.getPiece(myCurrentPiece) == TetrisPiece.O) {
+                move(cwPiece);
             } else {
-                final MovableTetrisPiece cwPiece = myCurrentPiece.rotate();
-                final Point[] offsets = WallKick.getkicks(cwPiece.getTetrisPiece(),
-                                                    myCurrentPiece.getRotation(),
-                                                    cwPiece.getRotation());
-                for (final Point p : offsets) {
-                    final Point offsetLocation = cwPiece.getPosition().transform(p);
-                    final MovableTetrisPiece temp = cwPiece.setPosition(offsetLocation);
-                    if (move(temp)) {
+                final TetrisPiece piece = PieceState.getPiece(cwPiece);
+                final Rotation from = PieceState.getRotation(myCurrentPiece);
+                final Rotation to = PieceState.getRotation(cwPiece);
+                final int kicks = WallKick.getKickCount(piece, from, to);
+                for (int i = 0; i < kicks; i++) {
+                    if (move(PieceState.translate(cwPiece, WallKick.getKickX(piece, from, to, i),
+                                                  WallKick.getKickY(piece, from, to, i)))) {
                         break;
                     }
                 }
@@ -225,37 +334,126 @@ public class Board extends Observable {
     }
 
     /**
-     * Drop the piece down until the piece freezes in place.
+     * Drop the piece down until the piece freezes in place. The landing row is
+     * computed from the column heights, so the drop is a single move and a single lock.
      */
     public void drop() {
-        if (!myGameOver) {
-            myDropStatus = true;
-            while (isPieceLegal(myCurrentPiece.down())) {
-                down();  // move down as far as possible
+        if (!myGameOver && myCurrentPiece != PieceState.NONE) {
+            final int start = myCurrentPiece;
+            final int landingY = myOccupancy.getLandingY(PieceState.getPiece(start),
+                                                         PieceState.getRotation(start),
+                                                         PieceState.getX(start),
+                                                         PieceState.getY(start));
+            if (landingY < PieceState.getY(start)) {
+                myCurrentPiece = PieceState.setPosition(start, PieceState.getX(start), landingY);
+                fireEvent(BoardEvent.pieceMoved(start, myCurrentPiece));
             }
-            myDropStatus = false;
             down();  // move down one more time to freeze in place
         }
     }
 
     @Override
-    public String toString() {
-        final List<Block[]> board = getBoard();
-        board.add(new Block[myCurrentBoardWidth]);
-        board.add(new Block[myCurrentBoardWidth]);
-        board.add(new Block[myCurrentBoardWidth]);
-        board.add(new Block[myCurrentBoardWidth]);
-        
-        if (myCurrentPiece != null) {
-            addPieceToBoardData(board, myCurrentPiece);
+    public int getCurrentPieceState() {
+        return myCurrentPiece;
+    }
+
+    /**
+     * Tests if a packed piece state is legal on this board.
+     * 
+     * Illegal states:
+     * - points of the piece exceed the bounds of the board
+     * - points of the piece collide with frozen blocks on the board
+     * 
+     * @param theState The packed PieceState to test.
+     * @return Returns true if the piece is in a legal state; false otherwise
+     */
+    public boolean isLegal(final int theState) {
+        return !myOccupancy.collides(PieceState.getPiece(theState), PieceState.getRotation(theState),
+                                     PieceState.getX(theState), PieceState.getY(theState));
+    }
+
+    @Override
+    public Block getFrozenBlock(final int theX, final int theY) {
+        Block result = null;
+        if (isPointOnBoard(theX, theY)) {
+            result = myFrozenBlocks.get(theX, theY);
+        }
+        return result;
+    }
+
+    @Override
+    public Block getBlock(final int theX, final int theY) {
+        Block result = getFrozenBlock(theX, theY);
+        if (isCurrentPieceAt(theX, theY)) {
+            result = PieceState.getPiece(myCurrentPiece).getBlock();
         }
+        return result;
+    }
+
+    /**
+     * Returns the number of pieces frozen into the board during the current game.
+     * 
+     * @return The number of frozen pieces.
+     */
+    public int getPiecesFrozen() {
+        return myPiecesFrozen;
+    }
+
+    /**
+     * Returns the number of rows cleared during the current game.
+     * 
+     * @return The number of cleared rows.
+     */
+    public int getLinesCleared() {
+        return myLinesCleared;
+    }
+
+    @Override
+    public TetrisPiece getNextPiece() {
+        return myNextPiece;
+    }
+
+    /**
+     * Returns the pieces that will follow the next piece, without drawing them.
+     * 
+     * @param theCount The number of pieces to preview.
+     * @return The pieces after the next piece, in the order they will enter the board.
+     */
+    public List<TetrisPiece> getPreview(final int theCount) {
+        final List<TetrisPiece> result = new ArrayList<TetrisPiece>(theCount);
+        for (int i = 0; i < theCount; i++) {
+            if (myNonRandomPieces == null || myNonRandomPieces.isEmpty()) {
+                result.add(myPieceSource.peek(i));
+            } else {
+                result.add(myNonRandomPieces.get((mySequenceIndex + i)
+                                                 % myNonRandomPieces.size()));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean isGameOver() {
+        return myGameOver;
+    }
+
+    @Override
+    public String toString() {
+        final int width = myFrozenBlocks.getWidth();
+        final int height = myFrozenBlocks.getHeight();
         
         final StringBuilder sb = new StringBuilder();
-        for (int i = board.size() - 1; i >= 0; i--) {
-            final Block[] row = board.get(i);
+        for (int i = height + SPARE_ROWS - 1; i >= 0; i--) {
             sb.append('|');
             
-            for (final Block c : row) {
+            for (int x = 0; x < width; x++) {
+                Block c = null;
+                if (i < height) {
+                    c = myFrozenBlocks.get(x, i);
+                }
+                if (isCurrentPieceAt(x, i)) {
+                    c = PieceState.getPiece(myCurrentPiece).getBlock();
+                }
                 if (c == null) {
                     sb.append(' ');
                 } else {
@@ -265,227 +463,403 @@ public class Board extends Observable {
             
             sb.append("|\n");
             
-            if (i == this.myCurrentBoardHeight) {
+            if (i == height) {
                 sb.append(' ');
-                for (int j = 0; j < this.myCurrentBoardWidth; j++) {
+                for (int j = 0; j < width; j++) {
                     sb.append('-');
                 }
                 sb.append('\n');
             }
         }
         sb.append('|');
-        for (int w = 0; w < myCurrentBoardWidth; w++) {
+        for (int w = 0; w < width; w++) {
             sb.append('-');
         }
         sb.append('|');
         return sb.toString();
     }
     
+    /**
+     * Takes a compact snapshot of the full state of this board.
+     * 
+     * @return A BoardSnapshot of this board.
+     */
+    public BoardSnapshot snapshot() {
+        final int width = myFrozenBlocks.getWidth();
+        final int height = myFrozenBlocks.getHeight();
+        final byte[] cells = BoardSnapshot.createCells(width, height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                BoardSnapshot.putCell(cells, y * width + x, myFrozenBlocks.get(x, y));
+            }
+        }
+        return new BoardSnapshot(width, height, cells, myCurrentPiece, myNextPiece,
+                                 myGameOver, myPiecesFrozen, myLinesCleared, mySequenceIndex,
+                                 myPieceSource.getSeed(), myPieceSource.getDraws());
+    }
+    
+    /**
+     * Puts this board back into the state of a snapshot, resizing it if needed.
+     * The PieceSource is rebuilt from the snapshot's seed and fast-forwarded to its
+     * position, reusing the current source when it can be wound forward.
+     * Observers are told that a new game started, followed by the next and current pieces.
+     * 
+     * @param theSnapshot The BoardSnapshot to restore.
+     */
+    public void restore(final BoardSnapshot theSnapshot) {
+        myCurrentBoardWidth = theSnapshot.getWidth();
+        myCurrentBoardHeight = theSnapshot.getHeight();
+        myFrozenBlocks.reset(myCurrentBoardWidth, myCurrentBoardHeight);
+        myOccupancy.reset(myCurrentBoardWidth, myCurrentBoardHeight);
+        for (int y = 0; y < myCurrentBoardHeight; y++) {
+            for (int x = 0; x < myCurrentBoardWidth; x++) {
+                final Block block = theSnapshot.getFrozenBlock(x, y);
+                if (block != null) {
+                    setPoint(x, y, block);
+                }
+            }
+        }
+        
+        if (myPieceSource.getSeed() != theSnapshot.getSeed()
+            || myPieceSource.getDraws() > theSnapshot.getDraws()) {
+            myPieceSource = new PieceSource(theSnapshot.getSeed());
+        }
+        myPieceSource.skip(theSnapshot.getDraws() - myPieceSource.getDraws());
+        
+        myGameOver = theSnapshot.isGameOver();
+        myPiecesFrozen = theSnapshot.getPiecesFrozen();
+        myLinesCleared = theSnapshot.getLinesCleared();
+        mySequenceIndex = theSnapshot.getSequenceIndex();
+        myNextPiece = theSnapshot.getNextPiece();
+        myCurrentPiece = theSnapshot.getCurrentPieceState();
+        
+        fireEvent(BoardEvent.newGame());
+        if (myNextPiece != null) {
+            fireEvent(BoardEvent.nextPiece(myNextPiece));
+        }
+        if (myCurrentPiece != PieceState.NONE) {
+            fireEvent(BoardEvent.pieceMoved(PieceState.NONE, myCurrentPiece));
+        }
+    }
+    
+    /**
+     * Returns the occupancy mask of a row of frozen blocks, where bit x is set when
+     * the cell (x, row) is occupied. Package-private so model tools can analyze
+     * the board without reading it cell by cell.
+     * 
+     * @param theY The row, from 0 at the bottom.
+     * @return The occupancy mask of the row.
+     */
+    long getRowMask(final int theY) {
+        return myOccupancy.getRow(theY);
+    }
+    
+    /**
+     * Returns the occupancy index of the frozen blocks. Package-private so model
+     * tools can search placements on it; callers must not modify it.
+     * 
+     * @return The occupancy index.
+     */
+    BitBoard getOccupancy() {
+        return myOccupancy;
+    }
+    
+    /**
+     * Returns the state a piece enters the board in. A piece enters centered on
+     * the width of the piece that follows it, in its starting rotation at the top row,
+     * or one row lower for an I piece. Package-private so model tools can look ahead.
+     * 
+     * @param thePiece The entering piece.
+     * @param theFollowing The piece that follows it.
+     * @param theWidth The width of the board.
+     * @param theHeight The height of the board.
+     * @return The packed state of the entering piece.
+     */
+    static int getSpawnState(final TetrisPiece thePiece, final TetrisPiece theFollowing,
+                             final int theWidth, final int theHeight) {
+        int startY = theHeight - 1;
+        if (thePiece == TetrisPiece.I) {
+            startY--; 
+        }
+        return PieceState.pack(thePiece, Rotation.START,
+                               (theWidth - theFollowing.getWidth()) / 2, startY);
+    }
+    
+    /**
+     * Freezes a single block into the board, bypassing the current piece.
+     * Package-private so the model benchmarks can build board fixtures.
+     * 
+     * @param theX The x-coordinate of the block.
+     * @param theY The y-coordinate of the block.
+     * @param theBlock The Block to freeze; must not be null.
+     */
+    void setFrozenBlock(final int theX, final int theY, final Block theBlock) {
+        if (!setPoint(theX, theY, theBlock)) {
+            endGame();
+        }
+    }
+    
     /**
      * Helper function to check if the current piece can be shifted to the
      * specified position.
      * 
-     * @param theMovedPiece the position to attempt to shift the current piece
+     * @param theMovedPiece the packed state to attempt to shift the current piece to
      * @return True if the move succeeded
      */
-    private boolean move(final MovableTetrisPiece theMovedPiece) {
+    private boolean move(final int theMovedPiece) {
         
         boolean result = false;
-        if (isPieceLegal(theMovedPiece)) {
+        if (isLegal(theMovedPiece)) {
+            final int from = myCurrentPiece;
             myCurrentPiece = theMovedPiece;
             result = true;
-            if (!myDropStatus) {
-                setChanged();
-            }
-            notifyObservers(toString());
+            fireEvent(BoardEvent.pieceMoved(from, theMovedPiece));
         }
         return result;
     }
 
     /**
-     * Helper function to test if the piece is in a legal state.
-     * 
-     * Illegal states:
-     * - points of the piece exceed the bounds of the board
-     * - points of the piece collide with frozen blocks on the board
+     * Determines if the current piece covers a board point.
      * 
-     * @param thePiece MovableTetrisPiece to test.
-     * @return Returns true if the piece is in a legal state; false otherwise
+     * @param theX The x-coordinate of the board point.
+     * @param theY The y-coordinate of the board point.
+     * @return True if a block of the current piece is at the point, otherwise false.
      */
-    private boolean isPieceLegal(final MovableTetrisPiece thePiece) {
-        boolean result = true;
-        
-        for (final Point p : thePiece.getBoardPoints()) {
-            if (p.getX() < 0 || p.getX() >= myCurrentBoardWidth) {
-                result = false;
-            }
-            if (p.getY() < 0) {
-                result = false;
-            }
+    private boolean isCurrentPieceAt(final int theX, final int theY) {
+        boolean result = false;
+        if (myCurrentPiece != PieceState.NONE) {
+            final TetrisPiece piece = PieceState.getPiece(myCurrentPiece);
+            final Rotation rotation = PieceState.getRotation(myCurrentPiece);
+            final int localX = theX - PieceState.getX(myCurrentPiece);
+            final int localY = theY - PieceState.getY(myCurrentPiece);
+            result = localY >= piece.getMinY(rotation) && localY <= piece.getMaxY(rotation)
+                     && localX >= 0 && localX < BitBoard.MAX_WIDTH
+                     && (piece.getRowMask(rotation, localY) >>> localX & 1L) != 0;
         }
-        return result && !hasCollided(thePiece);      
+        return result;
     }
 
     /**
-     * Adds a movable Tetris piece into a list of board data.
+     * Freezes a piece into the frozen blocks of the board,
+     * keeping the occupancy index in sync. Every block of the piece that is on
+     * the board is frozen, even when others are above the top.
      * 
-     * Allows a single data structure to represent the current piece
-     * and the frozen blocks.
-     * 
-     * @param theFrozenBlocks Board to set the piece on.
-     * @param thePiece Piece to set on the board.
+     * @param thePiece The packed state of the piece to freeze.
+     * @return True if every block of the piece was on the board, false if the
+     *         piece ends the game.
      */
-    private void addPieceToBoardData(final List<Block[]> theFrozenBlocks,
-                                     final MovableTetrisPiece thePiece) {
-        for (final Point p : thePiece.getBoardPoints()) {
-            setPoint(theFrozenBlocks, p, thePiece.getTetrisPiece().getBlock());
+    private boolean freezePiece(final int thePiece) {
+        final TetrisPiece piece = PieceState.getPiece(thePiece);
+        final Rotation rotation = PieceState.getRotation(thePiece);
+        boolean result = true;
+        for (int i = 0; i < piece.getPointCount(); i++) {
+            final Point p = piece.getPoint(rotation, i);
+            result &= setPoint(PieceState.getX(thePiece) + p.getX(),
+                               PieceState.getY(thePiece) + p.getY(), piece.getBlock());
         }
+        myPiecesFrozen++;
+        fireEvent(BoardEvent.pieceFrozen(thePiece));
+        return result;
     }
 
     /**
-     * Checks the board for complete rows.
-     */
-    private void checkRows() {
-        final List<Integer> completeRows = new ArrayList<>();
-        for (final Block[] row : myFrozenBlocks) {
-            boolean complete = true;
-            for (final Block b : row) {
-                if (b == null) {
-                    complete = false;
-                    break;
-                }
-            }
-            if (complete) {
-                completeRows.add(myFrozenBlocks.indexOf(row));
-                setChanged();
-            }
-        }
-        // Loop through list backwards removing items by index
-        if (!completeRows.isEmpty()) {
-            for (int i = completeRows.size() - 1; i >= 0; i--) {
-                final Block[] row = myFrozenBlocks.get(completeRows.get(i));
-                myFrozenBlocks.remove(row);
-                myFrozenBlocks.add(new Block[myCurrentBoardWidth]);
+     * Checks the rows touched by a just-frozen piece for complete rows, and
+     * removes all of them in a single compaction pass. Only the touched rows
+     * can have become complete, so no other rows are tested.
+     * 
+     * @param theFrozenPiece The packed state of the piece that was just frozen.
+     */
+    private void checkRows(final int theFrozenPiece) {
+        final TetrisPiece piece = PieceState.getPiece(theFrozenPiece);
+        final Rotation rotation = PieceState.getRotation(theFrozenPiece);
+        final int bottom = Math.max(PieceState.getY(theFrozenPiece) + piece.getMinY(rotation), 0);
+        final int top = Math.min(PieceState.getY(theFrozenPiece) + piece.getMaxY(rotation),
+                                 myOccupancy.getHeight() - 1);
+        
+        int count = 0;
+        for (int y = bottom; y <= top; y++) {
+            if (myOccupancy.isRowFull(y)) {
+                myCompleteRows[count++] = y;
             }
         }
-        notifyObservers(completeRows.toArray(new Integer[completeRows.size()]));
-    }
-    
-    /**
-     * Helper function to copy the board.
-     * 
-     * @return A new copy of the board.
-     */
-    private List<Block[]> getBoard() {
-        final List<Block[]> board = new ArrayList<Block[]>();
-        for (final Block[] row : myFrozenBlocks) {
-            board.add(row.clone());
+        if (count > 0) {
+            myFrozenBlocks.removeRows(myCompleteRows, count);
+            myOccupancy.removeRows(myCompleteRows, count);
+            myLinesCleared += count;
+            fireEvent(BoardEvent.rowsCleared(Arrays.copyOf(myCompleteRows, count)));
         }
-        return board;
     }
 
     /**
      * Determines if a point is on the game board.
      * 
-     * @param theBoard Board to test.
-     * @param thePoint Point to test.
+     * @param theX The x-coordinate to test.
+     * @param theY The y-coordinate to test.
      * @return True if the point is on the board otherwise false.
      */
-    private boolean isPointOnBoard(final List<Block[]> theBoard, final Point thePoint) {
-        return thePoint.getX() >= 0 && thePoint.getX() < myCurrentBoardWidth && thePoint.getY() >= 0
-               && thePoint.getY() < theBoard.size();
+    private boolean isPointOnBoard(final int theX, final int theY) {
+        return theX >= 0 && theX < myFrozenBlocks.getWidth()
+               && theY >= 0 && theY < myFrozenBlocks.getHeight();
     }
 
     /**
-     * Sets a block at a board point.
+     * Sets a frozen block at a board point, keeping the occupancy index in sync.
+     * A point off the board is not set; the caller ends the game.
      * 
-     * @param theBoard Board to set the point on.
-     * @param thePoint Board point.
+     * @param theX The x-coordinate of the board point.
+     * @param theY The y-coordinate of the board point.
      * @param theBlock Block to set at board point.
+     * @return True if the point is on the board, false if it was not set.
      */
-    private void setPoint(final List<Block[]> theBoard, final Point thePoint,
-                          final Block theBlock) {        
-        if (isPointOnBoard(theBoard, thePoint)) { 
-            final Block[] row = theBoard.get(thePoint.getY());
-            row[thePoint.getX()] = theBlock;
-        } else if (!myGameOver) {
-            myGameOver = true;
-            setChanged();
-            notifyObservers(myGameOver);
+    private boolean setPoint(final int theX, final int theY, final Block theBlock) {        
+        final boolean result = isPointOnBoard(theX, theY);
+        if (result) { 
+            myFrozenBlocks.set(theX, theY, theBlock);
+            myOccupancy.set(theX, theY);
         }
+        return result;
     }
 
     /**
-     * Returns the block at a specific board point.
-     * 
-     * @param thePoint the specific Point to check
-     * @return the Block type at point or null if no block exists.
-     */
-    private Block getPoint(final Point thePoint) {
-        Block b = null;
-        if (isPointOnBoard(myFrozenBlocks, thePoint)) {
-            b = myFrozenBlocks.get(thePoint.getY())[thePoint.getX()];
+     * Ends the game if the current piece entered the board partly outside of
+     * its columns or spare rows, so it can never be moved or frozen.
+     */
+    private void checkSpawn() {
+        final TetrisPiece piece = PieceState.getPiece(myCurrentPiece);
+        final Rotation rotation = PieceState.getRotation(myCurrentPiece);
+        final int x = PieceState.getX(myCurrentPiece);
+        final int y = PieceState.getY(myCurrentPiece);
+        if (x + piece.getMinX(rotation) < 0 || x + piece.getMaxX(rotation) >= myFrozenBlocks.getWidth()
+            || y + piece.getMinY(rotation) < 0
+            || y + piece.getMaxY(rotation) >= myFrozenBlocks.getHeight() + SPARE_ROWS) {
+            endGame();
         }
-        return b;
     }
 
     /**
-     * Helper function to determine of a movable block has collided with set
-     * blocks.
-     * 
-     * @param theTest movable TetrisPiece to test for collision.
-     * @return Returns true if any of the blocks has collided with a set board
-     *         block.
-     */
-    private boolean hasCollided(final MovableTetrisPiece theTest) {
-        boolean hasPieceCollided = false;
-        for (final Point p : theTest.getBoardPoints()) {
-            if (getPoint(p) != null) {
-        	hasPieceCollided = true;
-            }
+     * Ends the game and notifies observers, unless the game is already over.
+     */
+    private void endGame() {
+        if (!myGameOver) {
+            myGameOver = true;
+            fireEvent(BoardEvent.gameOver());
         }
-        return hasPieceCollided;
     }
 
     /**
-     * Gets the next MovableTetrisPiece.
+     * Gets the next movable piece. Package-private so the model benchmarks
+     * can measure it on its own.
      * 
      * @param theRestart Restart the non random cycle.
-     * @return A new MovableTetrisPiece.
+     * @return The packed state of the new current piece.
      */
-    private MovableTetrisPiece nextMovablePiece(final boolean theRestart) {
+    int nextMovablePiece(final boolean theRestart) {
         if (myNextPiece == null || theRestart) {
             prepareNextMovablePiece();
         }
         
         final TetrisPiece next = myNextPiece;
         
-        int startY = myCurrentBoardHeight - 1;
-        if (myNextPiece == TetrisPiece.I) {
-            startY--; 
-        }
-        
         prepareNextMovablePiece();
         
-        final MovableTetrisPiece nextMovablePiece =
-            new MovableTetrisPiece(next,
-                                   new Point((myCurrentBoardWidth - myNextPiece.getWidth()) / 2, startY));
+        final int nextMovablePiece = getSpawnState(next, myNextPiece, myCurrentBoardWidth,
+                                                   myCurrentBoardHeight);
         
         if (!myGameOver) {
-            setChanged();
-            notifyObservers(new MovableTetrisPiece(myNextPiece,
-                            new Point((myCurrentBoardWidth - myNextPiece.getWidth()) / 2, startY)));
+            fireEvent(BoardEvent.nextPiece(myNextPiece));
         }
         
         return nextMovablePiece;
     }
     
+    /**
+     * Notifies all observers of a change to the board. A board without observers,
+     * such as one driven by a GameSimulator, skips the notification entirely.
+     * 
+     * @param theEvent The BoardEvent describing the change.
+     */
+    private void fireEvent(final BoardEvent theEvent) {
+        if (countObservers() > 0) {
+            recordChange(theEvent);
+            setChanged();
+            notifyObservers(theEvent);
+        } else {
+            /* Changes are not tracked without observers; a later observer starts afresh. */
+            myAllChanged = true;
+        }
+    }
+    
+    /**
+     * Records the cells a BoardEvent changed. A moved piece changes the cells it left
+     * and the cells it entered; a new game or a row clear changes every cell. Freezing
+     * a piece leaves the same blocks in the same cells.
+     * 
+     * @param theEvent The BoardEvent describing the change.
+     */
+    private void recordChange(final BoardEvent theEvent) {
+        if (theEvent.getType() == BoardEvent.Type.PIECE_MOVED) {
+            recordPiece(theEvent.getFromState());
+            recordPiece(theEvent.getToState());
+        } else if (theEvent.getType() == BoardEvent.Type.NEW_GAME
+                   || theEvent.getType() == BoardEvent.Type.ROWS_CLEARED) {
+            myAllChanged = true;
+        }
+    }
+    
+    /**
+     * Records the visible cells covered by a piece as changed.
+     * 
+     * @param theState The packed state of the piece, or PieceState.NONE.
+     */
+    private void recordPiece(final int theState) {
+        if (myChangedRows.length < myCurrentBoardHeight) {
+            myChangedRows = new long[myCurrentBoardHeight];
+            myAllChanged = true;
+        }
+        if (theState != PieceState.NONE) {
+            final TetrisPiece piece = PieceState.getPiece(theState);
+            final Rotation rotation = PieceState.getRotation(theState);
+            final int x = PieceState.getX(theState);
+            final int y = PieceState.getY(theState);
+            for (int local = piece.getMinY(rotation); local <= piece.getMaxY(rotation); local++) {
+                final int row = y + local;
+                if (row >= 0 && row < myCurrentBoardHeight) {
+                    myChangedRows[row] |= BitBoard.shift(piece.getRowMask(rotation, local), x);
+                }
+            }
+        }
+    }
+    
+    @Override
+    public boolean isFullyChanged() {
+        return myAllChanged || myChangedRows.length < myCurrentBoardHeight;
+    }
+    
+    @Override
+    public long getChangedCells(final int theRow) {
+        long result = 0;
+        if (theRow >= 0 && theRow < myChangedRows.length) {
+            result = myChangedRows[theRow];
+        }
+        return result;
+    }
+    
+    @Override
+    public void clearChanges() {
+        if (myChangedRows.length < myCurrentBoardHeight) {
+            myChangedRows = new long[myCurrentBoardHeight];
+        } else {
+            Arrays.fill(myChangedRows, 0);
+        }
+        myAllChanged = false;
+    }
+    
     /**
      * Prepares the Next movable piece.
      */
     private void prepareNextMovablePiece() {
         if (myNonRandomPieces == null || myNonRandomPieces.isEmpty()) {
-            myNextPiece = TetrisPiece.getRandomPiece();
+            myNextPiece = myPieceSource.next();
         } else {
             mySequenceIndex %= myNonRandomPieces.size();
             myNextPiece = myNonRandomPieces.get(mySequenceIndex++);
@@ -0,0 +1,36 @@
+package model;
+
+/**
+ * The BoardChanges interface. A BoardChanges reports which cells of a board changed
+ * since a renderer last drew them, so the renderer can redraw just those cells.
+ * Clearing the changes is bookkeeping for that one renderer and does not change the
+ * game, but a board should not be drawn incrementally by more than one renderer.
+ * Coordinates start at (0, 0) in the bottom-left cell.
+ *
+ * @author Logan Stafford
+ * @version 1.0
+ */
+public interface BoardChanges {
+
+    /**
+     * Returns whether every cell must be treated as changed since the last call to
+     * clearChanges, for example after a new game or a row clear.
+     *
+     * @return True if the whole board changed, otherwise false.
+     */
+    boolean isFullyChanged();
+
+    /**
+     * Returns the cells of a row that changed since the last call to clearChanges.
+     * Only meaningful when isFullyChanged is false.
+     *
+     * @param theRow The row, counted from the bottom.
+     * @return A bit mask with bit x set when the cell in column x changed.
+     */
+    long getChangedCells(int theRow);
+
+    /**
+     * Forgets the changed cells once the renderer has drawn them.
+     */
+    void clearChanges();
+}
@@ -0,0 +1,223 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * The BoardEvent class. A BoardEvent is passed to the observers of a Board
+ * and describes a single change to it, so observers can react to what changed
+ * instead of rebuilding the whole board. The current contents of the board can
+ * be read at any time through the Board itself, which is a BoardView.
+ * A BoardEvent is immutable.
+ *
+ * @author Logan Stafford
+ * @version 1.0
+ */
+public final class BoardEvent {
+
+    /**
+     * The Type class, which enumerates the kinds of changes a Board reports.
+     */
+    public enum Type {
+
+        /** A new game was started and the board was cleared. */
+        NEW_GAME,
+
+        /** The current piece moved, rotated, or entered the board. */
+        PIECE_MOVED,
+
+        /** The current piece was frozen into the board. */
+        PIECE_FROZEN,
+
+        /** One or more complete rows were removed from the board. */
+        ROWS_CLEARED,
+
+        /** A new piece was chosen as the next piece. */
+        NEXT_PIECE,
+
+        /** The game is over. */
+        GAME_OVER;
+    }
+
+    /**
+     * A shared, empty array of rows for events that do not clear rows.
+     */
+    private static final int[] NO_ROWS = new int[0];
+
+    /**
+     * The kind of change this event describes.
+     */
+    private final Type myType;
+
+    /**
+     * The packed PieceState before the change, or PieceState.NONE.
+     */
+    private final int myFromState;
+
+    /**
+     * The packed PieceState after the change, or PieceState.NONE.
+     */
+    private final int myToState;
+
+    /**
+     * The indices of the cleared rows, from the bottom of the board upwards.
+     */
+    private final int[] myRows;
+
+    /**
+     * The next piece, for NEXT_PIECE events.
+     */
+    private final TetrisPiece myNextPiece;
+
+    /**
+     * The private BoardEvent constructor; use the static factory methods.
+     *
+     * @param theType The kind of change.
+     * @param theFromState The packed piece state before the change.
+     * @param theToState The packed piece state after the change.
+     * @param theRows The indices of the cleared rows.
+     * @param theNextPiece The next piece.
+     */
+    private BoardEvent(final Type theType, final int theFromState, final int theToState,
+                       final int[] theRows, final TetrisPiece theNextPiece) {
+        myType = theType;
+        myFromState = theFromState;
+        myToState = theToState;
+        myRows = theRows;
+        myNextPiece = theNextPiece;
+    }
+
+    /**
+     * Creates a NEW_GAME event.
+     *
+     * @return A NEW_GAME event.
+     */
+    public static BoardEvent newGame() {
+        return new BoardEvent(Type.NEW_GAME, PieceState.NONE, PieceState.NONE, NO_ROWS, null);
+    }
+
+    /**
+     * Creates a PIECE_MOVED event.
+     *
+     * @param theFromState The packed state the piece moved from, or PieceState.NONE
+     *                     if the piece just entered the board.
+     * @param theToState The packed state the piece moved to.
+     * @return A PIECE_MOVED event.
+     */
+    public static BoardEvent pieceMoved(final int theFromState, final int theToState) {
+        return new BoardEvent(Type.PIECE_MOVED, theFromState, theToState, NO_ROWS, null);
+    }
+
+    /**
+     * Creates a PIECE_FROZEN event.
+     *
+     * @param theState The packed state the piece was frozen at.
+     * @return A PIECE_FROZEN event.
+     */
+    public static BoardEvent pieceFrozen(final int theState) {
+        return new BoardEvent(Type.PIECE_FROZEN, theState, theState, NO_ROWS, null);
+    }
+
+    /**
+     * Creates a ROWS_CLEARED event.
+     *
+     * @param theRows The indices of the cleared rows, from the bottom of the board upwards.
+     * @return A ROWS_CLEARED event.
+     */
+    public static BoardEvent rowsCleared(final int... theRows) {
+        return new BoardEvent(Type.ROWS_CLEARED, PieceState.NONE, PieceState.NONE,
+                              theRows.clone(), null);
+    }
+
+    /**
+     * Creates a NEXT_PIECE event.
+     *
+     * @param theNextPiece The new next piece.
+     * @return A NEXT_PIECE event.
+     */
+    public static BoardEvent nextPiece(final TetrisPiece theNextPiece) {
+        return new BoardEvent(Type.NEXT_PIECE, PieceState.NONE, PieceState.NONE,
+                              NO_ROWS, theNextPiece);
+    }
+
+    /**
+     * Creates a GAME_OVER event.
+     *
+     * @return A GAME_OVER event.
+     */
+    public static BoardEvent gameOver() {
+        return new BoardEvent(Type.GAME_OVER, PieceState.NONE, PieceState.NONE, NO_ROWS, null);
+    }
+
+    /**
+     * Returns the kind of change this event describes.
+     *
+     * @return The Type of the event.
+     */
+    public Type getType() {
+        return myType;
+    }
+
+    /**
+     * Returns the packed piece state before the change.
+     *
+     * @return The packed state before the change, or PieceState.NONE.
+     */
+    public int getFromState() {
+        return myFromState;
+    }
+
+    /**
+     * Returns the packed piece state after the change.
+     *
+     * @return The packed state after the change, or PieceState.NONE.
+     */
+    public int getToState() {
+        return myToState;
+    }
+
+    /**
+     * Returns the indices of the cleared rows of a ROWS_CLEARED event.
+     *
+     * @return A copy of the cleared row indices; empty for other events.
+     */
+    public int[] getClearedRows() {
+        return myRows.clone();
+    }
+
+    /**
+     * Returns the number of rows cleared by a ROWS_CLEARED event.
+     *
+     * @return The number of cleared rows; 0 for other events.
+     */
+    public int getClearedRowCount() {
+        return myRows.length;
+    }
+
+    /**
+     * Returns the next piece of a NEXT_PIECE event.
+     *
+     * @return The next piece, or null for other events.
+     */
+    public TetrisPiece getNextPiece() {
+        return myNextPiece;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder(myType.toString());
+        switch (myType) {
+            case PIECE_MOVED:
+            case PIECE_FROZEN:
+                sb.append(' ').append(myFromState).append(" -> ").append(myToState);
+                break;
+            case ROWS_CLEARED:
+                sb.append(' ').append(Arrays.toString(myRows));
+                break;
+            case NEXT_PIECE:
+                sb.append(' ').append(myNextPiece);
+                break;
+            default:
+        }
+        return sb.toString();
+    }
+}
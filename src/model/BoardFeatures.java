@@ -0,0 +1,151 @@
+package model;
+
+/**
+ * The BoardFeatures class. BoardFeatures holds the features of a board that a
+ * Heuristic scores a placement by: the aggregate and maximum height of the columns,
+ * the number of holes, the bumpiness of the surface and the number of lines the
+ * placement cleared. The features are computed from the occupancy index of the
+ * board in one pass over its columns and rows, and a BoardFeatures object is
+ * reused for every placement a search evaluates, so scoring does not allocate.
+ *
+ * @author Logan Stafford
+ * @version 1.0
+ */
+public final class BoardFeatures {
+
+    /**
+     * The occupancy index the features were computed from.
+     */
+    private BitBoard myBoard;
+
+    /**
+     * The sum of the heights of every column.
+     */
+    private int myAggregateHeight;
+
+    /**
+     * The height of the highest column.
+     */
+    private int myMaxHeight;
+
+    /**
+     * The number of empty cells below the top of their column.
+     */
+    private int myHoles;
+
+    /**
+     * The sum of the height differences between neighboring columns.
+     */
+    private int myBumpiness;
+
+    /**
+     * The number of lines cleared by the placement.
+     */
+    private int myLinesCleared;
+
+    /**
+     * Computes the features of a board.
+     *
+     * @param theBoard The occupancy index of the board after the placement.
+     * @param theLinesCleared The number of lines the placement cleared.
+     */
+    void compute(final BitBoard theBoard, final int theLinesCleared) {
+        myBoard = theBoard;
+        myLinesCleared = theLinesCleared;
+
+        int aggregate = 0;
+        int max = 0;
+        int bumpiness = 0;
+        int previous = theBoard.getColumnHeight(0);
+        for (int x = 0; x < theBoard.getWidth(); x++) {
+            final int height = theBoard.getColumnHeight(x);
+            aggregate += height;
+            max = Math.max(max, height);
+            bumpiness += Math.abs(height - previous);
+            previous = height;
+        }
+
+        /* Every block lies below the top of its column, so the rest are holes. */
+        int blocks = 0;
+        for (int y = 0; y < max; y++) {
+            blocks += Long.bitCount(theBoard.getRow(y));
+        }
+        myAggregateHeight = aggregate;
+        myMaxHeight = max;
+        myBumpiness = bumpiness;
+        myHoles = aggregate - blocks;
+    }
+
+    /**
+     * Returns the width of the board.
+     *
+     * @return The number of columns.
+     */
+    public int getWidth() {
+        return myBoard.getWidth();
+    }
+
+    /**
+     * Returns the height of the board.
+     *
+     * @return The number of rows.
+     */
+    public int getHeight() {
+        return myBoard.getHeight();
+    }
+
+    /**
+     * Returns the height of a column.
+     *
+     * @param theX The column.
+     * @return One more than the highest occupied row of the column, or 0 if it is empty.
+     */
+    public int getColumnHeight(final int theX) {
+        return myBoard.getColumnHeight(theX);
+    }
+
+    /**
+     * Returns the sum of the heights of every column.
+     *
+     * @return The aggregate height.
+     */
+    public int getAggregateHeight() {
+        return myAggregateHeight;
+    }
+
+    /**
+     * Returns the height of the highest column.
+     *
+     * @return The maximum height.
+     */
+    public int getMaxHeight() {
+        return myMaxHeight;
+    }
+
+    /**
+     * Returns the number of holes: empty cells with a block somewhere above them.
+     *
+     * @return The number of holes.
+     */
+    public int getHoles() {
+        return myHoles;
+    }
+
+    /**
+     * Returns the bumpiness of the surface.
+     *
+     * @return The sum of the absolute height differences between neighboring columns.
+     */
+    public int getBumpiness() {
+        return myBumpiness;
+    }
+
+    /**
+     * Returns the number of lines the placement cleared.
+     *
+     * @return The number of lines cleared.
+     */
+    public int getLinesCleared() {
+        return myLinesCleared;
+    }
+}
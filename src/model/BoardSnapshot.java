@@ -0,0 +1,321 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * The BoardSnapshot class. A BoardSnapshot is a compact, immutable copy of the
+ * full state of a Board - its frozen blocks, current and next pieces, counters
+ * and the position of its PieceSource - taken with {@link Board#snapshot()} and
+ * put back with {@link Board#restore(BoardSnapshot)}. Frozen blocks are packed
+ * two cells to a byte, so a 10x20 board takes about a hundred bytes.
+ *
+ * A snapshot does not hold a non-random piece sequence set with
+ * Board.setPieceSequence, only the position within it.
+ *
+ * @author Logan Stafford
+ * @version 1.0
+ */
+public final class BoardSnapshot {
+
+    /**
+     * The number of bits used by each packed cell.
+     */
+    private static final int CELL_BITS = 4;
+
+    /**
+     * The mask of a packed cell.
+     */
+    private static final int CELL_MASK = (1 << CELL_BITS) - 1;
+
+    /**
+     * The Block values, cached to avoid copying the array on every lookup.
+     */
+    private static final Block[] BLOCKS = Block.values();
+
+    /**
+     * The TetrisPiece values, cached to avoid copying the array on every lookup.
+     */
+    private static final TetrisPiece[] PIECES = TetrisPiece.values();
+
+    /**
+     * The width of the board.
+     */
+    private final int myWidth;
+
+    /**
+     * The height of the board.
+     */
+    private final int myHeight;
+
+    /**
+     * The Block ordinals of the frozen cells, two to a byte, row by row from the bottom.
+     */
+    private final byte[] myCells;
+
+    /**
+     * The packed PieceState of the current piece, or PieceState.NONE.
+     */
+    private final int myCurrentPiece;
+
+    /**
+     * The next piece, or null.
+     */
+    private final TetrisPiece myNextPiece;
+
+    /**
+     * Whether the game is over.
+     */
+    private final boolean myGameOver;
+
+    /**
+     * The number of pieces frozen during the game.
+     */
+    private final int myPiecesFrozen;
+
+    /**
+     * The number of lines cleared during the game.
+     */
+    private final int myLinesCleared;
+
+    /**
+     * The position within the non-random piece sequence.
+     */
+    private final int mySequenceIndex;
+
+    /**
+     * The seed of the board's PieceSource.
+     */
+    private final long mySeed;
+
+    /**
+     * The number of values drawn from the board's PieceSource.
+     */
+    private final long myDraws;
+
+    /**
+     * The BoardSnapshot constructor.
+     *
+     * @param theWidth The width of the board.
+     * @param theHeight The height of the board.
+     * @param theCells The packed frozen cells, which the snapshot takes ownership of.
+     * @param theCurrentPiece The packed state of the current piece.
+     * @param theNextPiece The next piece.
+     * @param theGameOver Whether the game is over.
+     * @param thePiecesFrozen The number of pieces frozen.
+     * @param theLinesCleared The number of lines cleared.
+     * @param theSequenceIndex The position within the non-random piece sequence.
+     * @param theSeed The seed of the PieceSource.
+     * @param theDraws The number of values drawn from the PieceSource.
+     */
+    BoardSnapshot(final int theWidth, final int theHeight, final byte[] theCells,
+                  final int theCurrentPiece, final TetrisPiece theNextPiece,
+                  final boolean theGameOver, final int thePiecesFrozen,
+                  final int theLinesCleared, final int theSequenceIndex,
+                  final long theSeed, final long theDraws) {
+        myWidth = theWidth;
+        myHeight = theHeight;
+        myCells = theCells;
+        myCurrentPiece = theCurrentPiece;
+        myNextPiece = theNextPiece;
+        myGameOver = theGameOver;
+        myPiecesFrozen = thePiecesFrozen;
+        myLinesCleared = theLinesCleared;
+        mySequenceIndex = theSequenceIndex;
+        mySeed = theSeed;
+        myDraws = theDraws;
+    }
+
+    /**
+     * Creates an empty array of packed cells for a board.
+     *
+     * @param theWidth The width of the board.
+     * @param theHeight The height of the board.
+     * @return An array with room for every cell of the board.
+     */
+    static byte[] createCells(final int theWidth, final int theHeight) {
+        return new byte[(theWidth * theHeight + 1) / 2];
+    }
+
+    /**
+     * Packs a Block into an array of packed cells.
+     *
+     * @param theCells The packed cells.
+     * @param theIndex The index of the cell, row * width + column.
+     * @param theBlock The Block to pack, or null for an empty cell.
+     */
+    static void putCell(final byte[] theCells, final int theIndex, final Block theBlock) {
+        if (theBlock != null) {
+            final int shift = (theIndex & 1) * CELL_BITS;
+            theCells[theIndex >> 1] |= (byte) (theBlock.ordinal() << shift);
+        }
+    }
+
+    /**
+     * Returns the width of the board.
+     *
+     * @return The width of the board.
+     */
+    public int getWidth() {
+        return myWidth;
+    }
+
+    /**
+     * Returns the height of the board.
+     *
+     * @return The height of the board.
+     */
+    public int getHeight() {
+        return myHeight;
+    }
+
+    /**
+     * Returns the frozen block in a cell.
+     *
+     * @param theX The column of the cell.
+     * @param theY The row of the cell.
+     * @return The frozen Block in the cell, or null if the cell is empty.
+     */
+    public Block getFrozenBlock(final int theX, final int theY) {
+        final int index = theY * myWidth + theX;
+        final int cell = myCells[index >> 1] >> ((index & 1) * CELL_BITS) & CELL_MASK;
+        Block result = null;
+        if (cell != 0) {
+            result = BLOCKS[cell];
+        }
+        return result;
+    }
+
+    /**
+     * Returns the packed PieceState of the current piece.
+     *
+     * @return The packed state of the current piece, or PieceState.NONE.
+     */
+    public int getCurrentPieceState() {
+        return myCurrentPiece;
+    }
+
+    /**
+     * Returns the next piece.
+     *
+     * @return The next TetrisPiece, or null if none had been chosen.
+     */
+    public TetrisPiece getNextPiece() {
+        return myNextPiece;
+    }
+
+    /**
+     * Returns whether the game was over.
+     *
+     * @return True if the game was over, otherwise false.
+     */
+    public boolean isGameOver() {
+        return myGameOver;
+    }
+
+    /**
+     * Returns the number of pieces frozen during the game.
+     *
+     * @return The number of pieces frozen.
+     */
+    public int getPiecesFrozen() {
+        return myPiecesFrozen;
+    }
+
+    /**
+     * Returns the number of lines cleared during the game.
+     *
+     * @return The number of lines cleared.
+     */
+    public int getLinesCleared() {
+        return myLinesCleared;
+    }
+
+    /**
+     * Returns the position within the non-random piece sequence.
+     *
+     * @return The index of the next piece of the sequence.
+     */
+    int getSequenceIndex() {
+        return mySequenceIndex;
+    }
+
+    /**
+     * Returns the seed of the board's PieceSource.
+     *
+     * @return The seed of the PieceSource.
+     */
+    long getSeed() {
+        return mySeed;
+    }
+
+    /**
+     * Returns the number of values drawn from the board's PieceSource.
+     *
+     * @return The number of draws.
+     */
+    long getDraws() {
+        return myDraws;
+    }
+
+    /**
+     * Encodes this snapshot as bytes, using the varints of the Replay format.
+     *
+     * @return The encoded snapshot.
+     */
+    public byte[] toByteArray() {
+        final byte[] result = new byte[8 * Replay.MAX_VARINT_BYTES + 2 + Long.BYTES
+                                       + myCells.length];
+        int position = Replay.putVarint(result, 0, myWidth);
+        position = Replay.putVarint(result, position, myHeight);
+        position = Replay.putVarint(result, position, myCurrentPiece + 1L);
+        int next = 0;
+        if (myNextPiece != null) {
+            next = myNextPiece.ordinal() + 1;
+        }
+        result[position++] = (byte) next;
+        result[position++] = (byte) (myGameOver ? 1 : 0);
+        position = Replay.putVarint(result, position, myPiecesFrozen);
+        position = Replay.putVarint(result, position, myLinesCleared);
+        position = Replay.putVarint(result, position, mySequenceIndex);
+        position = Replay.putLong(result, position, mySeed);
+        position = Replay.putVarint(result, position, myDraws);
+        System.arraycopy(myCells, 0, result, position, myCells.length);
+        return Arrays.copyOf(result, position + myCells.length);
+    }
+
+    /**
+     * Decodes a snapshot encoded by toByteArray.
+     *
+     * @param theBytes The encoded snapshot.
+     * @return The decoded snapshot.
+     * @throws IllegalArgumentException if the bytes are not a valid snapshot.
+     */
+    public static BoardSnapshot fromByteArray(final byte[] theBytes) {
+        final int[] position = {0};
+        final int width = (int) Replay.getVarint(theBytes, position);
+        final int height = (int) Replay.getVarint(theBytes, position);
+        final int current = (int) (Replay.getVarint(theBytes, position) - 1);
+        if (position[0] + 2 > theBytes.length) {
+            throw new IllegalArgumentException("Truncated snapshot");
+        }
+        final int next = theBytes[position[0]++];
+        final boolean gameOver = theBytes[position[0]++] != 0;
+        final int pieces = (int) Replay.getVarint(theBytes, position);
+        final int lines = (int) Replay.getVarint(theBytes, position);
+        final int sequenceIndex = (int) Replay.getVarint(theBytes, position);
+        final long seed = Replay.getLong(theBytes, position);
+        final long draws = Replay.getVarint(theBytes, position);
+        if (next < 0 || next > PIECES.length
+            || theBytes.length - position[0] != createCells(width, height).length) {
+            throw new IllegalArgumentException("Malformed snapshot");
+        }
+        TetrisPiece nextPiece = null;
+        if (next > 0) {
+            nextPiece = PIECES[next - 1];
+        }
+        return new BoardSnapshot(width, height,
+                                 Arrays.copyOfRange(theBytes, position[0], theBytes.length),
+                                 current, nextPiece, gameOver, pieces, lines, sequenceIndex,
+                                 seed, draws);
+    }
+}
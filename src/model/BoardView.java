@@ -0,0 +1,66 @@
+package model;
+
+/**
+ * The BoardView interface. A BoardView is a cheap, read-only view of the
+ * contents of a Board, so observers can draw or inspect the board cell by cell
+ * without copying it. Coordinates start at (0, 0) in the bottom-left cell.
+ *
+ * @author Logan Stafford
+ * @version 1.0
+ */
+public interface BoardView {
+
+    /**
+     * Returns the width of the board.
+     *
+     * @return The width of the board.
+     */
+    int getWidth();
+
+    /**
+     * Returns the height of the board.
+     *
+     * @return The height of the board.
+     */
+    int getHeight();
+
+    /**
+     * Returns the frozen block in a cell, ignoring the current piece.
+     *
+     * @param theX The column of the cell.
+     * @param theY The row of the cell.
+     * @return The frozen Block in the cell, or null if the cell is empty or off the board.
+     */
+    Block getFrozenBlock(int theX, int theY);
+
+    /**
+     * Returns the block shown in a cell: the current piece if it covers the cell,
+     * otherwise the frozen block.
+     *
+     * @param theX The column of the cell.
+     * @param theY The row of the cell.
+     * @return The Block shown in the cell, or null if the cell is empty.
+     */
+    Block getBlock(int theX, int theY);
+
+    /**
+     * Returns the packed PieceState of the current piece.
+     *
+     * @return The packed state of the current piece, or PieceState.NONE if there is none.
+     */
+    int getCurrentPieceState();
+
+    /**
+     * Returns the piece that will enter the board after the current piece.
+     *
+     * @return The next TetrisPiece, or null if none has been chosen yet.
+     */
+    TetrisPiece getNextPiece();
+
+    /**
+     * Returns whether the game is over.
+     *
+     * @return True if the game is over, otherwise false.
+     */
+    boolean isGameOver();
+}
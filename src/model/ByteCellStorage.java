@@ -0,0 +1,104 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * The ByteCellStorage class. This CellStorage keeps every cell of a board in a
+ * single flat byte array, one byte per cell in bottom-up row order, where each
+ * byte holds the ordinal of the stored Block (Block.EMPTY, ordinal 0, for an empty cell).
+ * Removing rows takes one System.arraycopy per run of rows kept between them.
+ * 
+ * @author Logan Stafford
+ * @version 1.0
+ */
+final class ByteCellStorage implements CellStorage {
+
+    /**
+     * The Block values, cached to avoid copying the array on every lookup.
+     */
+    private static final Block[] BLOCKS = Block.values();
+
+    /**
+     * The cells of the storage, row by row from the bottom of the board.
+     */
+    private byte[] myCells;
+
+    /**
+     * The width of the storage.
+     */
+    private int myWidth;
+
+    /**
+     * The height of the storage.
+     */
+    private int myHeight;
+
+    /**
+     * The ByteCellStorage constructor.
+     * 
+     * @param theWidth The width of the storage.
+     * @param theHeight The height of the storage.
+     */
+    ByteCellStorage(final int theWidth, final int theHeight) {
+        myCells = new byte[0];
+        reset(theWidth, theHeight);
+    }
+
+    @Override
+    public void reset(final int theWidth, final int theHeight) {
+        myWidth = theWidth;
+        myHeight = theHeight;
+        if (myCells.length == theWidth * theHeight) {
+            Arrays.fill(myCells, (byte) 0);
+        } else {
+            myCells = new byte[theWidth * theHeight];
+        }
+    }
+
+    @Override
+    public int getWidth() {
+        return myWidth;
+    }
+
+    @Override
+    public int getHeight() {
+        return myHeight;
+    }
+
+    @Override
+    public Block get(final int theX, final int theY) {
+        final byte cell = myCells[theY * myWidth + theX];
+        Block result = null;
+        if (cell != 0) {
+            result = BLOCKS[cell];
+        }
+        return result;
+    }
+
+    @Override
+    public void set(final int theX, final int theY, final Block theBlock) {
+        byte cell = 0;
+        if (theBlock != null) {
+            cell = (byte) theBlock.ordinal();
+        }
+        myCells[theY * myWidth + theX] = cell;
+    }
+
+    @Override
+    public void removeRows(final int[] theRows, final int theCount) {
+        int write = theRows[0];
+        for (int i = 0; i < theCount; i++) {
+            final int start = theRows[i] + 1;
+            int end = myHeight;
+            if (i + 1 < theCount) {
+                end = theRows[i + 1];
+            }
+            if (end > start) {
+                System.arraycopy(myCells, start * myWidth, myCells, write * myWidth,
+                                 (end - start) * myWidth);
+                write += end - start;
+            }
+        }
+        Arrays.fill(myCells, write * myWidth, myCells.length, (byte) 0);
+    }
+}
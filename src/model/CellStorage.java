@@ -0,0 +1,61 @@
+package model;
+
+/**
+ * The CellStorage interface. A CellStorage holds the Block type of every frozen
+ * cell of a Board, addressed by column and row with row 0 at the bottom of the board.
+ * Empty cells are reported as null.
+ * 
+ * @author Logan Stafford
+ * @version 1.0
+ */
+interface CellStorage {
+
+    /**
+     * Clears every cell of the storage and resizes it to the given dimensions.
+     * 
+     * @param theWidth The new width of the storage.
+     * @param theHeight The new height of the storage.
+     */
+    void reset(int theWidth, int theHeight);
+
+    /**
+     * Returns the width of the storage.
+     * 
+     * @return The width of the storage.
+     */
+    int getWidth();
+
+    /**
+     * Returns the height of the storage.
+     * 
+     * @return The height of the storage.
+     */
+    int getHeight();
+
+    /**
+     * Returns the Block stored in a cell.
+     * 
+     * @param theX The column of the cell.
+     * @param theY The row of the cell.
+     * @return The Block stored in the cell, or null if the cell is empty.
+     */
+    Block get(int theX, int theY);
+
+    /**
+     * Stores a Block in a cell.
+     * 
+     * @param theX The column of the cell.
+     * @param theY The row of the cell.
+     * @param theBlock The Block to store, or null to empty the cell.
+     */
+    void set(int theX, int theY, Block theBlock);
+
+    /**
+     * Removes a set of rows in a single pass, shifting the remaining rows down
+     * and leaving empty rows at the top.
+     * 
+     * @param theRows The rows to remove, in ascending order.
+     * @param theCount The number of rows in theRows to remove.
+     */
+    void removeRows(int[] theRows, int theCount);
+}
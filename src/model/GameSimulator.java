@@ -0,0 +1,356 @@
+package model;
+
+/**
+ * The GameSimulator class. A GameSimulator plays Tetris games on a headless Board,
+ * with no Swing timer, key listener or observers attached, as fast as the CPU
+ * allows. Every game is driven by a Script of Inputs, optionally interleaved with
+ * a gravity tick after every few inputs, and the simulator reports how many pieces
+ * and lines it got through per second.
+ *
+ * @author Logan Stafford
+ * @version 1.0
+ */
+public final class GameSimulator {
+
+    /**
+     * The Script interface. A Script chooses the Input to apply to the Board next.
+     */
+    public interface Script {
+
+        /**
+         * Called before every game, so a Script can restart itself.
+         */
+        default void newGame() {
+            // Scripts without state have nothing to restart.
+        }
+
+        /**
+         * Chooses the next Input of the game.
+         *
+         * @param theBoard The Board being played, which the Script must not modify.
+         * @return The Input to apply next.
+         */
+        Input nextInput(Board theBoard);
+    }
+
+    /**
+     * The Result class, which holds the totals and throughput of a simulation run.
+     */
+    public static final class Result {
+
+        /**
+         * The number of nanoseconds in a second.
+         */
+        private static final double NANOS_PER_SECOND = 1e9;
+
+        /**
+         * The number of games played.
+         */
+        private final int myGames;
+
+        /**
+         * The number of pieces frozen over all games.
+         */
+        private final long myPieces;
+
+        /**
+         * The number of lines cleared over all games.
+         */
+        private final long myLines;
+
+        /**
+         * The number of Inputs applied over all games, including gravity ticks.
+         */
+        private final long myInputs;
+
+        /**
+         * The wall-clock duration of the run in nanoseconds.
+         */
+        private final long myNanos;
+
+        /**
+         * The Result constructor.
+         *
+         * @param theGames The number of games played.
+         * @param thePieces The number of pieces frozen.
+         * @param theLines The number of lines cleared.
+         * @param theInputs The number of Inputs applied.
+         * @param theNanos The duration of the run in nanoseconds.
+         */
+        public Result(final int theGames, final long thePieces, final long theLines,
+                      final long theInputs, final long theNanos) {
+            myGames = theGames;
+            myPieces = thePieces;
+            myLines = theLines;
+            myInputs = theInputs;
+            myNanos = theNanos;
+        }
+
+        /**
+         * Returns the number of games played.
+         *
+         * @return The number of games played.
+         */
+        public int getGames() {
+            return myGames;
+        }
+
+        /**
+         * Returns the number of pieces frozen over all games.
+         *
+         * @return The number of pieces frozen.
+         */
+        public long getPieces() {
+            return myPieces;
+        }
+
+        /**
+         * Returns the number of lines cleared over all games.
+         *
+         * @return The number of lines cleared.
+         */
+        public long getLines() {
+            return myLines;
+        }
+
+        /**
+         * Returns the number of Inputs applied over all games, including gravity ticks.
+         *
+         * @return The number of Inputs applied.
+         */
+        public long getInputs() {
+            return myInputs;
+        }
+
+        /**
+         * Returns the wall-clock duration of the run.
+         *
+         * @return The duration of the run in nanoseconds.
+         */
+        public long getNanos() {
+            return myNanos;
+        }
+
+        /**
+         * Returns the number of pieces frozen per second of the run.
+         *
+         * @return The piece throughput.
+         */
+        public double getPiecesPerSecond() {
+            return perSecond(myPieces);
+        }
+
+        /**
+         * Returns the number of lines cleared per second of the run.
+         *
+         * @return The line throughput.
+         */
+        public double getLinesPerSecond() {
+            return perSecond(myLines);
+        }
+
+        /**
+         * Converts a total into a rate per second of the run.
+         *
+         * @param theTotal The total to convert.
+         * @return The total per second, or 0 for an empty run.
+         */
+        private double perSecond(final long theTotal) {
+            double result = 0;
+            if (myNanos > 0) {
+                result = theTotal * NANOS_PER_SECOND / myNanos;
+            }
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d games, %d pieces, %d lines, %d inputs in %.3f s "
+                                 + "(%.0f pieces/s, %.0f lines/s)",
+                                 myGames, myPieces, myLines, myInputs,
+                                 myNanos / NANOS_PER_SECOND,
+                                 getPiecesPerSecond(), getLinesPerSecond());
+        }
+    }
+
+    /**
+     * The default number of Inputs after which a game is abandoned.
+     */
+    private static final long DEFAULT_MAX_INPUTS = 1_000_000L;
+
+    /**
+     * The default number of games played by main.
+     */
+    private static final int DEFAULT_GAMES = 1000;
+
+    /**
+     * The default script used by main: shuffle, rotate and hard drop.
+     */
+    private static final String DEFAULT_SCRIPT = "LLUP RRUUP LUP RRRP LLLUP";
+
+    /**
+     * The width of the simulated board.
+     */
+    private final int myWidth;
+
+    /**
+     * The height of the simulated board.
+     */
+    private final int myHeight;
+
+    /**
+     * The number of script Inputs after which a gravity tick is applied, or 0 for none.
+     */
+    private final int myGravityInterval;
+
+    /**
+     * The number of Inputs after which a game that has not ended is abandoned.
+     */
+    private final long myMaxInputs;
+
+    /**
+     * The GameSimulator constructor, used for default-sized boards without gravity.
+     */
+    public GameSimulator() {
+        this(Board.DEFAULT_BOARD_WIDTH, Board.DEFAULT_BOARD_HEIGHT, 0, DEFAULT_MAX_INPUTS);
+    }
+
+    /**
+     * The GameSimulator constructor.
+     *
+     * @param theWidth The width of the simulated board.
+     * @param theHeight The height of the simulated board.
+     * @param theGravityInterval The number of script Inputs after which a gravity tick
+     *                           is applied, or 0 to leave gravity to the script.
+     * @param theMaxInputs The number of Inputs after which a game that has not ended
+     *                     is abandoned.
+     */
+    public GameSimulator(final int theWidth, final int theHeight,
+                         final int theGravityInterval, final long theMaxInputs) {
+        if (theGravityInterval < 0 || theMaxInputs < 1) {
+            throw new IllegalArgumentException("Invalid gravity interval or input limit");
+        }
+        myWidth = theWidth;
+        myHeight = theHeight;
+        myGravityInterval = theGravityInterval;
+        myMaxInputs = theMaxInputs;
+    }
+
+    /**
+     * Plays a number of games, one after another, on a single headless Board,
+     * with a randomly chosen master seed.
+     *
+     * @param theScript The Script that drives every game.
+     * @param theGames The number of games to play.
+     * @return The totals and throughput of the run.
+     */
+    public Result run(final Script theScript, final int theGames) {
+        return run(theScript, theGames, new PieceSource().getSeed());
+    }
+
+    /**
+     * Plays a number of games, one after another, on a single headless Board.
+     * Every game gets its own PieceSource split from a master source, so the whole
+     * run is reproducible from the master seed.
+     *
+     * @param theScript The Script that drives every game.
+     * @param theGames The number of games to play.
+     * @param theSeed The master seed of the run.
+     * @return The totals and throughput of the run.
+     */
+    public Result run(final Script theScript, final int theGames, final long theSeed) {
+        final PieceSource master = new PieceSource(theSeed);
+        final Board board = new Board(myWidth, myHeight);
+        long pieces = 0;
+        long lines = 0;
+        long inputs = 0;
+
+        final long start = System.nanoTime();
+        for (int game = 0; game < theGames; game++) {
+            board.setPieceSource(master.split());
+            inputs += play(board, theScript);
+            pieces += board.getPiecesFrozen();
+            lines += board.getLinesCleared();
+        }
+        return new Result(theGames, pieces, lines, inputs, System.nanoTime() - start);
+    }
+
+    /**
+     * Plays a single game on a Board until it is over or the input limit is reached.
+     *
+     * @param theBoard The Board to play on; a new game is started on it.
+     * @param theScript The Script that drives the game.
+     * @return The number of Inputs applied, including gravity ticks.
+     */
+    public long play(final Board theBoard, final Script theScript) {
+        theBoard.newGame();
+        theScript.newGame();
+
+        long inputs = 0;
+        int sinceGravity = 0;
+        while (!theBoard.isGameOver() && inputs < myMaxInputs) {
+            theScript.nextInput(theBoard).apply(theBoard);
+            inputs++;
+            if (myGravityInterval > 0 && ++sinceGravity == myGravityInterval) {
+                sinceGravity = 0;
+                Input.GRAVITY.apply(theBoard);
+                inputs++;
+            }
+        }
+        return inputs;
+    }
+
+    /**
+     * Creates a Script that loops through the Inputs of a script string, restarting
+     * at the beginning of every game. Each character is an Input symbol (see
+     * Input.getSymbol); whitespace is ignored.
+     *
+     * @param theScript The script string, for example "LLUP RRP".
+     * @return A Script that loops through the Inputs.
+     * @throws IllegalArgumentException if the string holds no Inputs or an unknown symbol.
+     */
+    public static Script parse(final String theScript) {
+        final String symbols = theScript.replaceAll("\\s", "");
+        if (symbols.isEmpty()) {
+            throw new IllegalArgumentException("A script needs at least one input");
+        }
+        final Input[] inputs = new Input[symbols.length()];
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = Input.fromSymbol(symbols.charAt(i));
+        }
+
+        return new Script() {
+            /** The index of the next Input. */
+            private int myIndex;
+
+            @Override
+            public void newGame() {
+                myIndex = 0;
+            }
+
+            @Override
+            public Input nextInput(final Board theBoard) {
+                final Input result = inputs[myIndex];
+                myIndex = (myIndex + 1) % inputs.length;
+                return result;
+            }
+        };
+    }
+
+    /**
+     * Runs a simulation from the command line and prints its throughput.
+     *
+     * @param theArgs Optional arguments: script, games, width, height, gravity interval.
+     */
+    public static void main(final String[] theArgs) {
+        final String script = Arguments.getString(theArgs, 0, DEFAULT_SCRIPT);
+        final int games = Arguments.getInt(theArgs, 1, DEFAULT_GAMES);
+        final int width = Arguments.getInt(theArgs, 2, Board.DEFAULT_BOARD_WIDTH);
+        final int height = Arguments.getInt(theArgs, 3, Board.DEFAULT_BOARD_HEIGHT);
+        final int gravity = Arguments.getInt(theArgs, 4, 0);
+
+        final GameSimulator simulator = new GameSimulator(width, height, gravity,
+                                                          DEFAULT_MAX_INPUTS);
+        System.out.println(simulator.run(parse(script), games));
+    }
+}
@@ -0,0 +1,85 @@
+package model;
+
+/**
+ * The GreedyAgent class. A GreedyAgent plays Tetris by searching every placement
+ * of the current piece and playing the one its Heuristic scores highest, without
+ * looking at the pieces that follow.
+ *
+ * Run from the command line, it plays headless games and prints their throughput
+ * and the number of placements it scored per second.
+ *
+ * @author Logan Stafford
+ * @version 1.0
+ */
+public final class GreedyAgent extends PlacementAgent {
+
+    /**
+     * The number of games played from the command line by default.
+     */
+    private static final int DEFAULT_GAMES = 10;
+
+    /**
+     * The number of Inputs after which a game played from the command line is abandoned.
+     */
+    private static final long MAX_INPUTS = 1_000_000L;
+
+    /**
+     * The Heuristic placements are scored with.
+     */
+    private final Heuristic myHeuristic;
+
+    /**
+     * The search used to find placements.
+     */
+    private final PlacementSearch mySearch;
+
+    /**
+     * The GreedyAgent constructor, which uses the default WeightedHeuristic.
+     */
+    public GreedyAgent() {
+        this(WeightedHeuristic.DEFAULT);
+    }
+
+    /**
+     * The GreedyAgent constructor.
+     *
+     * @param theHeuristic The Heuristic to score placements with.
+     */
+    public GreedyAgent(final Heuristic theHeuristic) {
+        myHeuristic = theHeuristic;
+        mySearch = new PlacementSearch();
+    }
+
+    @Override
+    public Placement choose(final Board theBoard) {
+        return mySearch.findBest(theBoard, myHeuristic);
+    }
+
+    /**
+     * Returns the search used to find placements.
+     *
+     * @return The PlacementSearch, for its evaluation count.
+     */
+    public PlacementSearch getSearch() {
+        return mySearch;
+    }
+
+    /**
+     * Plays headless games from the command line and prints their throughput.
+     *
+     * @param theArgs Optional arguments: games, width, height.
+     */
+    public static void main(final String[] theArgs) {
+        final int games = Arguments.getInt(theArgs, 0, DEFAULT_GAMES);
+        final int width = Arguments.getInt(theArgs, 1, Board.DEFAULT_BOARD_WIDTH);
+        final int height = Arguments.getInt(theArgs, 2, Board.DEFAULT_BOARD_HEIGHT);
+
+        final GreedyAgent agent = new GreedyAgent();
+        final GameSimulator.Result result =
+            new GameSimulator(width, height, 0, MAX_INPUTS).run(agent, games);
+        System.out.println(result);
+        System.out.printf("%d placements scored, %.0f placements/s%n",
+                          agent.getSearch().getEvaluations(),
+                          agent.getSearch().getEvaluations() * 1e9 / result.getNanos());
+    }
+}
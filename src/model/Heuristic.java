@@ -0,0 +1,21 @@
+package model;
+
+/**
+ * The Heuristic interface. A Heuristic scores the board left by a placement;
+ * a search plays the placement with the highest score.
+ *
+ * @author Logan Stafford
+ * @version 1.0
+ */
+@FunctionalInterface
+public interface Heuristic {
+
+    /**
+     * Scores the board left by a placement. Called once for every placement a
+     * search considers, so implementations should not allocate.
+     *
+     * @param theFeatures The features of the board after the placement.
+     * @return The score of the placement; higher is better.
+     */
+    double evaluate(BoardFeatures theFeatures);
+}
@@ -0,0 +1,108 @@
+package model;
+
+/**
+ * The Input class, which enumerates every action that can be applied to a Board
+ * while a game is running: the player's moves and the gravity tick of the game timer.
+ * 
+ * @author Logan Stafford
+ * @version 1.0
+ */
+public enum Input {
+
+    /** Move the current piece left. */
+    LEFT('L'),
+
+    /** Move the current piece right. */
+    RIGHT('R'),
+
+    /** Rotate the current piece clockwise. */
+    ROTATE('U'),
+
+    /** Move the current piece down (soft drop). */
+    DOWN('D'),
+
+    /** Drop the current piece until it freezes (hard drop). */
+    DROP('P'),
+
+    /** A gravity tick of the game timer, which moves the current piece down. */
+    GRAVITY('G');
+
+    /**
+     * The Input values, cached to avoid copying the array on every lookup.
+     */
+    private static final Input[] VALUES = values();
+
+    /**
+     * The character used for this Input in a script.
+     */
+    private final char mySymbol;
+
+    /**
+     * The Input constructor.
+     * 
+     * @param theSymbol The character used for this Input in a script.
+     */
+    Input(final char theSymbol) {
+        mySymbol = theSymbol;
+    }
+
+    /**
+     * Returns the character used for this Input in a script.
+     * 
+     * @return The script character of this Input.
+     */
+    public char getSymbol() {
+        return mySymbol;
+    }
+
+    /**
+     * Applies this Input to a Board.
+     * 
+     * @param theBoard The Board to apply this Input to.
+     */
+    public void apply(final Board theBoard) {
+        switch (this) {
+            case LEFT:
+                theBoard.left();
+                break;
+            case RIGHT:
+                theBoard.right();
+                break;
+            case ROTATE:
+                theBoard.rotate();
+                break;
+            case DROP:
+                theBoard.drop();
+                break;
+            default:
+                theBoard.down();
+        }
+    }
+
+    /**
+     * Returns the Input with the given ordinal, without copying the values array.
+     * 
+     * @param theOrdinal The ordinal of the Input.
+     * @return The Input with the given ordinal.
+     */
+    public static Input valueOf(final int theOrdinal) {
+        return VALUES[theOrdinal];
+    }
+
+    /**
+     * Returns the Input used for a script character.
+     * 
+     * @param theSymbol The script character, case insensitive.
+     * @return The matching Input.
+     * @throws IllegalArgumentException if no Input uses the character.
+     */
+    public static Input fromSymbol(final char theSymbol) {
+        final char symbol = Character.toUpperCase(theSymbol);
+        for (final Input input : VALUES) {
+            if (input.mySymbol == symbol) {
+                return input;
+            }
+        }
+        throw new IllegalArgumentException("Unknown input symbol: " + theSymbol);
+    }
+}
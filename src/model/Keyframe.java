@@ -0,0 +1,94 @@
+package model;
+
+/**
+ * The Keyframe class. A Keyframe is an entry of the seek index of a Replay: a
+ * BoardSnapshot of the game right after a given event, together with where that
+ * event ends in the encoded stream and when it happened. Seeking restores the
+ * nearest earlier Keyframe and plays only the events after it.
+ * A Keyframe is immutable.
+ *
+ * @author Logan Stafford
+ * @version 1.0
+ */
+public final class Keyframe {
+
+    /**
+     * The number of events played before the snapshot was taken.
+     */
+    private final int myEventIndex;
+
+    /**
+     * The position in the encoded event stream of the first event after the snapshot.
+     */
+    private final int myOffset;
+
+    /**
+     * The recorded time of the last event before the snapshot, in milliseconds
+     * since the game started.
+     */
+    private final long myTime;
+
+    /**
+     * The state of the board after the last event before the snapshot.
+     */
+    private final BoardSnapshot mySnapshot;
+
+    /**
+     * The Keyframe constructor.
+     *
+     * @param theEventIndex The number of events played before the snapshot.
+     * @param theOffset The stream position of the first event after the snapshot.
+     * @param theTime The recorded time of the snapshot in milliseconds.
+     * @param theSnapshot The state of the board.
+     */
+    Keyframe(final int theEventIndex, final int theOffset, final long theTime,
+             final BoardSnapshot theSnapshot) {
+        myEventIndex = theEventIndex;
+        myOffset = theOffset;
+        myTime = theTime;
+        mySnapshot = theSnapshot;
+    }
+
+    /**
+     * Returns the number of events played before the snapshot was taken.
+     *
+     * @return The index of the first event after the snapshot.
+     */
+    public int getEventIndex() {
+        return myEventIndex;
+    }
+
+    /**
+     * Returns the position in the encoded event stream of the first event after
+     * the snapshot.
+     *
+     * @return The stream offset of the first event after the snapshot.
+     */
+    int getOffset() {
+        return myOffset;
+    }
+
+    /**
+     * Returns the recorded time of the snapshot.
+     *
+     * @return The milliseconds between the start of the game and the snapshot.
+     */
+    public long getTime() {
+        return myTime;
+    }
+
+    /**
+     * Returns the state of the board at this Keyframe.
+     *
+     * @return The BoardSnapshot of this Keyframe.
+     */
+    public BoardSnapshot getSnapshot() {
+        return mySnapshot;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Keyframe at event %d (%d ms), %d pieces",
+                             myEventIndex, myTime, mySnapshot.getPiecesFrozen());
+    }
+}
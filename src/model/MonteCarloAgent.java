@@ -0,0 +1,147 @@
+package model;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The MonteCarloAgent class. A MonteCarloAgent plays Tetris with a MonteCarloSearch
+ * that is given a fixed time budget for every piece. The rollouts of every game are
+ * seeded from the seed of the game's PieceSource.
+ *
+ * Run from the command line, it plays headless games and prints their throughput,
+ * the rollout throughput of a single core, and the longest time it took to choose
+ * a placement, which shows how well the budget is held.
+ *
+ * @author Logan Stafford
+ * @version 1.0
+ */
+public final class MonteCarloAgent extends PlacementAgent {
+
+    /**
+     * The default time budget per piece in milliseconds.
+     */
+    public static final long DEFAULT_BUDGET_MILLIS = 5;
+
+    /**
+     * The number of games played from the command line by default.
+     */
+    private static final int DEFAULT_GAMES = 1;
+
+    /**
+     * The number of Inputs after which a game played from the command line is abandoned.
+     */
+    private static final long MAX_INPUTS = 20_000L;
+
+    /**
+     * The number of nanoseconds in a millisecond.
+     */
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    /**
+     * The search used to choose placements.
+     */
+    private final MonteCarloSearch mySearch;
+
+    /**
+     * The time budget per piece in nanoseconds.
+     */
+    private final long myBudget;
+
+    /**
+     * The longest time taken to choose a placement, in nanoseconds.
+     */
+    private long myMaxChooseNanos;
+
+    /**
+     * Whether the rollouts are yet to be seeded for the current game.
+     */
+    private boolean myNewGame;
+
+    /**
+     * The MonteCarloAgent constructor, which searches on the common pool for
+     * DEFAULT_BUDGET_MILLIS per piece.
+     */
+    public MonteCarloAgent() {
+        this(new MonteCarloSearch(WeightedHeuristic.DEFAULT), DEFAULT_BUDGET_MILLIS);
+    }
+
+    /**
+     * The MonteCarloAgent constructor.
+     *
+     * @param theSearch The search used to choose placements.
+     * @param theBudgetMillis The time budget per piece in milliseconds.
+     * @throws IllegalArgumentException if the budget is not positive.
+     */
+    public MonteCarloAgent(final MonteCarloSearch theSearch, final long theBudgetMillis) {
+        if (theBudgetMillis < 1) {
+            throw new IllegalArgumentException("Invalid time budget: " + theBudgetMillis);
+        }
+        mySearch = theSearch;
+        myBudget = theBudgetMillis * NANOS_PER_MILLI;
+    }
+
+    @Override
+    public void newGame() {
+        super.newGame();
+        myNewGame = true;
+    }
+
+    @Override
+    public Placement choose(final Board theBoard) {
+        if (myNewGame) {
+            mySearch.setSeed(theBoard.getPieceSource().getSeed());
+            myNewGame = false;
+        }
+        final long start = System.nanoTime();
+        final Placement result = mySearch.findBest(theBoard, myBudget);
+        myMaxChooseNanos = Math.max(myMaxChooseNanos, System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * Returns the search used to choose placements.
+     *
+     * @return The MonteCarloSearch, for its rollout metrics.
+     */
+    public MonteCarloSearch getSearch() {
+        return mySearch;
+    }
+
+    /**
+     * Returns the longest time taken to choose a placement.
+     *
+     * @return The longest choice in nanoseconds.
+     */
+    public long getMaxChooseNanos() {
+        return myMaxChooseNanos;
+    }
+
+    /**
+     * Plays headless games from the command line and prints their throughput.
+     *
+     * @param theArgs Optional arguments: games, time budget in milliseconds, threads.
+     */
+    public static void main(final String[] theArgs) {
+        final int games = Arguments.getInt(theArgs, 0, DEFAULT_GAMES);
+        final long budget = Arguments.getLong(theArgs, 1, DEFAULT_BUDGET_MILLIS);
+        final int threads = Arguments.getThreads(theArgs, 2);
+
+        final ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            final MonteCarloSearch search = new MonteCarloSearch(
+                WeightedHeuristic.DEFAULT, MonteCarloSearch.DEFAULT_BRANCHING,
+                MonteCarloSearch.DEFAULT_ROLLOUT_PIECES, pool, new PieceSource().getSeed());
+            final MonteCarloAgent agent = new MonteCarloAgent(search, budget);
+            final GameSimulator.Result result =
+                new GameSimulator(Board.DEFAULT_BOARD_WIDTH, Board.DEFAULT_BOARD_HEIGHT, 0,
+                                  MAX_INPUTS).run(agent, games);
+            System.out.println(result);
+            System.out.printf("%d rollouts on %d cores, %.0f rollouts/s per core, "
+                              + "longest move %.2f ms of %d ms%n",
+                              search.getRollouts(), search.getWorkerCount(),
+                              search.getRolloutsPerSecondPerCore(),
+                              agent.getMaxChooseNanos() / (double) NANOS_PER_MILLI, budget);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
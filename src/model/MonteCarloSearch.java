@@ -0,0 +1,736 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The MonteCarloSearch class. A MonteCarloSearch chooses a placement of the current
+ * piece by Monte Carlo tree search within a strict time budget, for games whose
+ * pieces are random and so cannot be searched exhaustively.
+ *
+ * The tree holds the placements of the pieces that are known - the current piece
+ * and the next piece - with only the best few placements of each, by Heuristic
+ * score, as children. Every iteration walks down the tree by UCT, then plays out a
+ * rollout of random pieces on a copy of the board, each placed greedily, and backs
+ * up the Heuristic score of the final board. UCT normalizes the scores to [0, 1]
+ * over the rollouts that survived, and counts a rollout that tops out as 0, so a
+ * loss is never preferred to a board that survives, however bad. Every core runs its own tree over the same candidate placements
+ * of the current piece (root parallelization), so the workers share nothing while
+ * they search; when the budget expires their visit counts are summed and the most
+ * visited placement wins. A search without a pool runs a single tree on the
+ * calling thread.
+ *
+ * Each worker keeps its tree in preallocated arrays and reuses its boards and
+ * PlacementSearch, so an iteration allocates nothing. The workers stop a safety
+ * margin before the end of the budget, which leaves time to join them and build
+ * the Placement, and each stops starting iterations once its slowest iteration of
+ * the search would no longer fit. A MonteCarloSearch may be used by one thread at
+ * a time.
+ *
+ * @author Logan Stafford
+ * @version 1.0
+ */
+public final class MonteCarloSearch {
+
+    /**
+     * The default number of children kept for each node.
+     */
+    public static final int DEFAULT_BRANCHING = 8;
+
+    /**
+     * The default number of random pieces played by a rollout.
+     */
+    public static final int DEFAULT_ROLLOUT_PIECES = 5;
+
+    /**
+     * The part of the budget reserved as a safety margin, as a divisor of the budget.
+     */
+    private static final long SAFETY_MARGIN_DIVISOR = 10;
+
+    /**
+     * The smallest safety margin reserved from the budget, in nanoseconds.
+     */
+    private static final long MIN_SAFETY_MARGIN = 100_000L;
+
+    /**
+     * The UCT exploration constant, for scores normalized to [0, 1].
+     */
+    private static final double EXPLORATION = Math.sqrt(2);
+
+    /**
+     * The number of pieces whose placements the tree holds: the current and next piece.
+     */
+    private static final int KNOWN_PIECES = 2;
+
+    /**
+     * The most rows a single piece can clear.
+     */
+    private static final int MAX_CLEAR = 4;
+
+    /**
+     * The number of nanoseconds in a second.
+     */
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    /**
+     * The Worker class. A Worker runs the iterations of one tree on one thread.
+     */
+    private final class Worker {
+
+        /**
+         * The child count of a node that has not been expanded.
+         */
+        private static final int UNEXPANDED = -1;
+
+        /**
+         * The placement search of this worker.
+         */
+        private final PlacementSearch mySearch = new PlacementSearch();
+
+        /**
+         * The random stream of rollout pieces.
+         */
+        private SplittableRandom myRandom;
+
+        /**
+         * The board an iteration is played on.
+         */
+        private final BitBoard myBoard = new BitBoard(1, 1);
+
+        /**
+         * A scratch board used to score candidate children.
+         */
+        private final BitBoard myScratch = new BitBoard(1, 1);
+
+        /**
+         * The rows cleared by a placement.
+         */
+        private final int[] myCleared = new int[MAX_CLEAR];
+
+        /**
+         * The nodes visited by the current iteration, root first.
+         */
+        private final int[] myPath = new int[KNOWN_PIECES + 1];
+
+        /**
+         * The scores of the placements of the node being expanded.
+         */
+        private double[] myCandidateScores = new double[0];
+
+        /**
+         * The packed resting state of each node's placement.
+         */
+        private int[] myStates;
+
+        /**
+         * The index of each node's first child.
+         */
+        private int[] myFirstChild;
+
+        /**
+         * The number of children of each node, or UNEXPANDED.
+         */
+        private int[] myChildCount;
+
+        /**
+         * The number of iterations through each node.
+         */
+        private int[] myVisits;
+
+        /**
+         * The sum of the scores backed up through each node by rollouts that survived.
+         */
+        private double[] myScores;
+
+        /**
+         * The number of iterations through each node that topped out.
+         */
+        private int[] myTopOuts;
+
+        /**
+         * The number of nodes in the tree.
+         */
+        private int myNodeCount;
+
+        /**
+         * The lowest score backed up in the current tree.
+         */
+        private double myMinScore;
+
+        /**
+         * The highest score backed up in the current tree.
+         */
+        private double myMaxScore;
+
+        /**
+         * The Worker constructor.
+         */
+        Worker() {
+            final int capacity = 1 + myBranching + myBranching * myBranching;
+            myStates = new int[capacity];
+            myFirstChild = new int[capacity];
+            myChildCount = new int[capacity];
+            myVisits = new int[capacity];
+            myScores = new double[capacity];
+            myTopOuts = new int[capacity];
+        }
+
+        /**
+         * Restarts the random stream of rollout pieces.
+         *
+         * @param theSeed The seed of the random stream.
+         */
+        void setSeed(final long theSeed) {
+            myRandom = new SplittableRandom(theSeed);
+        }
+
+        /**
+         * Starts a new tree whose root children are the candidate placements.
+         */
+        void reset() {
+            myNodeCount = 1 + myRootCount;
+            myFirstChild[0] = 1;
+            myChildCount[0] = myRootCount;
+            myVisits[0] = 0;
+            myScores[0] = 0;
+            myTopOuts[0] = 0;
+            for (int i = 0; i < myRootCount; i++) {
+                initNode(1 + i, myRootStates[i]);
+            }
+            myMinScore = Double.POSITIVE_INFINITY;
+            myMaxScore = Double.NEGATIVE_INFINITY;
+        }
+
+        /**
+         * Runs iterations until one as slow as the slowest so far would overrun the
+         * deadline.
+         *
+         * @param theDeadline The deadline, on the System.nanoTime clock.
+         * @return The number of iterations run.
+         */
+        int run(final long theDeadline) {
+            final long start = System.nanoTime();
+            int iterations = 0;
+            long now = start;
+            long slowest = 0;
+            while (now + slowest - theDeadline < 0) {
+                iterate();
+                iterations++;
+                final long end = System.nanoTime();
+                slowest = Math.max(slowest, end - now);
+                now = end;
+            }
+            myRollouts.add(iterations);
+            myRolloutNanos.add(now - start);
+            return iterations;
+        }
+
+        /**
+         * Returns the number of iterations through a root child.
+         *
+         * @param theIndex The index of the candidate placement.
+         * @return The number of visits.
+         */
+        int getVisits(final int theIndex) {
+            return myVisits[1 + theIndex];
+        }
+
+        /**
+         * Returns the sum of the scores backed up through a root child by rollouts
+         * that survived.
+         *
+         * @param theIndex The index of the candidate placement.
+         * @return The sum of the scores.
+         */
+        double getScore(final int theIndex) {
+            return myScores[1 + theIndex];
+        }
+
+        /**
+         * Returns the number of iterations through a root child that topped out.
+         *
+         * @param theIndex The index of the candidate placement.
+         * @return The number of top-outs.
+         */
+        int getTopOuts(final int theIndex) {
+            return myTopOuts[1 + theIndex];
+        }
+
+        /**
+         * Runs one iteration: selection, expansion, rollout and backup.
+         */
+        private void iterate() {
+            myBoard.copyFrom(myRootBoard);
+            int node = 0;
+            int depth = 0;
+            int lines = 0;
+            boolean toppedOut = false;
+            myPath[0] = 0;
+
+            /* Walk down the placements of the known pieces. */
+            while (!toppedOut && depth < KNOWN_PIECES) {
+                if (myChildCount[node] == UNEXPANDED) {
+                    expand(node, getKnownStart(depth), lines);
+                }
+                if (myChildCount[node] == 0) {
+                    toppedOut = true;
+                } else {
+                    node = select(node);
+                    lines += lock(myBoard, myStates[node]);
+                    depth++;
+                    myPath[depth] = node;
+                }
+            }
+
+            /* Play out random pieces greedily. */
+            for (int i = 0; i < myRolloutPieces && !toppedOut; i++) {
+                final TetrisPiece piece = TetrisPiece.getRandomPiece(myRandom);
+                final int start = Board.getSpawnState(piece, piece, myBoard.getWidth(),
+                                                      myBoard.getHeight());
+                if (mySearch.search(myBoard, start) == 0) {
+                    toppedOut = true;
+                } else {
+                    final int best = mySearch.findBestIndex(myHeuristic);
+                    lines += lock(myBoard, mySearch.getPlacementState(best));
+                }
+            }
+
+            if (toppedOut) {
+                for (int i = 0; i <= depth; i++) {
+                    myVisits[myPath[i]]++;
+                    myTopOuts[myPath[i]]++;
+                }
+            } else {
+                final double score = mySearch.evaluate(myBoard, lines, myHeuristic);
+                myMinScore = Math.min(myMinScore, score);
+                myMaxScore = Math.max(myMaxScore, score);
+                for (int i = 0; i <= depth; i++) {
+                    myVisits[myPath[i]]++;
+                    myScores[myPath[i]] += score;
+                }
+            }
+        }
+
+        /**
+         * Adds the best few placements of a known piece as the children of a node.
+         *
+         * @param theNode The node, whose board is myBoard.
+         * @param theStart The packed state the piece starts from.
+         * @param theLines The lines cleared on the way to the node.
+         */
+        private void expand(final int theNode, final int theStart, final int theLines) {
+            final int count = mySearch.search(myBoard, theStart);
+            if (myCandidateScores.length < count) {
+                myCandidateScores = new double[count];
+            }
+            for (int i = 0; i < count; i++) {
+                myCandidateScores[i] = mySearch.evaluate(myScratch,
+                                                         theLines + mySearch.place(i, myScratch),
+                                                         myHeuristic);
+            }
+
+            final int children = Math.min(count, myBranching);
+            ensureCapacity(myNodeCount + children);
+            myFirstChild[theNode] = myNodeCount;
+            myChildCount[theNode] = children;
+            for (int c = 0; c < children; c++) {
+                int best = -1;
+                for (int i = 0; i < count; i++) {
+                    if (myCandidateScores[i] > Double.NEGATIVE_INFINITY
+                        && (best < 0 || myCandidateScores[i] > myCandidateScores[best])) {
+                        best = i;
+                    }
+                }
+                myCandidateScores[best] = Double.NEGATIVE_INFINITY;
+                initNode(myNodeCount++, mySearch.getPlacementState(best));
+            }
+        }
+
+        /**
+         * Chooses the child of a node to walk to by UCT; unvisited children, best
+         * first, are tried before any child is visited twice.
+         *
+         * @param theNode The node.
+         * @return The chosen child.
+         */
+        private int select(final int theNode) {
+            final int first = myFirstChild[theNode];
+            final int last = first + myChildCount[theNode];
+            final double range = myMaxScore - myMinScore;
+            final double log = Math.log(Math.max(1, myVisits[theNode]));
+            int result = -1;
+            double best = Double.NEGATIVE_INFINITY;
+            for (int child = first; child < last && (result < 0 || myVisits[result] > 0);
+                            child++) {
+                double value = Double.POSITIVE_INFINITY;
+                if (myVisits[child] > 0) {
+                    final int survived = myVisits[child] - myTopOuts[child];
+                    double mean = 0.5 * survived / myVisits[child];
+                    if (range > 0) {
+                        mean = (myScores[child] - survived * myMinScore) / range
+                               / myVisits[child];
+                    }
+                    value = mean + EXPLORATION * Math.sqrt(log / myVisits[child]);
+                }
+                if (result < 0 || value > best) {
+                    result = child;
+                    best = value;
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Initializes an unexpanded node.
+         *
+         * @param theNode The node.
+         * @param theState The packed resting state of its placement.
+         */
+        private void initNode(final int theNode, final int theState) {
+            myStates[theNode] = theState;
+            myChildCount[theNode] = UNEXPANDED;
+            myVisits[theNode] = 0;
+            myScores[theNode] = 0;
+            myTopOuts[theNode] = 0;
+        }
+
+        /**
+         * Grows the tree arrays, which only happens when the branching changes.
+         *
+         * @param theCapacity The number of nodes needed.
+         */
+        private void ensureCapacity(final int theCapacity) {
+            if (theCapacity > myStates.length) {
+                final int capacity = Math.max(theCapacity, myStates.length * 2);
+                myStates = Arrays.copyOf(myStates, capacity);
+                myFirstChild = Arrays.copyOf(myFirstChild, capacity);
+                myChildCount = Arrays.copyOf(myChildCount, capacity);
+                myVisits = Arrays.copyOf(myVisits, capacity);
+                myScores = Arrays.copyOf(myScores, capacity);
+                myTopOuts = Arrays.copyOf(myTopOuts, capacity);
+            }
+        }
+
+        /**
+         * Locks a placement on a board.
+         *
+         * @param theBoard The board.
+         * @param theState The packed resting state of the placement.
+         * @return The number of lines cleared.
+         */
+        private int lock(final BitBoard theBoard, final int theState) {
+            return theBoard.lock(PieceState.getPiece(theState), PieceState.getRotation(theState),
+                                 PieceState.getX(theState), PieceState.getY(theState),
+                                 myCleared);
+        }
+    }
+
+    /**
+     * The Heuristic placements and boards are scored with.
+     */
+    private final Heuristic myHeuristic;
+
+    /**
+     * The number of children kept for each node.
+     */
+    private final int myBranching;
+
+    /**
+     * The number of random pieces played by a rollout.
+     */
+    private final int myRolloutPieces;
+
+    /**
+     * The pool the workers run on, or null for a single worker on the calling thread.
+     */
+    private final ForkJoinPool myPool;
+
+    /**
+     * One worker per thread of the pool, or a single worker without a pool.
+     */
+    private final Worker[] myWorkers;
+
+    /**
+     * The PlacementSearch that finds the candidate placements on the caller's thread.
+     */
+    private final PlacementSearch myRootSearch;
+
+    /**
+     * The board the current search starts from.
+     */
+    private final BitBoard myRootBoard;
+
+    /**
+     * The scratch board used to score the candidate placements.
+     */
+    private final BitBoard myRootScratch;
+
+    /**
+     * The candidate placements of the current piece, best scored first.
+     */
+    private final int[] myRootStates;
+
+    /**
+     * The number of candidate placements.
+     */
+    private int myRootCount;
+
+    /**
+     * The packed state the current piece starts from.
+     */
+    private int myCurrentStart;
+
+    /**
+     * The packed spawn state of the next piece.
+     */
+    private int myNextStart;
+
+    /**
+     * The number of rollouts run, over every worker.
+     */
+    private final LongAdder myRollouts = new LongAdder();
+
+    /**
+     * The time the workers spent running rollouts, in nanoseconds.
+     */
+    private final LongAdder myRolloutNanos = new LongAdder();
+
+    /**
+     * The number of rollouts run by the last search.
+     */
+    private int myLastRollouts;
+
+    /**
+     * The MonteCarloSearch constructor, which runs on the common pool with the
+     * default branching and rollout length.
+     *
+     * @param theHeuristic The Heuristic to score placements and boards with.
+     */
+    public MonteCarloSearch(final Heuristic theHeuristic) {
+        this(theHeuristic, DEFAULT_BRANCHING, DEFAULT_ROLLOUT_PIECES, ForkJoinPool.commonPool(),
+             new SplittableRandom().nextLong());
+    }
+
+    /**
+     * The MonteCarloSearch constructor.
+     *
+     * @param theHeuristic The Heuristic to score placements and boards with.
+     * @param theBranching The number of children kept for each node.
+     * @param theRolloutPieces The number of random pieces played by a rollout.
+     * @param thePool The pool to run the workers on, one per thread, or null to run
+     *                a single worker on the calling thread.
+     * @param theSeed The seed of the random pieces of the rollouts.
+     * @throws IllegalArgumentException if the branching is not positive or the
+     *                                  rollout length is negative.
+     */
+    public MonteCarloSearch(final Heuristic theHeuristic, final int theBranching,
+                            final int theRolloutPieces, final ForkJoinPool thePool,
+                            final long theSeed) {
+        if (theBranching < 1 || theRolloutPieces < 0) {
+            throw new IllegalArgumentException("Invalid branching or rollout length");
+        }
+        myHeuristic = theHeuristic;
+        myBranching = theBranching;
+        myRolloutPieces = theRolloutPieces;
+        myPool = thePool;
+        myRootSearch = new PlacementSearch();
+        myRootBoard = new BitBoard(1, 1);
+        myRootScratch = new BitBoard(1, 1);
+        myRootStates = new int[theBranching];
+
+        int workers = 1;
+        if (thePool != null) {
+            workers = thePool.getParallelism();
+        }
+        myWorkers = new Worker[workers];
+        for (int i = 0; i < myWorkers.length; i++) {
+            myWorkers[i] = new Worker();
+        }
+        setSeed(theSeed);
+    }
+
+    /**
+     * Restarts the random streams of the rollout pieces from a seed, so that the
+     * rollouts of a game can be derived from the game's own seed.
+     *
+     * @param theSeed The seed of the random pieces of the rollouts.
+     */
+    public void setSeed(final long theSeed) {
+        final SplittableRandom seeds = new SplittableRandom(theSeed);
+        for (final Worker worker : myWorkers) {
+            worker.setSeed(seeds.nextLong());
+        }
+    }
+
+    /**
+     * Chooses a placement of a Board's current piece, searching until the budget expires.
+     *
+     * @param theBoard The Board, which is not modified.
+     * @param theBudget The time budget in nanoseconds.
+     * @return The chosen placement, or null if every placement ends the game.
+     */
+    public Placement findBest(final Board theBoard, final long theBudget) {
+        final long deadline = System.nanoTime() + theBudget
+                              - Math.max(MIN_SAFETY_MARGIN, theBudget / SAFETY_MARGIN_DIVISOR);
+        myLastRollouts = 0;
+        Placement result = null;
+        if (myRootSearch.search(theBoard) > 0) {
+            prepare(theBoard);
+            if (myPool == null) {
+                myLastRollouts = myWorkers[0].run(deadline);
+            } else {
+                final List<Future<Integer>> runs =
+                    new ArrayList<Future<Integer>>(myWorkers.length);
+                for (final Worker worker : myWorkers) {
+                    runs.add(myPool.submit(() -> worker.run(deadline)));
+                }
+                for (final Future<Integer> run : runs) {
+                    myLastRollouts += join(run);
+                }
+            }
+
+            /* The most visited candidate wins; with no rollouts, the best scored one.
+             * Its score is the mean of its rollouts that survived. */
+            int best = 0;
+            long bestVisits = -1;
+            double bestScore = 0;
+            for (int i = 0; i < myRootCount; i++) {
+                long visits = 0;
+                long survived = 0;
+                double score = 0;
+                for (final Worker worker : myWorkers) {
+                    visits += worker.getVisits(i);
+                    survived += worker.getVisits(i) - worker.getTopOuts(i);
+                    score += worker.getScore(i);
+                }
+                if (visits > bestVisits) {
+                    best = i;
+                    bestVisits = visits;
+                    bestScore = score / Math.max(1, survived);
+                }
+            }
+
+            final int index = myRootSearch.indexOf(myRootStates[best]);
+            result = myRootSearch.getPlacement(index, myRootSearch.place(index, myRootScratch),
+                                               bestScore);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of rollouts run by the last search.
+     *
+     * @return The number of rollouts, over every core.
+     */
+    public int getLastRollouts() {
+        return myLastRollouts;
+    }
+
+    /**
+     * Returns the number of rollouts run by every search.
+     *
+     * @return The number of rollouts, over every core.
+     */
+    public long getRollouts() {
+        return myRollouts.sum();
+    }
+
+    /**
+     * Returns the rollout throughput of a single core, over every search.
+     *
+     * @return The number of rollouts per second of worker time.
+     */
+    public double getRolloutsPerSecondPerCore() {
+        double result = 0;
+        final long nanos = myRolloutNanos.sum();
+        if (nanos > 0) {
+            result = myRollouts.sum() * NANOS_PER_SECOND / nanos;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of workers, one per core of the pool or one without a pool.
+     *
+     * @return The number of workers.
+     */
+    public int getWorkerCount() {
+        return myWorkers.length;
+    }
+
+    /**
+     * Sets up the root of every worker's tree from the placements found by the
+     * root search: the board, the start states of the known pieces, and the best
+     * scored placements of the current piece.
+     *
+     * @param theBoard The Board searched.
+     */
+    private void prepare(final Board theBoard) {
+        myRootBoard.copyFrom(theBoard.getOccupancy());
+        myCurrentStart = theBoard.getCurrentPieceState();
+        myNextStart = Board.getSpawnState(theBoard.getNextPiece(), theBoard.getNextPiece(),
+                                          theBoard.getWidth(), theBoard.getHeight());
+
+        final int count = myRootSearch.getPlacementCount();
+        final double[] scores = new double[count];
+        for (int i = 0; i < count; i++) {
+            scores[i] = myRootSearch.evaluate(myRootScratch,
+                                              myRootSearch.place(i, myRootScratch), myHeuristic);
+        }
+        myRootCount = Math.min(count, myBranching);
+        for (int c = 0; c < myRootCount; c++) {
+            int best = -1;
+            for (int i = 0; i < count; i++) {
+                if (scores[i] > Double.NEGATIVE_INFINITY
+                    && (best < 0 || scores[i] > scores[best])) {
+                    best = i;
+                }
+            }
+            scores[best] = Double.NEGATIVE_INFINITY;
+            myRootStates[c] = myRootSearch.getPlacementState(best);
+        }
+        for (final Worker worker : myWorkers) {
+            worker.reset();
+        }
+    }
+
+    /**
+     * Returns the state a known piece starts from.
+     *
+     * @param theDepth The depth of the piece: 0 for the current piece, 1 for the next.
+     * @return The packed start state.
+     */
+    private int getKnownStart(final int theDepth) {
+        int result = myCurrentStart;
+        if (theDepth > 0) {
+            result = myNextStart;
+        }
+        return result;
+    }
+
+    /**
+     * Waits for a worker to finish.
+     *
+     * @param theRun The worker's task.
+     * @return The number of iterations it ran.
+     */
+    private static int join(final Future<Integer> theRun) {
+        try {
+            return theRun.get();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Search interrupted", ex);
+        } catch (final ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+}
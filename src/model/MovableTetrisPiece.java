@@ -69,15 +69,7 @@ public final class MovableTetrisPiece {
      * @return The width of the MovableTetrisPiece.
      */
     public int getWidth() {
-        int min = Integer.MAX_VALUE;
-        int max = Integer.MIN_VALUE;
-        
-        for (final Point block : getLocalPoints()) {
-            min = Math.min(min, block.getX());
-            max = Math.max(max, block.getX());
-        }
-        
-        return max - min + 1;
+        return myTetrisPiece.getWidth(myRotation);
     }
 
     /**
@@ -86,15 +78,7 @@ public final class MovableTetrisPiece {
      * @return The height of the MovableTetrisPiece.
      */
     public int getHeight() {
-        int min = Integer.MAX_VALUE;
-        int max = Integer.MIN_VALUE;
-        
-        for (final Point block : getLocalPoints()) {
-            min = Math.min(min, block.getY());
-            max = Math.max(max, block.getY());
-        }
-        
-        return max - min + 1;
+        return myTetrisPiece.getHeight(myRotation);
     }
     
     /**
@@ -124,7 +108,8 @@ public final class MovableTetrisPiece {
             }
         }       
         
-        for (final Point block : getLocalPoints()) {
+        for (int i = 0; i < myTetrisPiece.getPointCount(); i++) {
+            final Point block = myTetrisPiece.getPoint(myRotation, i);
             blocks[block.getY()][block.getX()] =
                 myTetrisPiece.getBlock().toString();
         }
@@ -171,13 +156,36 @@ public final class MovableTetrisPiece {
         return myRotation;
     }
 
+    /**
+     * The getState method. This method returns the MovableTetrisPiece
+     * packed into a single int; see PieceState.
+     * 
+     * @return The packed state of the MovableTetrisPiece.
+     */
+    protected int getState() {
+        return PieceState.pack(myTetrisPiece, myRotation, myPosition.getX(), myPosition.getY());
+    }
+
+    /**
+     * The fromState method. This method creates a MovableTetrisPiece from
+     * a packed PieceState.
+     * 
+     * @param theState The packed state of the piece.
+     * @return A new MovableTetrisPiece with the state's piece, position and rotation.
+     */
+    protected static MovableTetrisPiece fromState(final int theState) {
+        return new MovableTetrisPiece(PieceState.getPiece(theState),
+                                      new Point(PieceState.getX(theState), PieceState.getY(theState)),
+                                      PieceState.getRotation(theState));
+    }
+
     /**
      * The getBoardPoints method. This method returns an array containing
      * the TetrisPiece points rotated and translated to board coordinates.
      * 
      * @return An array of Points representing the MovableTetrisPiece.
      */
-    protected Point[] getBoardPoints() {
+    public Point[] getBoardPoints() {
         return getPoints(myPosition);
     }
     
@@ -239,46 +247,19 @@ public final class MovableTetrisPiece {
     /**
      * The getPoints method. This method returns an array containing
      * the block points of the MovableTetrisPiece transformed by x and y.
+     * The rotated points are read from the precomputed tables of the TetrisPiece.
      * 
      * @param thePoint The point to transform the points around.
      * @return An array containing TetrisPiece block points.
      */
     private Point[] getPoints(final Point thePoint) {
-        final Point[] blocks = myTetrisPiece.getPoints();
+        final Point[] blocks = new Point[myTetrisPiece.getPointCount()];
         
         for (int i = 0; i < blocks.length; i++) {
-            final Point block = blocks[i];
-            if (myTetrisPiece != TetrisPiece.O) {
-                switch (myRotation) {
-                    case QUARTER:
-                        blocks[i] = new Point(block.getY(), myTetrisPiece.getWidth() - block.getX() - 1);                       
-                        break;
-                    case HALF:
-                        blocks[i] = new Point(myTetrisPiece.getWidth() - block.getX() - 1, myTetrisPiece.getWidth() - block.getY() - 1);                        
-                        break;
-                    case THREEQUARTER:                 
-                        blocks[i] = new Point(myTetrisPiece.getWidth() - block.getY() - 1, block.getX());                        
-                        break;
-                    default:
-                }
-            }
-            
-            if (thePoint != null) {
-                blocks[i] = blocks[i].transform(thePoint);
-            }
+            blocks[i] = myTetrisPiece.getPoint(myRotation, i).transform(thePoint);
         }
 
         return blocks;
     }
-    
-    /**
-     * The getLocalPoints method. This method returns the local Points of 
-     * a MovableTetrisPiece.
-     * 
-     * @return An array containing TetrisPiece block points.
-     */
-    private Point[] getLocalPoints() {
-        return getPoints(null);
-    }
 
 }
\ No newline at end of file
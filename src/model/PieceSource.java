@@ -0,0 +1,163 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * The PieceSource class. A PieceSource is the random stream of TetrisPieces that
+ * feeds a single Board. Every PieceSource has its own SplittableRandom created from
+ * an explicit seed, so a game can be replayed bit-for-bit from its seed, and games
+ * running on different threads never share (or contend on) a generator.
+ * 
+ * Splitting a PieceSource splits the parent's generator and seeds the child from the
+ * split-off generator. Children are statistically independent of each other and of
+ * the parent, and because every child seed is known, any game played from a child
+ * can be reproduced on its own.
+ * 
+ * Pieces can be peeked before they are drawn, to show a preview of the stream.
+ * Peeked pieces are generated early but count as draws only once they are drawn,
+ * so peeking never changes the stream or the draw count a game is replayed from.
+ * 
+ * A PieceSource is not thread-safe; give each thread its own source via split().
+ * 
+ * @author Logan Stafford
+ * @version 1.0
+ */
+public final class PieceSource {
+
+    /**
+     * The seed this PieceSource was created from.
+     */
+    private final long mySeed;
+
+    /**
+     * The generator of the piece stream.
+     */
+    private final SplittableRandom myRandom;
+
+    /**
+     * The number of values drawn from the generator so far.
+     */
+    private long myDraws;
+
+    /**
+     * The pieces generated by peek but not yet drawn, in stream order.
+     */
+    private final List<TetrisPiece> myPeeked;
+
+    /**
+     * The PieceSource constructor, used for an unseeded source. The seed is
+     * chosen at random and can be read back with getSeed().
+     */
+    public PieceSource() {
+        this(new SplittableRandom().nextLong());
+    }
+
+    /**
+     * The PieceSource constructor, used for a seeded, reproducible source.
+     * 
+     * @param theSeed The seed of the piece stream.
+     */
+    public PieceSource(final long theSeed) {
+        mySeed = theSeed;
+        myRandom = new SplittableRandom(theSeed);
+        myPeeked = new ArrayList<TetrisPiece>();
+    }
+
+    /**
+     * Returns the seed this PieceSource was created from.
+     * 
+     * @return The seed of the piece stream.
+     */
+    public long getSeed() {
+        return mySeed;
+    }
+
+    /**
+     * Returns the number of values drawn from this PieceSource so far.
+     * 
+     * @return The number of draws.
+     */
+    public long getDraws() {
+        return myDraws;
+    }
+
+    /**
+     * Draws the next TetrisPiece of the stream.
+     * 
+     * @return A random TetrisPiece.
+     */
+    public TetrisPiece next() {
+        myDraws++;
+        final TetrisPiece result;
+        if (myPeeked.isEmpty()) {
+            result = TetrisPiece.getRandomPiece(myRandom);
+        } else {
+            result = myPeeked.remove(0);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a TetrisPiece of the stream without drawing it.
+     * 
+     * @param theIndex The number of pieces before it, where 0 is the piece the next
+     *                 call to next() will return.
+     * @return The TetrisPiece.
+     */
+    public TetrisPiece peek(final int theIndex) {
+        while (myPeeked.size() <= theIndex) {
+            myPeeked.add(TetrisPiece.getRandomPiece(myRandom));
+        }
+        return myPeeked.get(theIndex);
+    }
+
+    /**
+     * Draws a random Rotation from the stream.
+     * 
+     * @return A random Rotation.
+     * @throws IllegalStateException if pieces have been peeked but not drawn.
+     */
+    public Rotation nextRotation() {
+        checkNotPeeked();
+        myDraws++;
+        return Rotation.random(myRandom);
+    }
+
+    /**
+     * Fast-forwards the stream by drawing and discarding pieces, so that a source
+     * whose draws were all pieces can be brought back to a recorded position.
+     * 
+     * @param theDraws The number of pieces to skip.
+     */
+    void skip(final long theDraws) {
+        for (long i = 0; i < theDraws; i++) {
+            next();
+        }
+    }
+
+    /**
+     * Creates an independent child PieceSource with SplittableRandom.split(). A split
+     * is not a draw, so it does not change the draw count.
+     * 
+     * @return A new PieceSource with its own seed.
+     * @throws IllegalStateException if pieces have been peeked but not drawn.
+     */
+    public PieceSource split() {
+        checkNotPeeked();
+        return new PieceSource(myRandom.split().nextLong());
+    }
+
+    /**
+     * Checks that no pieces have been generated ahead of the stream, since any
+     * other draw would then come out of order.
+     * 
+     * @throws IllegalStateException if pieces have been peeked but not drawn.
+     */
+    private void checkNotPeeked() {
+        if (!myPeeked.isEmpty()) {
+            throw new IllegalStateException("Peeked pieces must be drawn first");
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package model;
+
+/**
+ * The PieceState class. This class packs the full state of a movable piece -
+ * its TetrisPiece, Rotation and x/y position - into a single int, so that moving,
+ * rotating and testing pieces can be done without allocating any objects.
+ * A packed state is a plain value: every method here returns a new state and
+ * never modifies anything. MovableTetrisPiece remains the object facade over
+ * the same information.
+ *
+ * Layout (from the lowest bit): 3 bits of TetrisPiece ordinal, 2 bits of Rotation
+ * ordinal, then 12 bits each of biased x and y coordinates. Coordinates must stay
+ * within [{@link #MIN_COORDINATE}, {@link #MAX_COORDINATE}]. A packed state is
+ * never negative, so {@link #NONE} can be used to mean "no piece".
+ *
+ * @author Logan Stafford
+ * @version 1.0
+ */
+public final class PieceState {
+
+    /**
+     * A value that is never a valid packed state, used to mean "no piece".
+     */
+    public static final int NONE = -1;
+
+    /**
+     * The number of bits used by each coordinate.
+     */
+    private static final int COORDINATE_BITS = 12;
+
+    /**
+     * The bias added to each coordinate so that negative values pack as positive bits.
+     */
+    private static final int BIAS = 1 << (COORDINATE_BITS - 1);
+
+    /**
+     * The smallest coordinate that can be packed.
+     */
+    public static final int MIN_COORDINATE = -BIAS;
+
+    /**
+     * The largest coordinate that can be packed.
+     */
+    public static final int MAX_COORDINATE = BIAS - 1;
+
+    /**
+     * The bit position of the Rotation ordinal.
+     */
+    private static final int ROTATION_SHIFT = 3;
+
+    /**
+     * The bit position of the x-coordinate.
+     */
+    private static final int X_SHIFT = 5;
+
+    /**
+     * The bit position of the y-coordinate.
+     */
+    private static final int Y_SHIFT = X_SHIFT + COORDINATE_BITS;
+
+    /**
+     * The mask of the TetrisPiece ordinal.
+     */
+    private static final int PIECE_MASK = 0x7;
+
+    /**
+     * The mask of the Rotation ordinal (before shifting).
+     */
+    private static final int ROTATION_MASK = 0x3;
+
+    /**
+     * The mask of a coordinate (before shifting).
+     */
+    private static final int COORDINATE_MASK = (1 << COORDINATE_BITS) - 1;
+
+    /**
+     * The TetrisPiece values, cached to avoid copying the array on every lookup.
+     */
+    private static final TetrisPiece[] PIECES = TetrisPiece.values();
+
+    /**
+     * The Rotation values, cached to avoid copying the array on every lookup.
+     */
+    private static final Rotation[] ROTATIONS = Rotation.values();
+
+    /**
+     * A dummy constructor used to prevent instantiation.
+     */
+    private PieceState() {
+        throw new IllegalStateException();
+    }
+
+    /**
+     * Packs a piece state into an int.
+     *
+     * @param thePiece The TetrisPiece.
+     * @param theRotation The Rotation of the piece.
+     * @param theX The x-coordinate of the piece position.
+     * @param theY The y-coordinate of the piece position.
+     * @return The packed piece state.
+     */
+    public static int pack(final TetrisPiece thePiece, final Rotation theRotation,
+                           final int theX, final int theY) {
+        return thePiece.ordinal()
+               | theRotation.ordinal() << ROTATION_SHIFT
+               | (theX + BIAS) << X_SHIFT
+               | (theY + BIAS) << Y_SHIFT;
+    }
+
+    /**
+     * Returns the TetrisPiece of a packed state.
+     *
+     * @param theState The packed state.
+     * @return The TetrisPiece of the state.
+     */
+    public static TetrisPiece getPiece(final int theState) {
+        return PIECES[theState & PIECE_MASK];
+    }
+
+    /**
+     * Returns the Rotation of a packed state.
+     *
+     * @param theState The packed state.
+     * @return The Rotation of the state.
+     */
+    public static Rotation getRotation(final int theState) {
+        return ROTATIONS[theState >>> ROTATION_SHIFT & ROTATION_MASK];
+    }
+
+    /**
+     * Returns the x-coordinate of a packed state.
+     *
+     * @param theState The packed state.
+     * @return The x-coordinate of the state.
+     */
+    public static int getX(final int theState) {
+        return (theState >>> X_SHIFT & COORDINATE_MASK) - BIAS;
+    }
+
+    /**
+     * Returns the y-coordinate of a packed state.
+     *
+     * @param theState The packed state.
+     * @return The y-coordinate of the state.
+     */
+    public static int getY(final int theState) {
+        return (theState >>> Y_SHIFT & COORDINATE_MASK) - BIAS;
+    }
+
+    /**
+     * Moves a packed state by the given offsets.
+     *
+     * @param theState The packed state.
+     * @param theX The x offset.
+     * @param theY The y offset.
+     * @return The moved state.
+     */
+    public static int translate(final int theState, final int theX, final int theY) {
+        return theState + (theX << X_SHIFT) + (theY << Y_SHIFT);
+    }
+
+    /**
+     * Moves a packed state one column to the left.
+     *
+     * @param theState The packed state.
+     * @return The moved state.
+     */
+    public static int left(final int theState) {
+        return theState - (1 << X_SHIFT);
+    }
+
+    /**
+     * Moves a packed state one column to the right.
+     *
+     * @param theState The packed state.
+     * @return The moved state.
+     */
+    public static int right(final int theState) {
+        return theState + (1 << X_SHIFT);
+    }
+
+    /**
+     * Moves a packed state one row down.
+     *
+     * @param theState The packed state.
+     * @return The moved state.
+     */
+    public static int down(final int theState) {
+        return theState - (1 << Y_SHIFT);
+    }
+
+    /**
+     * Rotates a packed state 90 degrees clockwise, keeping its position.
+     *
+     * @param theState The packed state.
+     * @return The rotated state.
+     */
+    public static int rotate(final int theState) {
+        final int rotation = (theState >>> ROTATION_SHIFT) + 1 & ROTATION_MASK;
+        return theState & ~(ROTATION_MASK << ROTATION_SHIFT) | rotation << ROTATION_SHIFT;
+    }
+
+    /**
+     * Moves a packed state to a new position, keeping its piece and rotation.
+     *
+     * @param theState The packed state.
+     * @param theX The new x-coordinate.
+     * @param theY The new y-coordinate.
+     * @return The moved state.
+     */
+    public static int setPosition(final int theState, final int theX, final int theY) {
+        return theState & (PIECE_MASK | ROTATION_MASK << ROTATION_SHIFT)
+               | (theX + BIAS) << X_SHIFT
+               | (theY + BIAS) << Y_SHIFT;
+    }
+}
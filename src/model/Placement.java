@@ -0,0 +1,174 @@
+package model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The Placement class. A Placement is a resting position the current piece can
+ * be brought to and locked in, together with the Inputs that bring it there from
+ * where the piece is now and the score a Heuristic gave the board it leaves.
+ * The Inputs end with a DROP, which locks the piece.
+ *
+ * @author Logan Stafford
+ * @version 1.0
+ */
+public final class Placement {
+
+    /**
+     * The packed PieceState of the piece when it locks.
+     */
+    private final int myState;
+
+    /**
+     * The number of lines the placement clears.
+     */
+    private final int myLinesCleared;
+
+    /**
+     * The score of the placement.
+     */
+    private final double myScore;
+
+    /**
+     * The Inputs that bring the piece to the placement and lock it.
+     */
+    private final Input[] myInputs;
+
+    /**
+     * The packed PieceState of the piece before each Input.
+     */
+    private final int[] myPath;
+
+    /**
+     * The Placement constructor.
+     *
+     * @param theState The packed PieceState of the piece when it locks.
+     * @param theLinesCleared The number of lines the placement clears.
+     * @param theScore The score of the placement.
+     * @param theInputs The Inputs that bring the piece to the placement and lock it.
+     * @param thePath The packed PieceState of the piece before each Input.
+     */
+    Placement(final int theState, final int theLinesCleared, final double theScore,
+              final Input[] theInputs, final int[] thePath) {
+        myState = theState;
+        myLinesCleared = theLinesCleared;
+        myScore = theScore;
+        myInputs = theInputs;
+        myPath = thePath;
+    }
+
+    /**
+     * Returns the packed PieceState of the piece when it locks.
+     *
+     * @return The packed resting state.
+     */
+    public int getState() {
+        return myState;
+    }
+
+    /**
+     * Returns the TetrisPiece placed.
+     *
+     * @return The TetrisPiece.
+     */
+    public TetrisPiece getPiece() {
+        return PieceState.getPiece(myState);
+    }
+
+    /**
+     * Returns the Rotation of the piece when it locks.
+     *
+     * @return The Rotation.
+     */
+    public Rotation getRotation() {
+        return PieceState.getRotation(myState);
+    }
+
+    /**
+     * Returns the x-coordinate of the piece when it locks.
+     *
+     * @return The x-coordinate.
+     */
+    public int getX() {
+        return PieceState.getX(myState);
+    }
+
+    /**
+     * Returns the y-coordinate of the piece when it locks.
+     *
+     * @return The y-coordinate.
+     */
+    public int getY() {
+        return PieceState.getY(myState);
+    }
+
+    /**
+     * Returns the number of lines the placement clears.
+     *
+     * @return The number of lines cleared.
+     */
+    public int getLinesCleared() {
+        return myLinesCleared;
+    }
+
+    /**
+     * Returns the score of the placement.
+     *
+     * @return The score; higher is better.
+     */
+    public double getScore() {
+        return myScore;
+    }
+
+    /**
+     * Returns the Inputs that bring the piece to the placement and lock it.
+     *
+     * @return An unmodifiable list of Inputs ending with a DROP.
+     */
+    public List<Input> getInputs() {
+        return Collections.unmodifiableList(Arrays.asList(myInputs));
+    }
+
+    /**
+     * Returns the number of Inputs that bring the piece to the placement and lock it.
+     *
+     * @return The number of Inputs.
+     */
+    public int getInputCount() {
+        return myInputs.length;
+    }
+
+    /**
+     * Returns one of the Inputs that bring the piece to the placement.
+     *
+     * @param theIndex The index of the Input.
+     * @return The Input.
+     */
+    public Input getInput(final int theIndex) {
+        return myInputs[theIndex];
+    }
+
+    /**
+     * Returns the packed PieceState the piece should be in before one of the Inputs.
+     *
+     * @param theIndex The index of the Input.
+     * @return The packed state before the Input.
+     */
+    int getPathState(final int theIndex) {
+        return myPath[theIndex];
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(getPiece()).append(' ').append(getRotation())
+          .append(" at (").append(getX()).append(", ").append(getY()).append("), ")
+          .append(myLinesCleared).append(" lines, score ")
+          .append(String.format("%.3f", myScore)).append(": ");
+        for (final Input input : myInputs) {
+            sb.append(input.getSymbol());
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,52 @@
+package model;
+
+/**
+ * The PlacementAgent class. A PlacementAgent plays Tetris as a GameSimulator Script
+ * by choosing a Placement for each piece and feeding its Inputs one at a time.
+ * It chooses again whenever the piece is not where the plan expects it, such as
+ * after a gravity tick or when a new piece enters. Subclasses decide how a
+ * Placement is chosen.
+ *
+ * @author Logan Stafford
+ * @version 1.0
+ */
+public abstract class PlacementAgent implements GameSimulator.Script {
+
+    /**
+     * The placement being played, or null if none is planned.
+     */
+    private Placement myPlan;
+
+    /**
+     * The index of the next Input of the plan.
+     */
+    private int myStep;
+
+    /**
+     * Chooses a placement of a Board's current piece.
+     *
+     * @param theBoard The Board, which must not be modified.
+     * @return The placement to play, or null if every placement ends the game.
+     */
+    public abstract Placement choose(Board theBoard);
+
+    @Override
+    public void newGame() {
+        myPlan = null;
+    }
+
+    @Override
+    public Input nextInput(final Board theBoard) {
+        if (myPlan == null || myStep >= myPlan.getInputCount()
+            || myPlan.getPathState(myStep) != theBoard.getCurrentPieceState()) {
+            myPlan = choose(theBoard);
+            myStep = 0;
+        }
+
+        Input result = Input.DROP;
+        if (myPlan != null) {
+            result = myPlan.getInput(myStep++);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,562 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The PlacementSearch class. A PlacementSearch enumerates every resting position
+ * the current piece can reach from where it is now with the moves a Board accepts -
+ * left, right, soft drop and clockwise rotation with its wall kicks - including
+ * tucks under overhangs and kicked spins, and scores each one with a Heuristic.
+ *
+ * The search is a breadth-first search over packed PieceStates tested against the
+ * occupancy index of the board, so it allocates nothing per state. While the piece
+ * is high enough above the stack that neither it nor any kick of it can touch a
+ * block, every row behaves the same, so the search drops such a piece straight to
+ * the lowest of those rows instead of visiting each one. Placements that cover the
+ * same cells are scored once, and placements that lock above the top of the board,
+ * which would end the game, are not offered.
+ *
+ * A PlacementSearch reuses its buffers from search to search, so it is not
+ * thread-safe; use one per thread.
+ *
+ * @author Logan Stafford
+ * @version 1.0
+ */
+public final class PlacementSearch {
+
+    /**
+     * The number of extra columns and rows indexed on each side of the board, enough
+     * for any legal position of a piece whose blocks lie within a 4x4 box.
+     */
+    private static final int MARGIN = 4;
+
+    /**
+     * The number of rows above the board a piece may climb to by kicking upwards.
+     */
+    private static final int CLIMB_ROWS = 4;
+
+    /**
+     * The largest vertical offset of a wall kick.
+     */
+    private static final int MAX_KICK_Y = 2;
+
+    /**
+     * The initial capacity of the placement buffers.
+     */
+    private static final int INITIAL_PLACEMENTS = 64;
+
+    /**
+     * The number of Rotations.
+     */
+    private static final int ROTATIONS = Rotation.values().length;
+
+    /**
+     * The most rows a single piece can clear.
+     */
+    private static final int MAX_CLEAR = 4;
+
+    /**
+     * The board being searched.
+     */
+    private BitBoard myBoard;
+
+    /**
+     * The packed state the piece starts the current search in.
+     */
+    private int myStart;
+
+    /**
+     * The width of the searched boards the buffers are sized for.
+     */
+    private int myWidth;
+
+    /**
+     * The height of the searched boards the buffers are sized for.
+     */
+    private int myHeight;
+
+    /**
+     * The number of state indices per row.
+     */
+    private int myStride;
+
+    /**
+     * The number of state indices per rotation.
+     */
+    private int myRotationSize;
+
+    /**
+     * The highest y-coordinate the search visits.
+     */
+    private int myMaxY;
+
+    /**
+     * The row a piece above the stack is dropped straight to.
+     */
+    private int myFloatY;
+
+    /**
+     * The search that last visited each state; a state is visited in this search
+     * when its stamp equals myGeneration.
+     */
+    private int[] myStamps;
+
+    /**
+     * The packed state each visited state was reached from.
+     */
+    private int[] myParents;
+
+    /**
+     * The ordinal of the Input each visited state was reached by.
+     */
+    private byte[] myMoves;
+
+    /**
+     * The queue of states to expand.
+     */
+    private int[] myQueue;
+
+    /**
+     * The number of states in the queue.
+     */
+    private int myQueueSize;
+
+    /**
+     * The current search generation.
+     */
+    private int myGeneration;
+
+    /**
+     * The packed states of the placements found.
+     */
+    private int[] myPlacements;
+
+    /**
+     * The cells covered by each placement found, used to skip duplicates.
+     */
+    private long[] myFootprints;
+
+    /**
+     * The number of placements found.
+     */
+    private int myPlacementCount;
+
+    /**
+     * A scratch board the placements are locked on to be scored.
+     */
+    private final BitBoard myScratch;
+
+    /**
+     * The features of the board after the placement being scored.
+     */
+    private final BoardFeatures myFeatures;
+
+    /**
+     * The rows cleared by the placement being scored.
+     */
+    private final int[] myCleared;
+
+    /**
+     * The number of placements scored since this PlacementSearch was created.
+     */
+    private long myEvaluations;
+
+    /**
+     * The score of the placement last chosen by findBestIndex.
+     */
+    private double myBestScore;
+
+    /**
+     * The PlacementSearch constructor.
+     */
+    public PlacementSearch() {
+        myStamps = new int[0];
+        myPlacements = new int[INITIAL_PLACEMENTS];
+        myFootprints = new long[INITIAL_PLACEMENTS];
+        myScratch = new BitBoard(1, 1);
+        myFeatures = new BoardFeatures();
+        myCleared = new int[MAX_CLEAR];
+    }
+
+    /**
+     * Finds every placement of a Board's current piece.
+     *
+     * @param theBoard The Board, which is not modified.
+     * @return The number of placements found; 0 if the game is over.
+     */
+    public int search(final Board theBoard) {
+        int result = 0;
+        if (!theBoard.isGameOver() && theBoard.getCurrentPieceState() != PieceState.NONE) {
+            result = search(theBoard.getOccupancy(), theBoard.getCurrentPieceState());
+        }
+        return result;
+    }
+
+    /**
+     * Finds every placement of a piece on an occupancy index.
+     *
+     * @param theBoard The occupancy index, which is not modified until the next search.
+     * @param theStart The packed state of the piece to place.
+     * @return The number of placements found; 0 if the piece is blocked.
+     */
+    int search(final BitBoard theBoard, final int theStart) {
+        myBoard = theBoard;
+        myStart = theStart;
+        myPlacementCount = 0;
+        myQueueSize = 0;
+        prepare(theBoard.getWidth(), theBoard.getHeight());
+
+        final TetrisPiece piece = PieceState.getPiece(theStart);
+        int maxHeight = 0;
+        for (int x = 0; x < myWidth; x++) {
+            maxHeight = Math.max(maxHeight, theBoard.getColumnHeight(x));
+        }
+        int lowest = Integer.MAX_VALUE;
+        for (final Rotation rotation : Rotation.values()) {
+            lowest = Math.min(lowest, piece.getMinY(rotation));
+        }
+        myFloatY = maxHeight + MAX_KICK_Y - lowest;
+
+        visit(theStart, PieceState.NONE, Input.DOWN);
+        for (int head = 0; head < myQueueSize; head++) {
+            expand(myQueue[head]);
+        }
+        return myPlacementCount;
+    }
+
+    /**
+     * Returns the number of placements found by the last search.
+     *
+     * @return The number of placements.
+     */
+    public int getPlacementCount() {
+        return myPlacementCount;
+    }
+
+    /**
+     * Returns one of the placements found by the last search.
+     *
+     * @param theIndex The index of the placement.
+     * @return The packed PieceState of the piece when it locks.
+     */
+    public int getPlacementState(final int theIndex) {
+        return myPlacements[theIndex];
+    }
+
+    /**
+     * Finds a placement of the last search by its resting state.
+     *
+     * @param theState The packed resting state.
+     * @return The index of the placement, or -1 if the last search did not find it.
+     */
+    int indexOf(final int theState) {
+        int result = -1;
+        for (int i = 0; i < myPlacementCount && result < 0; i++) {
+            if (myPlacements[i] == theState) {
+                result = i;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of placements scored since this PlacementSearch was created.
+     *
+     * @return The number of placements scored.
+     */
+    public long getEvaluations() {
+        return myEvaluations;
+    }
+
+    /**
+     * Finds the placement of a Board's current piece with the highest score.
+     *
+     * @param theBoard The Board, which is not modified.
+     * @param theHeuristic The Heuristic to score placements with.
+     * @return The best placement, or null if the piece cannot be placed without
+     *         ending the game.
+     */
+    public Placement findBest(final Board theBoard, final Heuristic theHeuristic) {
+        Placement result = null;
+        if (search(theBoard) > 0) {
+            result = findBest(theHeuristic);
+        }
+        return result;
+    }
+
+    /**
+     * Scores every placement found by the last search and returns the best.
+     *
+     * @param theHeuristic The Heuristic to score placements with.
+     * @return The best placement, or null if none were found.
+     */
+    Placement findBest(final Heuristic theHeuristic) {
+        final int best = findBestIndex(theHeuristic);
+        Placement result = null;
+        if (best >= 0) {
+            result = getPlacement(best, place(best, myScratch), myBestScore);
+        }
+        return result;
+    }
+
+    /**
+     * Scores every placement found by the last search and returns the index of the
+     * best, without allocating.
+     *
+     * @param theHeuristic The Heuristic to score placements with.
+     * @return The index of the best placement, or -1 if none were found.
+     */
+    int findBestIndex(final Heuristic theHeuristic) {
+        int result = -1;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < myPlacementCount; i++) {
+            final double score = evaluate(myScratch, place(i, myScratch), theHeuristic);
+            if (result < 0 || score > bestScore) {
+                result = i;
+                bestScore = score;
+            }
+        }
+        myBestScore = bestScore;
+        return result;
+    }
+
+    /**
+     * Returns the score of the placement last chosen by findBestIndex.
+     *
+     * @return The best score.
+     */
+    double getBestScore() {
+        return myBestScore;
+    }
+
+    /**
+     * Locks one of the placements found by the last search on a copy of the searched board.
+     *
+     * @param theIndex The index of the placement.
+     * @param theResult Set to the searched board with the placement locked.
+     * @return The number of lines the placement clears.
+     */
+    int place(final int theIndex, final BitBoard theResult) {
+        final int state = myPlacements[theIndex];
+        theResult.copyFrom(myBoard);
+        return theResult.lock(PieceState.getPiece(state), PieceState.getRotation(state),
+                              PieceState.getX(state), PieceState.getY(state), myCleared);
+    }
+
+    /**
+     * Scores a board with a Heuristic.
+     *
+     * @param theBoard The board after a placement.
+     * @param theLinesCleared The number of lines the placement cleared.
+     * @param theHeuristic The Heuristic.
+     * @return The score of the board.
+     */
+    double evaluate(final BitBoard theBoard, final int theLinesCleared,
+                    final Heuristic theHeuristic) {
+        myEvaluations++;
+        myFeatures.compute(theBoard, theLinesCleared);
+        return theHeuristic.evaluate(myFeatures);
+    }
+
+    /**
+     * Builds a Placement for one of the placements found by the last search,
+     * with the Inputs that reach it from the start of the search.
+     *
+     * @param theIndex The index of the placement.
+     * @param theLinesCleared The number of lines the placement clears.
+     * @param theScore The score of the placement.
+     * @return The Placement.
+     */
+    Placement getPlacement(final int theIndex, final int theLinesCleared,
+                           final double theScore) {
+        /* Walk back to the start, then replay the moves forwards. */
+        final int target = myPlacements[theIndex];
+        final List<Integer> chain = new ArrayList<Integer>();
+        for (int state = target; state != myStart; state = myParents[getIndex(state)]) {
+            chain.add(state);
+        }
+
+        final List<Input> inputs = new ArrayList<Input>();
+        final List<Integer> path = new ArrayList<Integer>();
+        int from = myStart;
+        for (int i = chain.size() - 1; i >= 0; i--) {
+            final int to = chain.get(i);
+            final Input move = Input.valueOf(myMoves[getIndex(to)]);
+            if (move == Input.DOWN) {
+                for (int y = PieceState.getY(from); y > PieceState.getY(to); y--) {
+                    path.add(PieceState.setPosition(from, PieceState.getX(from), y));
+                    inputs.add(Input.DOWN);
+                }
+            } else {
+                path.add(from);
+                inputs.add(move);
+            }
+            from = to;
+        }
+
+        /* The soft drops that end the path are one hard drop, which also locks the piece. */
+        int beforeDrop = target;
+        while (!inputs.isEmpty() && inputs.get(inputs.size() - 1) == Input.DOWN) {
+            inputs.remove(inputs.size() - 1);
+            beforeDrop = path.remove(path.size() - 1);
+        }
+        inputs.add(Input.DROP);
+        path.add(beforeDrop);
+
+        final int[] states = new int[path.size()];
+        for (int i = 0; i < states.length; i++) {
+            states[i] = path.get(i);
+        }
+        return new Placement(target, theLinesCleared, theScore,
+                             inputs.toArray(new Input[inputs.size()]), states);
+    }
+
+    /**
+     * Visits every state one move away from a state, and records the state as a
+     * placement if it cannot move down.
+     *
+     * @param theState The packed state to expand.
+     */
+    private void expand(final int theState) {
+        visit(PieceState.left(theState), theState, Input.LEFT);
+        visit(PieceState.right(theState), theState, Input.RIGHT);
+
+        /* Rotate as Board.rotate does: the first legal kick wins. */
+        final int rotated = PieceState.rotate(theState);
+        final TetrisPiece piece = PieceState.getPiece(theState);
+        if (piece == TetrisPiece.O) {
+            visit(rotated, theState, Input.ROTATE);
+        } else {
+            final Rotation from = PieceState.getRotation(theState);
+            final Rotation to = PieceState.getRotation(rotated);
+            final int kicks = WallKick.getKickCount(piece, from, to);
+            for (int i = 0; i < kicks; i++) {
+                final int kicked = PieceState.translate(rotated,
+                                                        WallKick.getKickX(piece, from, to, i),
+                                                        WallKick.getKickY(piece, from, to, i));
+                if (!collides(kicked)) {
+                    visit(kicked, theState, Input.ROTATE);
+                    break;
+                }
+            }
+        }
+
+        final int y = PieceState.getY(theState);
+        if (y - 1 > myFloatY) {
+            visit(PieceState.setPosition(theState, PieceState.getX(theState), myFloatY),
+                  theState, Input.DOWN);
+        } else if (collides(PieceState.down(theState))) {
+            addPlacement(theState);
+        } else {
+            visit(PieceState.down(theState), theState, Input.DOWN);
+        }
+    }
+
+    /**
+     * Queues a state if it is legal and has not been visited by this search.
+     *
+     * @param theState The packed state.
+     * @param theParent The packed state it is reached from.
+     * @param theMove The Input that reaches it.
+     */
+    private void visit(final int theState, final int theParent, final Input theMove) {
+        if (PieceState.getY(theState) <= myMaxY) {
+            final int index = getIndex(theState);
+            if (myStamps[index] != myGeneration) {
+                myStamps[index] = myGeneration;
+                if (!collides(theState)) {
+                    myParents[index] = theParent;
+                    myMoves[index] = (byte) theMove.ordinal();
+                    myQueue[myQueueSize++] = theState;
+                }
+            }
+        }
+    }
+
+    /**
+     * Records a resting state as a placement, unless it locks above the top of
+     * the board or covers the same cells as a placement already found.
+     *
+     * @param theState The packed resting state.
+     */
+    private void addPlacement(final int theState) {
+        final TetrisPiece piece = PieceState.getPiece(theState);
+        final Rotation rotation = PieceState.getRotation(theState);
+        final int y = PieceState.getY(theState);
+        if (y + piece.getMaxY(rotation) < myHeight) {
+            final int minX = piece.getMinX(rotation);
+            final int minY = piece.getMinY(rotation);
+            long footprint = (long) (y + minY) << Integer.SIZE
+                             | (long) (PieceState.getX(theState) + minX) << Short.SIZE;
+            for (int row = minY; row <= piece.getMaxY(rotation); row++) {
+                footprint |= (piece.getRowMask(rotation, row) >>> minX) << (MARGIN * (row - minY));
+            }
+
+            boolean duplicate = false;
+            for (int i = 0; i < myPlacementCount && !duplicate; i++) {
+                duplicate = myFootprints[i] == footprint;
+            }
+            if (!duplicate) {
+                if (myPlacementCount == myPlacements.length) {
+                    myPlacements = Arrays.copyOf(myPlacements, myPlacementCount * 2);
+                    myFootprints = Arrays.copyOf(myFootprints, myPlacementCount * 2);
+                }
+                myPlacements[myPlacementCount] = theState;
+                myFootprints[myPlacementCount] = footprint;
+                myPlacementCount++;
+            }
+        }
+    }
+
+    /**
+     * Determines if a state is illegal on the searched board.
+     *
+     * @param theState The packed state.
+     * @return True if the piece would leave the board or overlap a block.
+     */
+    private boolean collides(final int theState) {
+        return myBoard.collides(PieceState.getPiece(theState), PieceState.getRotation(theState),
+                                PieceState.getX(theState), PieceState.getY(theState));
+    }
+
+    /**
+     * Returns the index of a state in the search buffers.
+     *
+     * @param theState The packed state, which must be legal on the searched board.
+     * @return The index of the state.
+     */
+    private int getIndex(final int theState) {
+        return PieceState.getRotation(theState).ordinal() * myRotationSize
+               + (PieceState.getY(theState) + MARGIN) * myStride
+               + PieceState.getX(theState) + MARGIN;
+    }
+
+    /**
+     * Starts a new search generation, resizing the buffers for the board if needed.
+     *
+     * @param theWidth The width of the board.
+     * @param theHeight The height of the board.
+     */
+    private void prepare(final int theWidth, final int theHeight) {
+        if (theWidth != myWidth || theHeight != myHeight) {
+            myWidth = theWidth;
+            myHeight = theHeight;
+            myStride = theWidth + 2 * MARGIN;
+            myMaxY = theHeight + CLIMB_ROWS;
+            myRotationSize = (myMaxY + 1 + MARGIN) * myStride;
+            final int size = ROTATIONS * myRotationSize;
+            myStamps = new int[size];
+            myParents = new int[size];
+            myMoves = new byte[size];
+            myQueue = new int[size];
+            myGeneration = 0;
+        }
+        myGeneration++;
+        if (myGeneration == 0) {
+            Arrays.fill(myStamps, 0);
+            myGeneration = 1;
+        }
+    }
+}
@@ -0,0 +1,470 @@
+package model;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The Replay class. A Replay is a recorded game: the size of the board, the seed
+ * of its PieceSource and the timestamped stream of Inputs (player moves and gravity
+ * ticks) that were applied to it. Since a Board is fully determined by its seed and
+ * its Inputs, playing the stream back on a fresh Board reproduces the game exactly.
+ * A Replay is immutable.
+ *
+ * The binary format is compact: a short header followed by one unsigned LEB128
+ * varint per event, holding the milliseconds since the previous event shifted left
+ * by {@link #INPUT_BITS} bits, ORed with the Input ordinal. Most events of a live
+ * game fit in one or two bytes.
+ *
+ * Beside the event stream a Replay can carry a seek index of Keyframes, full
+ * board snapshots taken every few locked pieces, so that a player can jump into a
+ * long game without re-simulating it from the first piece.
+ *
+ * <pre>
+ * magic "CTRP", version byte, varint width, varint height, 8-byte seed,
+ * varint event count, events...,
+ * varint keyframe count, keyframes... (each: varint event index, varint stream
+ * offset, varint time, varint snapshot length, snapshot bytes)
+ * </pre>
+ *
+ * @author Logan Stafford
+ * @version 1.0
+ */
+public final class Replay {
+
+    /**
+     * The number of low bits of an event that hold the Input ordinal.
+     */
+    static final int INPUT_BITS = 3;
+
+    /**
+     * The mask of the Input ordinal in an event.
+     */
+    static final int INPUT_MASK = (1 << INPUT_BITS) - 1;
+
+    /**
+     * The bytes that start every encoded Replay.
+     */
+    private static final byte[] MAGIC = {'C', 'T', 'R', 'P'};
+
+    /**
+     * The version of the binary format written by this class.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The number of payload bits in each varint byte.
+     */
+    private static final int VARINT_BITS = 7;
+
+    /**
+     * The mask of the payload bits of a varint byte.
+     */
+    private static final int VARINT_PAYLOAD = 0x7F;
+
+    /**
+     * The continuation bit of a varint byte.
+     */
+    private static final int VARINT_MORE = 0x80;
+
+    /**
+     * The most bytes a varint of a long can take.
+     */
+    static final int MAX_VARINT_BYTES = 10;
+
+    /**
+     * The width of the recorded board.
+     */
+    private final int myWidth;
+
+    /**
+     * The height of the recorded board.
+     */
+    private final int myHeight;
+
+    /**
+     * The seed of the recorded game's PieceSource.
+     */
+    private final long mySeed;
+
+    /**
+     * The number of recorded events.
+     */
+    private final int myEventCount;
+
+    /**
+     * The encoded events; never modified or exposed.
+     */
+    private final byte[] myEvents;
+
+    /**
+     * The seek index, in ascending event order; never modified.
+     */
+    private final List<Keyframe> myKeyframes;
+
+    /**
+     * The Replay constructor.
+     *
+     * @param theWidth The width of the recorded board.
+     * @param theHeight The height of the recorded board.
+     * @param theSeed The seed of the recorded game's PieceSource.
+     * @param theEventCount The number of recorded events.
+     * @param theEvents The encoded events, which the Replay takes ownership of.
+     * @param theKeyframes The seek index in ascending event order, which the Replay
+     *                     takes ownership of.
+     */
+    Replay(final int theWidth, final int theHeight, final long theSeed,
+           final int theEventCount, final byte[] theEvents, final List<Keyframe> theKeyframes) {
+        myWidth = theWidth;
+        myHeight = theHeight;
+        mySeed = theSeed;
+        myEventCount = theEventCount;
+        myEvents = theEvents;
+        myKeyframes = Collections.unmodifiableList(theKeyframes);
+    }
+
+    /**
+     * Returns the width of the recorded board.
+     *
+     * @return The width of the recorded board.
+     */
+    public int getWidth() {
+        return myWidth;
+    }
+
+    /**
+     * Returns the height of the recorded board.
+     *
+     * @return The height of the recorded board.
+     */
+    public int getHeight() {
+        return myHeight;
+    }
+
+    /**
+     * Returns the seed of the recorded game's PieceSource.
+     *
+     * @return The seed of the recorded game.
+     */
+    public long getSeed() {
+        return mySeed;
+    }
+
+    /**
+     * Returns the number of recorded events.
+     *
+     * @return The number of Inputs in the recording, including gravity ticks.
+     */
+    public int getEventCount() {
+        return myEventCount;
+    }
+
+    /**
+     * Returns the encoded events without copying them; callers must not modify them.
+     *
+     * @return The encoded events.
+     */
+    byte[] getEvents() {
+        return myEvents;
+    }
+
+    /**
+     * Returns the seek index of this Replay.
+     *
+     * @return An unmodifiable List of Keyframes in ascending event order; empty if the
+     *         Replay has no seek index.
+     */
+    public List<Keyframe> getKeyframes() {
+        return myKeyframes;
+    }
+
+    /**
+     * Finds the last Keyframe at or before an event.
+     *
+     * @param theEventIndex The index of the event to seek to.
+     * @return The last Keyframe whose event index is at most theEventIndex, or null.
+     */
+    public Keyframe findKeyframe(final int theEventIndex) {
+        int low = 0;
+        int high = myKeyframes.size() - 1;
+        Keyframe result = null;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final Keyframe keyframe = myKeyframes.get(middle);
+            if (keyframe.getEventIndex() <= theEventIndex) {
+                result = keyframe;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds the last Keyframe at or before a recorded time.
+     *
+     * @param theTime The time to seek to, in milliseconds since the game started.
+     * @return The last Keyframe whose time is at most theTime, or null.
+     */
+    public Keyframe findKeyframeAtTime(final long theTime) {
+        int low = 0;
+        int high = myKeyframes.size() - 1;
+        Keyframe result = null;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final Keyframe keyframe = myKeyframes.get(middle);
+            if (keyframe.getTime() <= theTime) {
+                result = keyframe;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Encodes this Replay in the binary format.
+     *
+     * @return The encoded Replay.
+     */
+    public byte[] toByteArray() {
+        final byte[][] snapshots = new byte[myKeyframes.size()][];
+        int keyframeBytes = 0;
+        for (int i = 0; i < snapshots.length; i++) {
+            snapshots[i] = myKeyframes.get(i).getSnapshot().toByteArray();
+            keyframeBytes += 4 * MAX_VARINT_BYTES + snapshots[i].length;
+        }
+        final byte[] result = new byte[MAGIC.length + 1 + 4 * MAX_VARINT_BYTES + Long.BYTES
+                                       + myEvents.length + keyframeBytes];
+        System.arraycopy(MAGIC, 0, result, 0, MAGIC.length);
+        int position = MAGIC.length;
+        result[position++] = VERSION;
+        position = putVarint(result, position, myWidth);
+        position = putVarint(result, position, myHeight);
+        position = putLong(result, position, mySeed);
+        position = putVarint(result, position, myEventCount);
+        System.arraycopy(myEvents, 0, result, position, myEvents.length);
+        position += myEvents.length;
+        position = putVarint(result, position, snapshots.length);
+        for (int i = 0; i < snapshots.length; i++) {
+            final Keyframe keyframe = myKeyframes.get(i);
+            position = putVarint(result, position, keyframe.getEventIndex());
+            position = putVarint(result, position, keyframe.getOffset());
+            position = putVarint(result, position, keyframe.getTime());
+            position = putVarint(result, position, snapshots[i].length);
+            System.arraycopy(snapshots[i], 0, result, position, snapshots[i].length);
+            position += snapshots[i].length;
+        }
+        return Arrays.copyOf(result, position);
+    }
+
+    /**
+     * Decodes a Replay from the binary format, checking that every event is well formed.
+     *
+     * @param theBytes The encoded Replay.
+     * @return The decoded Replay.
+     * @throws IllegalArgumentException if the bytes are not a valid Replay.
+     */
+    public static Replay fromByteArray(final byte[] theBytes) {
+        if (theBytes.length < MAGIC.length + 1
+            || !Arrays.equals(MAGIC, Arrays.copyOf(theBytes, MAGIC.length))) {
+            throw new IllegalArgumentException("Not a replay");
+        }
+        final int version = theBytes[MAGIC.length];
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported replay version: "
+                                               + theBytes[MAGIC.length]);
+        }
+        final int[] position = {MAGIC.length + 1};
+        final int width = (int) getVarint(theBytes, position);
+        final int height = (int) getVarint(theBytes, position);
+        final long seed = getLong(theBytes, position);
+        final int eventCount = (int) getVarint(theBytes, position);
+
+        final int start = position[0];
+        for (int i = 0; i < eventCount; i++) {
+            final long event = getVarint(theBytes, position);
+            if ((event & INPUT_MASK) >= Input.values().length) {
+                throw new IllegalArgumentException("Unknown input in event " + i);
+            }
+        }
+        final int end = position[0];
+
+        final List<Keyframe> keyframes = new ArrayList<Keyframe>();
+        final int count = (int) getVarint(theBytes, position);
+        int previous = -1;
+        for (int i = 0; i < count; i++) {
+            final int eventIndex = (int) getVarint(theBytes, position);
+            final int offset = (int) getVarint(theBytes, position);
+            final long time = getVarint(theBytes, position);
+            final int length = (int) getVarint(theBytes, position);
+            if (eventIndex <= previous || eventIndex > eventCount || length < 0
+                || length > theBytes.length - position[0]) {
+                throw new IllegalArgumentException("Malformed keyframe " + i);
+            }
+            final BoardSnapshot snapshot = BoardSnapshot.fromByteArray(
+                Arrays.copyOfRange(theBytes, position[0], position[0] + length));
+            position[0] += length;
+            keyframes.add(new Keyframe(eventIndex, offset, time, snapshot));
+            previous = eventIndex;
+        }
+        if (position[0] != theBytes.length) {
+            throw new IllegalArgumentException("Trailing bytes at the end of the replay");
+        }
+        checkOffsets(theBytes, start, keyframes);
+        return new Replay(width, height, seed, eventCount,
+                          Arrays.copyOfRange(theBytes, start, end), keyframes);
+    }
+
+    /**
+     * Checks that every Keyframe's offset is where its event starts in the stream, so
+     * that seeking to it resumes on an event boundary.
+     *
+     * @param theBytes The encoded Replay, whose events are already checked.
+     * @param theStart The position of the first event.
+     * @param theKeyframes The Keyframes, in ascending event order.
+     * @throws IllegalArgumentException if an offset does not match its event index.
+     */
+    private static void checkOffsets(final byte[] theBytes, final int theStart,
+                                     final List<Keyframe> theKeyframes) {
+        final int[] position = {theStart};
+        int event = 0;
+        for (int i = 0; i < theKeyframes.size(); i++) {
+            final Keyframe keyframe = theKeyframes.get(i);
+            while (event < keyframe.getEventIndex()) {
+                getVarint(theBytes, position);
+                event++;
+            }
+            if (position[0] - theStart != keyframe.getOffset()) {
+                throw new IllegalArgumentException("Malformed keyframe " + i);
+            }
+        }
+    }
+
+    /**
+     * Writes this Replay to a file in the binary format.
+     *
+     * @param thePath The file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    public void write(final Path thePath) throws IOException {
+        Files.write(thePath, toByteArray());
+    }
+
+    /**
+     * Reads a Replay from a file in the binary format.
+     *
+     * @param thePath The file to read.
+     * @return The Replay in the file.
+     * @throws IOException if the file cannot be read.
+     * @throws IllegalArgumentException if the file is not a valid Replay.
+     */
+    public static Replay read(final Path thePath) throws IOException {
+        return fromByteArray(Files.readAllBytes(thePath));
+    }
+
+    /**
+     * Encodes a single event.
+     *
+     * @param theDelta The milliseconds since the previous event; must not be negative.
+     * @param theInput The Input of the event.
+     * @return The event, ready to be written as a varint.
+     */
+    static long encodeEvent(final long theDelta, final Input theInput) {
+        return theDelta << INPUT_BITS | theInput.ordinal();
+    }
+
+    /**
+     * Writes an unsigned varint into a buffer, which must have room for
+     * {@link #MAX_VARINT_BYTES} more bytes.
+     *
+     * @param theBuffer The buffer to write into.
+     * @param thePosition The position of the first byte to write.
+     * @param theValue The value to write, treated as unsigned.
+     * @return The position after the last byte written.
+     */
+    static int putVarint(final byte[] theBuffer, final int thePosition, final long theValue) {
+        int position = thePosition;
+        long value = theValue;
+        while ((value & ~VARINT_PAYLOAD) != 0) {
+            theBuffer[position++] = (byte) (value & VARINT_PAYLOAD | VARINT_MORE);
+            value >>>= VARINT_BITS;
+        }
+        theBuffer[position++] = (byte) value;
+        return position;
+    }
+
+    /**
+     * Reads an unsigned varint from a buffer.
+     *
+     * @param theBuffer The buffer to read from.
+     * @param thePosition A one-element array holding the position of the first byte
+     *                    to read, which is advanced past the varint.
+     * @return The value read.
+     * @throws IllegalArgumentException if the varint is truncated or too long.
+     */
+    static long getVarint(final byte[] theBuffer, final int[] thePosition) {
+        long result = 0;
+        int shift = 0;
+        int b;
+        do {
+            if (thePosition[0] >= theBuffer.length || shift >= Long.SIZE) {
+                throw new IllegalArgumentException("Malformed varint at "
+                                                   + thePosition[0]);
+            }
+            b = theBuffer[thePosition[0]++];
+            result |= (long) (b & VARINT_PAYLOAD) << shift;
+            shift += VARINT_BITS;
+        } while ((b & VARINT_MORE) != 0);
+        return result;
+    }
+
+    /**
+     * Writes a long into a buffer as eight big-endian bytes.
+     *
+     * @param theBuffer The buffer to write into.
+     * @param thePosition The position of the first byte to write.
+     * @param theValue The value to write.
+     * @return The position after the last byte written.
+     */
+    static int putLong(final byte[] theBuffer, final int thePosition, final long theValue) {
+        int position = thePosition;
+        for (int shift = Long.SIZE - Byte.SIZE; shift >= 0; shift -= Byte.SIZE) {
+            theBuffer[position++] = (byte) (theValue >>> shift);
+        }
+        return position;
+    }
+
+    /**
+     * Reads a long written by putLong from a buffer.
+     *
+     * @param theBuffer The buffer to read from.
+     * @param thePosition A one-element array holding the position of the first byte
+     *                    to read, which is advanced past the long.
+     * @return The value read.
+     * @throws IllegalArgumentException if the buffer ends before the long.
+     */
+    static long getLong(final byte[] theBuffer, final int[] thePosition) {
+        if (thePosition[0] + Long.BYTES > theBuffer.length) {
+            throw new IllegalArgumentException("Truncated long at " + thePosition[0]);
+        }
+        long result = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            result = result << Byte.SIZE | theBuffer[thePosition[0]++] & 0xFF;
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Replay %dx%d, seed %d, %d events (%d bytes), %d keyframes",
+                             myWidth, myHeight, mySeed, myEventCount, myEvents.length,
+                             myKeyframes.size());
+    }
+}
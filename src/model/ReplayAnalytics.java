@@ -0,0 +1,426 @@
+package model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * The ReplayAnalytics class. ReplayAnalytics replays recorded games on headless
+ * Boards, one game per fork-join task, and aggregates statistics over all of them:
+ * replay throughput, the pace of the recorded play, lines by clear size, holes
+ * under the stack after every locked piece, and a heatmap of cell occupancy per
+ * board size.
+ *
+ * Each task tallies its game in plain local counters and adds them to shared
+ * LongAdder accumulators once the game ends, so tasks never contend on a hot
+ * counter. Games can be added from any number of threads at once.
+ *
+ * @author Logan Stafford
+ * @version 1.0
+ */
+public final class ReplayAnalytics {
+
+    /**
+     * The number of nanoseconds in a second.
+     */
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    /**
+     * The number of milliseconds in a second.
+     */
+    private static final double MILLIS_PER_SECOND = 1e3;
+
+    /**
+     * The most rows a single piece can clear.
+     */
+    private static final int MAX_CLEAR = 4;
+
+    /**
+     * The number of games analyzed.
+     */
+    private final LongAdder myGames = new LongAdder();
+
+    /**
+     * The number of events replayed.
+     */
+    private final LongAdder myEvents = new LongAdder();
+
+    /**
+     * The number of pieces locked.
+     */
+    private final LongAdder myPieces = new LongAdder();
+
+    /**
+     * The number of lines cleared.
+     */
+    private final LongAdder myLines = new LongAdder();
+
+    /**
+     * The number of clears of each size, indexed by the number of rows cleared.
+     */
+    private final LongAdder[] myClears = createAdders(MAX_CLEAR + 1);
+
+    /**
+     * The sum of the holes counted after every locked piece.
+     */
+    private final LongAdder myHoles = new LongAdder();
+
+    /**
+     * The sum of the holes left on the final boards.
+     */
+    private final LongAdder myFinalHoles = new LongAdder();
+
+    /**
+     * The CPU time spent replaying and analyzing games, summed over all tasks.
+     */
+    private final LongAdder myNanos = new LongAdder();
+
+    /**
+     * The recorded duration of the games in milliseconds.
+     */
+    private final LongAdder myRecordedMillis = new LongAdder();
+
+    /**
+     * The occupancy heatmaps, keyed by board size. Each holds one count per cell,
+     * row by row from the bottom, followed by the number of boards sampled.
+     */
+    private final Map<Long, LongAdder[]> myHeatmaps = new ConcurrentHashMap<Long, LongAdder[]>();
+
+    /**
+     * Analyzes a number of games in parallel, one game per fork-join task.
+     *
+     * @param theReplays Supplies the Replay of each game by index; called from many threads.
+     * @param theCount The number of games.
+     * @param theParallelism The number of worker threads.
+     * @return The analytics of the games.
+     */
+    public static ReplayAnalytics analyze(final IntFunction<Replay> theReplays,
+                                          final int theCount, final int theParallelism) {
+        final ReplayAnalytics result = new ReplayAnalytics();
+        final ForkJoinPool pool = new ForkJoinPool(theParallelism);
+        try {
+            pool.submit(() -> IntStream.range(0, theCount).parallel()
+                            .forEach(i -> result.add(theReplays.apply(i)))).get();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Analysis interrupted", ex);
+        } catch (final ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new IllegalStateException(ex.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        return result;
+    }
+
+    /**
+     * Analyzes a list of games in parallel on every available core.
+     *
+     * @param theReplays The Replays of the games.
+     * @return The analytics of the games.
+     */
+    public static ReplayAnalytics analyze(final List<Replay> theReplays) {
+        return analyze(theReplays::get, theReplays.size(),
+                       Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Analyzes every game of an archive in parallel.
+     *
+     * @param theArchive The archive of the games.
+     * @param theParallelism The number of worker threads.
+     * @return The analytics of the games.
+     * @throws UncheckedIOException if a game cannot be read.
+     */
+    public static ReplayAnalytics analyze(final ReplayArchive theArchive,
+                                          final int theParallelism) {
+        return analyze(i -> {
+            try {
+                return theArchive.getReplay(i);
+            } catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }, theArchive.getEntryCount(), theParallelism);
+    }
+
+    /**
+     * Replays a game on a headless Board and adds its statistics. Thread-safe.
+     *
+     * @param theReplay The Replay of the game.
+     */
+    public void add(final Replay theReplay) {
+        final long start = System.nanoTime();
+        final ReplayPlayer player = new ReplayPlayer(theReplay);
+        final Board board = player.getBoard();
+        final int width = board.getWidth();
+        final int height = board.getHeight();
+        final long[] heat = new long[width * height];
+        final long[] clears = new long[MAX_CLEAR + 1];
+        long holes = 0;
+
+        int pieces = 0;
+        int lines = 0;
+        while (player.step()) {
+            if (board.getPiecesFrozen() != pieces) {
+                pieces = board.getPiecesFrozen();
+                clears[Math.min(board.getLinesCleared() - lines, MAX_CLEAR)]++;
+                lines = board.getLinesCleared();
+                holes += countHoles(board, heat);
+            }
+        }
+        final long finalHoles = countHoles(board, null);
+
+        myGames.increment();
+        myEvents.add(player.getEventIndex());
+        myPieces.add(pieces);
+        myLines.add(lines);
+        for (int size = 1; size <= MAX_CLEAR; size++) {
+            myClears[size].add(clears[size]);
+        }
+        myHoles.add(holes);
+        myFinalHoles.add(finalHoles);
+        myRecordedMillis.add(player.getTime());
+
+        final LongAdder[] heatmap = myHeatmaps.computeIfAbsent(getSizeKey(width, height),
+                                                          key -> createAdders(heat.length + 1));
+        for (int cell = 0; cell < heat.length; cell++) {
+            if (heat[cell] != 0) {
+                heatmap[cell].add(heat[cell]);
+            }
+        }
+        heatmap[heat.length].add(pieces);
+        myNanos.add(System.nanoTime() - start);
+    }
+
+    /**
+     * Returns the number of games analyzed.
+     *
+     * @return The number of games.
+     */
+    public long getGames() {
+        return myGames.sum();
+    }
+
+    /**
+     * Returns the number of events replayed.
+     *
+     * @return The number of Inputs replayed, including gravity ticks.
+     */
+    public long getEvents() {
+        return myEvents.sum();
+    }
+
+    /**
+     * Returns the number of pieces locked over all games.
+     *
+     * @return The number of pieces.
+     */
+    public long getPieces() {
+        return myPieces.sum();
+    }
+
+    /**
+     * Returns the number of lines cleared over all games.
+     *
+     * @return The number of lines.
+     */
+    public long getLines() {
+        return myLines.sum();
+    }
+
+    /**
+     * Returns how many pieces cleared a given number of rows at once.
+     *
+     * @param theSize The number of rows cleared, from 1 to 4.
+     * @return The number of clears of that size.
+     */
+    public long getClears(final int theSize) {
+        return myClears[theSize].sum();
+    }
+
+    /**
+     * Returns the average number of holes - empty cells below the top of their
+     * column - on the board after a piece locks.
+     *
+     * @return The average holes per locked piece.
+     */
+    public double getAverageHoles() {
+        return ratio(myHoles.sum(), myPieces.sum());
+    }
+
+    /**
+     * Returns the average number of holes on the final boards.
+     *
+     * @return The average holes per game.
+     */
+    public double getAverageFinalHoles() {
+        return ratio(myFinalHoles.sum(), myGames.sum());
+    }
+
+    /**
+     * Returns the replay throughput: pieces replayed and analyzed per second of
+     * CPU time of the analysis tasks.
+     *
+     * @return The replayed pieces per CPU second.
+     */
+    public double getReplayPiecesPerSecond() {
+        return ratio(myPieces.sum() * NANOS_PER_SECOND, myNanos.sum());
+    }
+
+    /**
+     * Returns the pace of the recorded play: pieces locked per second of recorded time.
+     *
+     * @return The recorded pieces per second.
+     */
+    public double getRecordedPiecesPerSecond() {
+        return ratio(myPieces.sum() * MILLIS_PER_SECOND, myRecordedMillis.sum());
+    }
+
+    /**
+     * Returns the occupancy heatmap of a board size: for each cell, the fraction of
+     * locked pieces after which the cell was occupied.
+     *
+     * @param theWidth The board width.
+     * @param theHeight The board height.
+     * @return The occupancy of each cell, row by row from the bottom, or null if no
+     *         game of that size was analyzed.
+     */
+    public double[] getHeatmap(final int theWidth, final int theHeight) {
+        final LongAdder[] heatmap = myHeatmaps.get(getSizeKey(theWidth, theHeight));
+        double[] result = null;
+        if (heatmap != null) {
+            final long samples = heatmap[heatmap.length - 1].sum();
+            result = new double[heatmap.length - 1];
+            for (int cell = 0; cell < result.length; cell++) {
+                result[cell] = ratio(heatmap[cell].sum(), samples);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%d games, %d events, %d pieces, %d lines%n",
+                                getGames(), getEvents(), getPieces(), getLines()));
+        sb.append(String.format("replay %.0f pieces/s (per CPU), recorded play %.2f pieces/s%n",
+                                getReplayPiecesPerSecond(), getRecordedPiecesPerSecond()));
+        sb.append("clears by size:");
+        for (int size = 1; size <= MAX_CLEAR; size++) {
+            sb.append(' ').append(size).append('=').append(getClears(size));
+        }
+        sb.append(String.format("%nholes: %.2f per locked piece, %.2f on the final board%n",
+                                getAverageHoles(), getAverageFinalHoles()));
+        for (final Long key : myHeatmaps.keySet()) {
+            final int width = (int) (key >>> Integer.SIZE);
+            final int height = key.intValue();
+            final double[] heatmap = getHeatmap(width, height);
+            sb.append(String.format("occupancy heatmap %dx%d (%% of locked pieces):%n",
+                                    width, height));
+            for (int y = height - 1; y >= 0; y--) {
+                for (int x = 0; x < width; x++) {
+                    sb.append(String.format("%4.0f", heatmap[y * width + x] * 100));
+                }
+                sb.append(System.lineSeparator());
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Counts the holes of a board, and optionally adds its occupied cells to a heatmap.
+     *
+     * @param theBoard The board.
+     * @param theHeat The heatmap to add to, one count per cell, or null.
+     * @return The number of empty cells below the top of their column.
+     */
+    private static int countHoles(final Board theBoard, final long[] theHeat) {
+        final int width = theBoard.getWidth();
+        int holes = 0;
+        long covered = 0;
+        for (int y = theBoard.getHeight() - 1; y >= 0; y--) {
+            final long row = theBoard.getRowMask(y);
+            covered |= row;
+            holes += Long.bitCount(covered & ~row);
+            if (theHeat != null) {
+                for (long cells = row; cells != 0; cells &= cells - 1) {
+                    theHeat[y * width + Long.numberOfTrailingZeros(cells)]++;
+                }
+            }
+        }
+        return holes;
+    }
+
+    /**
+     * Packs a board size into a heatmap key.
+     *
+     * @param theWidth The board width.
+     * @param theHeight The board height.
+     * @return The key of the board size.
+     */
+    private static Long getSizeKey(final int theWidth, final int theHeight) {
+        return (long) theWidth << Integer.SIZE | theHeight;
+    }
+
+    /**
+     * Divides two totals.
+     *
+     * @param theTotal The dividend.
+     * @param theCount The divisor.
+     * @return The quotient, or 0 if the divisor is 0.
+     */
+    private static double ratio(final double theTotal, final double theCount) {
+        double result = 0;
+        if (theCount > 0) {
+            result = theTotal / theCount;
+        }
+        return result;
+    }
+
+    /**
+     * Creates an array of new LongAdders.
+     *
+     * @param theCount The number of adders.
+     * @return The adders.
+     */
+    private static LongAdder[] createAdders(final int theCount) {
+        final LongAdder[] result = new LongAdder[theCount];
+        for (int i = 0; i < theCount; i++) {
+            result[i] = new LongAdder();
+        }
+        return result;
+    }
+
+    /**
+     * Analyzes every game of an archive from the command line and prints the results.
+     *
+     * @param theArgs The archive data file, and optionally the number of threads.
+     * @throws IOException if the archive cannot be read.
+     */
+    public static void main(final String[] theArgs) throws IOException {
+        if (theArgs.length == 0) {
+            System.err.println("Usage: ReplayAnalytics <archive> [threads]");
+            return;
+        }
+        final int threads = Arguments.getThreads(theArgs, 1);
+        try (ReplayArchive archive = ReplayArchive.open(Paths.get(theArgs[0]))) {
+            final long start = System.nanoTime();
+            final ReplayAnalytics analytics = analyze(archive, threads);
+            final double seconds = (System.nanoTime() - start) / NANOS_PER_SECOND;
+            System.out.print(analytics);
+            System.out.printf("%.3f s on %d threads (%.0f games/s, %.0f pieces/s)%n",
+                              seconds, threads, analytics.getGames() / seconds,
+                              analytics.getPieces() / seconds);
+        }
+    }
+}
@@ -0,0 +1,395 @@
+package model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The ReplayArchive class. A ReplayArchive is a read-only view of an append-only
+ * archive of finished games, written by ReplayArchiveWriter. The archive is two
+ * files: a data file holding one entry per game - the encoded Replay (seed and
+ * input stream) followed by the BoardSnapshot of the final board - and, beside it
+ * with an ".idx" suffix, an index of fixed-width records holding the offset and
+ * length of each entry together with its seed, final score, lines, pieces and
+ * board size.
+ *
+ * Both files are opened with FileChannel.map, so games can be iterated or picked
+ * at random without loading the archive onto the heap, and the index fields can be
+ * read without decoding any entry. The data file is mapped in segments, so it may
+ * grow beyond 2 GB; the index holds up to {@link #MAX_ENTRIES} games. A reader sees
+ * the games that were complete when it was opened.
+ *
+ * <pre>
+ * data:  magic "CTRA", int version, entries...
+ *        (each: int replay length, replay bytes, int snapshot length, snapshot bytes)
+ * index: magic "CTRI", int version, records...
+ *        (each: long offset, int length, long seed, long score, int lines,
+ *         int pieces, short width, short height)
+ * </pre>
+ *
+ * @author Logan Stafford
+ * @version 1.0
+ */
+public final class ReplayArchive implements Closeable {
+
+    /**
+     * The suffix added to the data file name to name the index file.
+     */
+    public static final String INDEX_SUFFIX = ".idx";
+
+    /**
+     * The magic number at the start of a data file ("CTRA").
+     */
+    static final int DATA_MAGIC = 0x43545241;
+
+    /**
+     * The magic number at the start of an index file ("CTRI").
+     */
+    static final int INDEX_MAGIC = 0x43545249;
+
+    /**
+     * The version of the archive format.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * The size of the header of both files: a magic number and a version.
+     */
+    static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+    /**
+     * The offset of the entry offset within an index record.
+     */
+    static final int OFFSET_FIELD = 0;
+
+    /**
+     * The offset of the entry length within an index record.
+     */
+    static final int LENGTH_FIELD = OFFSET_FIELD + Long.BYTES;
+
+    /**
+     * The offset of the seed within an index record.
+     */
+    static final int SEED_FIELD = LENGTH_FIELD + Integer.BYTES;
+
+    /**
+     * The offset of the final score within an index record.
+     */
+    static final int SCORE_FIELD = SEED_FIELD + Long.BYTES;
+
+    /**
+     * The offset of the line count within an index record.
+     */
+    static final int LINES_FIELD = SCORE_FIELD + Long.BYTES;
+
+    /**
+     * The offset of the piece count within an index record.
+     */
+    static final int PIECES_FIELD = LINES_FIELD + Integer.BYTES;
+
+    /**
+     * The offset of the board width within an index record.
+     */
+    static final int WIDTH_FIELD = PIECES_FIELD + Integer.BYTES;
+
+    /**
+     * The offset of the board height within an index record.
+     */
+    static final int HEIGHT_FIELD = WIDTH_FIELD + Short.BYTES;
+
+    /**
+     * The size of an index record.
+     */
+    static final int RECORD_SIZE = HEIGHT_FIELD + Short.BYTES;
+
+    /**
+     * The most games an archive index can hold.
+     */
+    public static final int MAX_ENTRIES = (Integer.MAX_VALUE - HEADER_SIZE) / RECORD_SIZE;
+
+    /**
+     * The size of each mapped segment of the data file.
+     */
+    private static final long SEGMENT_SIZE = 1L << 30;
+
+    /**
+     * The data file channel, kept open to read entries that cross a segment boundary.
+     */
+    private final FileChannel myData;
+
+    /**
+     * The index file channel.
+     */
+    private final FileChannel myIndexChannel;
+
+    /**
+     * The mapped segments of the data file.
+     */
+    private final MappedByteBuffer[] mySegments;
+
+    /**
+     * The mapped index file.
+     */
+    private final MappedByteBuffer myIndex;
+
+    /**
+     * The number of games in the archive.
+     */
+    private final int myEntryCount;
+
+    /**
+     * The ReplayArchive constructor; use open.
+     *
+     * @param theData The data file channel.
+     * @param theIndex The index file channel.
+     * @throws IOException if the files cannot be mapped or are not an archive.
+     */
+    private ReplayArchive(final FileChannel theData, final FileChannel theIndex)
+        throws IOException {
+        myData = theData;
+        myIndexChannel = theIndex;
+        final long indexSize = Math.min(theIndex.size(),
+                                        HEADER_SIZE + (long) MAX_ENTRIES * RECORD_SIZE);
+        if (indexSize < HEADER_SIZE || theData.size() < HEADER_SIZE) {
+            throw new IOException("Not a replay archive");
+        }
+        myIndex = theIndex.map(FileChannel.MapMode.READ_ONLY, 0, indexSize);
+        checkHeader(myIndex, INDEX_MAGIC);
+
+        /* A record is only counted once its entry is fully in the data file. */
+        int count = (int) ((indexSize - HEADER_SIZE) / RECORD_SIZE);
+        while (count > 0 && getEnd(count - 1) > theData.size()) {
+            count--;
+        }
+        myEntryCount = count;
+
+        long dataSize = HEADER_SIZE;
+        if (count > 0) {
+            dataSize = getEnd(count - 1);
+        }
+        mySegments = new MappedByteBuffer[(int) ((dataSize + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+        for (int i = 0; i < mySegments.length; i++) {
+            final long start = i * SEGMENT_SIZE;
+            mySegments[i] = theData.map(FileChannel.MapMode.READ_ONLY, start,
+                                        Math.min(SEGMENT_SIZE, dataSize - start));
+        }
+        checkHeader(mySegments[0], DATA_MAGIC);
+    }
+
+    /**
+     * Opens an archive for reading.
+     *
+     * @param thePath The data file of the archive; the index is beside it.
+     * @return The opened archive.
+     * @throws IOException if the archive cannot be opened or is not an archive.
+     */
+    public static ReplayArchive open(final Path thePath) throws IOException {
+        final FileChannel data = FileChannel.open(thePath, StandardOpenOption.READ);
+        try {
+            final FileChannel index = FileChannel.open(getIndexPath(thePath),
+                                                       StandardOpenOption.READ);
+            try {
+                return new ReplayArchive(data, index);
+            } catch (final IOException ex) {
+                index.close();
+                throw ex;
+            }
+        } catch (final IOException ex) {
+            data.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Returns the path of the index file of an archive.
+     *
+     * @param thePath The data file of the archive.
+     * @return The index file beside it.
+     */
+    public static Path getIndexPath(final Path thePath) {
+        return thePath.resolveSibling(thePath.getFileName() + INDEX_SUFFIX);
+    }
+
+    /**
+     * Returns the number of games in the archive.
+     *
+     * @return The number of games.
+     */
+    public int getEntryCount() {
+        return myEntryCount;
+    }
+
+    /**
+     * Returns the seed of a game.
+     *
+     * @param theEntry The index of the game.
+     * @return The seed of the game's PieceSource.
+     */
+    public long getSeed(final int theEntry) {
+        return myIndex.getLong(getRecord(theEntry) + SEED_FIELD);
+    }
+
+    /**
+     * Returns the final score of a game.
+     *
+     * @param theEntry The index of the game.
+     * @return The final score.
+     */
+    public long getScore(final int theEntry) {
+        return myIndex.getLong(getRecord(theEntry) + SCORE_FIELD);
+    }
+
+    /**
+     * Returns the number of lines cleared in a game.
+     *
+     * @param theEntry The index of the game.
+     * @return The number of lines cleared.
+     */
+    public int getLinesCleared(final int theEntry) {
+        return myIndex.getInt(getRecord(theEntry) + LINES_FIELD);
+    }
+
+    /**
+     * Returns the number of pieces frozen in a game.
+     *
+     * @param theEntry The index of the game.
+     * @return The number of pieces frozen.
+     */
+    public int getPiecesFrozen(final int theEntry) {
+        return myIndex.getInt(getRecord(theEntry) + PIECES_FIELD);
+    }
+
+    /**
+     * Returns the width of the board of a game.
+     *
+     * @param theEntry The index of the game.
+     * @return The board width.
+     */
+    public int getWidth(final int theEntry) {
+        return myIndex.getShort(getRecord(theEntry) + WIDTH_FIELD);
+    }
+
+    /**
+     * Returns the height of the board of a game.
+     *
+     * @param theEntry The index of the game.
+     * @return The board height.
+     */
+    public int getHeight(final int theEntry) {
+        return myIndex.getShort(getRecord(theEntry) + HEIGHT_FIELD);
+    }
+
+    /**
+     * Decodes the Replay of a game.
+     *
+     * @param theEntry The index of the game.
+     * @return The game's Replay.
+     * @throws IOException if the entry cannot be read.
+     */
+    public Replay getReplay(final int theEntry) throws IOException {
+        final ByteBuffer entry = getEntry(theEntry);
+        final byte[] replay = new byte[entry.getInt()];
+        entry.get(replay);
+        return Replay.fromByteArray(replay);
+    }
+
+    /**
+     * Decodes the final board state of a game.
+     *
+     * @param theEntry The index of the game.
+     * @return The BoardSnapshot of the board when the game ended.
+     * @throws IOException if the entry cannot be read.
+     */
+    public BoardSnapshot getFinalState(final int theEntry) throws IOException {
+        final ByteBuffer entry = getEntry(theEntry);
+        entry.position(entry.position() + Integer.BYTES + entry.getInt(entry.position()));
+        final byte[] snapshot = new byte[entry.getInt()];
+        entry.get(snapshot);
+        return BoardSnapshot.fromByteArray(snapshot);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            myData.close();
+        } finally {
+            myIndexChannel.close();
+        }
+    }
+
+    /**
+     * Returns the position of the index record of a game.
+     *
+     * @param theEntry The index of the game.
+     * @return The position of its record in the index file.
+     * @throws IndexOutOfBoundsException if there is no such game.
+     */
+    private int getRecord(final int theEntry) {
+        if (theEntry < 0 || theEntry >= myEntryCount) {
+            throw new IndexOutOfBoundsException("No game " + theEntry + " in an archive of "
+                                                + myEntryCount);
+        }
+        return HEADER_SIZE + theEntry * RECORD_SIZE;
+    }
+
+    /**
+     * Returns the end of the entry of a game in the data file, read straight from
+     * the index without checking the entry count.
+     *
+     * @param theEntry The index of the game.
+     * @return The offset just past the game's entry.
+     */
+    private long getEnd(final int theEntry) {
+        final int record = HEADER_SIZE + theEntry * RECORD_SIZE;
+        return myIndex.getLong(record + OFFSET_FIELD) + myIndex.getInt(record + LENGTH_FIELD);
+    }
+
+    /**
+     * Returns the bytes of a game's entry, sliced from the mapped data file when the
+     * entry lies within one segment, or read from the file when it crosses segments.
+     *
+     * @param theEntry The index of the game.
+     * @return A buffer positioned at the start of the entry and limited to its end.
+     * @throws IOException if the entry cannot be read.
+     */
+    private ByteBuffer getEntry(final int theEntry) throws IOException {
+        final int record = getRecord(theEntry);
+        final long offset = myIndex.getLong(record + OFFSET_FIELD);
+        final int length = myIndex.getInt(record + LENGTH_FIELD);
+        final int segment = (int) (offset / SEGMENT_SIZE);
+        final int start = (int) (offset % SEGMENT_SIZE);
+
+        final ByteBuffer result;
+        if (start + (long) length <= mySegments[segment].capacity()) {
+            result = mySegments[segment].duplicate();
+            result.limit(start + length).position(start);
+        } else {
+            result = ByteBuffer.allocate(length);
+            while (result.hasRemaining()) {
+                if (myData.read(result, offset + result.position()) < 0) {
+                    throw new IOException("Truncated archive entry " + theEntry);
+                }
+            }
+            result.flip();
+        }
+        return result;
+    }
+
+    /**
+     * Checks the magic number and version at the start of a mapped file.
+     *
+     * @param theBuffer The mapped file.
+     * @param theMagic The expected magic number.
+     * @throws IOException if the header does not match.
+     */
+    private static void checkHeader(final ByteBuffer theBuffer, final int theMagic)
+        throws IOException {
+        if (theBuffer.getInt(0) != theMagic || theBuffer.getInt(Integer.BYTES) != VERSION) {
+            throw new IOException("Not a replay archive, or an unsupported version");
+        }
+    }
+}
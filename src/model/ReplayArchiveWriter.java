@@ -0,0 +1,175 @@
+package model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The ReplayArchiveWriter class. A ReplayArchiveWriter appends finished games to
+ * the data and index files of a ReplayArchive, creating them if needed. Each entry
+ * is written to the data file before its index record, so a reader never sees a
+ * record whose entry is incomplete; an interrupted append leaves at most unused
+ * bytes at the end of the data file, which the next append writes past. An open
+ * writer holds an exclusive lock on the data file, so writers in other processes
+ * wait for it to be closed instead of interleaving their appends.
+ *
+ * @author Logan Stafford
+ * @version 1.0
+ */
+public final class ReplayArchiveWriter implements Closeable {
+
+    /**
+     * The data file channel.
+     */
+    private final FileChannel myData;
+
+    /**
+     * The index file channel.
+     */
+    private final FileChannel myIndex;
+
+    /**
+     * A reusable buffer for index records.
+     */
+    private final ByteBuffer myRecord;
+
+    /**
+     * The number of games in the archive.
+     */
+    private int myEntryCount;
+
+    /**
+     * The ReplayArchiveWriter constructor, which opens an archive for appending.
+     *
+     * @param thePath The data file of the archive; the index is beside it.
+     * @throws IOException if the archive cannot be opened or is not an archive.
+     * @throws java.nio.channels.OverlappingFileLockException if another writer of
+     *         this program has the archive open.
+     */
+    public ReplayArchiveWriter(final Path thePath) throws IOException {
+        myData = FileChannel.open(thePath, StandardOpenOption.CREATE,
+                                  StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            myData.lock();
+            myIndex = FileChannel.open(ReplayArchive.getIndexPath(thePath),
+                                       StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                       StandardOpenOption.WRITE);
+        } catch (final IOException | RuntimeException ex) {
+            myData.close();
+            throw ex;
+        }
+        myRecord = ByteBuffer.allocate(ReplayArchive.RECORD_SIZE);
+        try {
+            prepare(myData, ReplayArchive.DATA_MAGIC);
+            prepare(myIndex, ReplayArchive.INDEX_MAGIC);
+        } catch (final IOException ex) {
+            close();
+            throw ex;
+        }
+
+        /* Drop a partly written record left by an interrupted append. */
+        myEntryCount = (int) ((myIndex.size() - ReplayArchive.HEADER_SIZE)
+                              / ReplayArchive.RECORD_SIZE);
+        myIndex.truncate(ReplayArchive.HEADER_SIZE
+                         + (long) myEntryCount * ReplayArchive.RECORD_SIZE);
+    }
+
+    /**
+     * Appends a finished game to the archive.
+     *
+     * @param theReplay The Replay of the game.
+     * @param theFinalState The state of the board when the game ended.
+     * @param theScore The final score of the game.
+     * @throws IOException if the game cannot be written.
+     * @throws IllegalStateException if the archive index is full.
+     */
+    public void append(final Replay theReplay, final BoardSnapshot theFinalState,
+                       final long theScore) throws IOException {
+        if (myEntryCount >= ReplayArchive.MAX_ENTRIES) {
+            throw new IllegalStateException("The archive index is full");
+        }
+        final byte[] replay = theReplay.toByteArray();
+        final byte[] snapshot = theFinalState.toByteArray();
+        final ByteBuffer entry = ByteBuffer.allocate(2 * Integer.BYTES + replay.length
+                                                     + snapshot.length);
+        entry.putInt(replay.length).put(replay).putInt(snapshot.length).put(snapshot).flip();
+
+        final long offset = myData.size();
+        writeFully(myData, entry, offset);
+
+        myRecord.clear();
+        myRecord.putLong(offset)
+                .putInt(entry.capacity())
+                .putLong(theReplay.getSeed())
+                .putLong(theScore)
+                .putInt(theFinalState.getLinesCleared())
+                .putInt(theFinalState.getPiecesFrozen())
+                .putShort((short) theReplay.getWidth())
+                .putShort((short) theReplay.getHeight())
+                .flip();
+        writeFully(myIndex, myRecord,
+                   ReplayArchive.HEADER_SIZE + (long) myEntryCount * ReplayArchive.RECORD_SIZE);
+        myEntryCount++;
+    }
+
+    /**
+     * Returns the number of games in the archive.
+     *
+     * @return The number of games.
+     */
+    public int getEntryCount() {
+        return myEntryCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            myData.close();
+        } finally {
+            myIndex.close();
+        }
+    }
+
+    /**
+     * Writes the header of a new archive file, or checks the header of an existing one.
+     *
+     * @param theChannel The file channel.
+     * @param theMagic The magic number of the file.
+     * @throws IOException if the file cannot be written or has a different header.
+     */
+    private static void prepare(final FileChannel theChannel, final int theMagic)
+        throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(ReplayArchive.HEADER_SIZE);
+        if (theChannel.size() == 0) {
+            header.putInt(theMagic).putInt(ReplayArchive.VERSION).flip();
+            writeFully(theChannel, header, 0);
+        } else {
+            while (header.hasRemaining() && theChannel.read(header, header.position()) >= 0) {
+                // keep reading until the header is full or the file ends
+            }
+            if (header.hasRemaining() || header.getInt(0) != theMagic
+                || header.getInt(Integer.BYTES) != ReplayArchive.VERSION) {
+                throw new IOException("Not a replay archive, or an unsupported version");
+            }
+        }
+    }
+
+    /**
+     * Writes every remaining byte of a buffer at a position of a file.
+     *
+     * @param theChannel The file channel.
+     * @param theBuffer The bytes to write.
+     * @param thePosition The position in the file of the first byte.
+     * @throws IOException if the bytes cannot be written.
+     */
+    private static void writeFully(final FileChannel theChannel, final ByteBuffer theBuffer,
+                                   final long thePosition) throws IOException {
+        long position = thePosition;
+        while (theBuffer.hasRemaining()) {
+            position += theChannel.write(theBuffer, position);
+        }
+    }
+}
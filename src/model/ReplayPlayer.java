@@ -0,0 +1,250 @@
+package model;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * The ReplayPlayer class. A ReplayPlayer re-drives a Board from a Replay, one
+ * event at a time or straight to the end, ignoring the recorded timing so a game
+ * plays back as fast as the CPU allows. Events are decoded in place from the
+ * Replay's byte stream, so playing back does not allocate. When the Replay
+ * carries a seek index, seeking restores the nearest Keyframe before the target
+ * and plays only the events after it.
+ *
+ * Run from the command line, it plays back replay files headless and prints their
+ * throughput, which turns real sessions into benchmarks.
+ *
+ * @author Logan Stafford
+ * @version 1.0
+ */
+public final class ReplayPlayer {
+
+    /**
+     * The Replay being played.
+     */
+    private final Replay myReplay;
+
+    /**
+     * The Board the Replay is played on.
+     */
+    private final Board myBoard;
+
+    /**
+     * The encoded events of the Replay.
+     */
+    private final byte[] myEvents;
+
+    /**
+     * The position of the next event in myEvents, as a one-element array so the
+     * varint decoder can advance it.
+     */
+    private final int[] myPosition;
+
+    /**
+     * A scratch position used to look at the next event without playing it.
+     */
+    private final int[] myPeekPosition;
+
+    /**
+     * The index of the next event.
+     */
+    private int myEventIndex;
+
+    /**
+     * The recorded time of the last event played, in milliseconds since the game started.
+     */
+    private long myTime;
+
+    /**
+     * The ReplayPlayer constructor, which plays on a new headless Board.
+     *
+     * @param theReplay The Replay to play.
+     */
+    public ReplayPlayer(final Replay theReplay) {
+        this(theReplay, new Board(theReplay.getWidth(), theReplay.getHeight()));
+    }
+
+    /**
+     * The ReplayPlayer constructor, which plays on the given Board; its observers see
+     * the game as it is played back. The Board is resized to the recorded size and a
+     * new game is started on it.
+     *
+     * @param theReplay The Replay to play.
+     * @param theBoard The Board to play on.
+     */
+    public ReplayPlayer(final Replay theReplay, final Board theBoard) {
+        myReplay = theReplay;
+        myBoard = theBoard;
+        myEvents = theReplay.getEvents();
+        myPosition = new int[1];
+        myPeekPosition = new int[1];
+        reset();
+    }
+
+    /**
+     * Restarts the recorded game from its first event.
+     */
+    public void reset() {
+        myBoard.setSize(myReplay.getWidth(), myReplay.getHeight());
+        myBoard.newGame(myReplay.getSeed());
+        myPosition[0] = 0;
+        myEventIndex = 0;
+        myTime = 0;
+    }
+
+    /**
+     * Plays the next event.
+     *
+     * @return True if an event was played, false if the Replay has ended.
+     */
+    public boolean step() {
+        boolean result = false;
+        if (myEventIndex < myReplay.getEventCount()) {
+            final long event = Replay.getVarint(myEvents, myPosition);
+            myTime += event >>> Replay.INPUT_BITS;
+            myEventIndex++;
+            Input.valueOf((int) (event & Replay.INPUT_MASK)).apply(myBoard);
+            result = true;
+        }
+        return result;
+    }
+
+    /**
+     * Plays every remaining event.
+     *
+     * @return The number of events played.
+     */
+    public int playToEnd() {
+        final int start = myEventIndex;
+        while (step()) {
+            // every event is applied by step
+        }
+        return myEventIndex - start;
+    }
+
+    /**
+     * Moves the game to just after a given number of events, restoring the nearest
+     * Keyframe when that is closer than the current position.
+     *
+     * @param theEventIndex The number of events to have played; clamped to the Replay.
+     */
+    public void seek(final int theEventIndex) {
+        final int target = Math.max(0, Math.min(theEventIndex, myReplay.getEventCount()));
+        if (target < myEventIndex) {
+            reset();
+        }
+        skipTo(myReplay.findKeyframe(target));
+        while (myEventIndex < target) {
+            step();
+        }
+    }
+
+    /**
+     * Moves the game to just after the last event recorded at or before a given time,
+     * restoring the nearest Keyframe when that is closer than the current position.
+     *
+     * @param theTime The time to seek to, in milliseconds since the game started.
+     */
+    public void seekToTime(final long theTime) {
+        if (theTime < myTime) {
+            reset();
+        }
+        skipTo(myReplay.findKeyframeAtTime(theTime));
+        while (myEventIndex < myReplay.getEventCount() && getNextEventTime() <= theTime) {
+            step();
+        }
+    }
+
+    /**
+     * Restores a Keyframe if it lies ahead of the current position.
+     *
+     * @param theKeyframe The Keyframe to skip to, or null.
+     */
+    private void skipTo(final Keyframe theKeyframe) {
+        if (theKeyframe != null && theKeyframe.getEventIndex() > myEventIndex) {
+            myBoard.restore(theKeyframe.getSnapshot());
+            myPosition[0] = theKeyframe.getOffset();
+            myEventIndex = theKeyframe.getEventIndex();
+            myTime = theKeyframe.getTime();
+        }
+    }
+
+    /**
+     * Returns the recorded time of the next event without playing it.
+     *
+     * @return The time of the next event in milliseconds since the game started.
+     */
+    private long getNextEventTime() {
+        myPeekPosition[0] = myPosition[0];
+        return myTime + (Replay.getVarint(myEvents, myPeekPosition) >>> Replay.INPUT_BITS);
+    }
+
+    /**
+     * Returns the Replay being played.
+     *
+     * @return The Replay.
+     */
+    public Replay getReplay() {
+        return myReplay;
+    }
+
+    /**
+     * Returns the Board the Replay is played on.
+     *
+     * @return The Board.
+     */
+    public Board getBoard() {
+        return myBoard;
+    }
+
+    /**
+     * Returns the index of the next event to play.
+     *
+     * @return The number of events played since the last reset.
+     */
+    public int getEventIndex() {
+        return myEventIndex;
+    }
+
+    /**
+     * Returns the recorded time of the last event played.
+     *
+     * @return The milliseconds between the start of the game and the last event played.
+     */
+    public long getTime() {
+        return myTime;
+    }
+
+    /**
+     * Plays a Replay to the end on a headless Board, timing the playback.
+     *
+     * @param theReplay The Replay to play.
+     * @return The totals and throughput of the playback.
+     */
+    public static GameSimulator.Result play(final Replay theReplay) {
+        final ReplayPlayer player = new ReplayPlayer(theReplay);
+        final long start = System.nanoTime();
+        final int events = player.playToEnd();
+        final long nanos = System.nanoTime() - start;
+        final Board board = player.getBoard();
+        return new GameSimulator.Result(1, board.getPiecesFrozen(), board.getLinesCleared(),
+                                        events, nanos);
+    }
+
+    /**
+     * Plays replay files back from the command line and prints their throughput.
+     *
+     * @param theArgs The replay files to play.
+     * @throws IOException if a replay file cannot be read.
+     */
+    public static void main(final String[] theArgs) throws IOException {
+        if (theArgs.length == 0) {
+            System.err.println("Usage: ReplayPlayer <replay file>...");
+        }
+        for (final String file : theArgs) {
+            final Replay replay = Replay.read(Paths.get(file));
+            System.out.println(file + ": " + replay);
+            System.out.println("  " + play(replay));
+        }
+    }
+}
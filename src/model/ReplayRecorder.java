@@ -0,0 +1,246 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The ReplayRecorder class. A ReplayRecorder sits between the source of Inputs
+ * (the key listener and game timer of the GUI, or a headless driver) and a Board:
+ * every Input goes through {@link #record(Input)}, which applies it to the Board
+ * and appends it, with the time since the previous Input, to a compact event stream.
+ * Games are started through the recorder so that each one gets a known seed.
+ * The recording of the current game can be taken as a Replay at any time.
+ *
+ * Every few locked pieces the recorder also takes a Keyframe, a snapshot of the
+ * Board, so the Replay carries a seek index beside its event stream.
+ *
+ * @author Logan Stafford
+ * @version 1.0
+ */
+public final class ReplayRecorder {
+
+    /**
+     * The initial capacity of the event buffer, in bytes.
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * The number of nanoseconds in a millisecond.
+     */
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    /**
+     * The default number of locked pieces between Keyframes.
+     */
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 100;
+
+    /**
+     * The Board the recorded Inputs are applied to.
+     */
+    private final Board myBoard;
+
+    /**
+     * The number of locked pieces between Keyframes, or 0 for no Keyframes.
+     */
+    private final int myKeyframeInterval;
+
+    /**
+     * The Keyframes of the current game.
+     */
+    private final List<Keyframe> myKeyframes;
+
+    /**
+     * The number of locked pieces at which the next Keyframe is taken.
+     */
+    private int myNextKeyframe;
+
+    /**
+     * The encoded events of the current game.
+     */
+    private byte[] myEvents;
+
+    /**
+     * The number of bytes of myEvents in use.
+     */
+    private int mySize;
+
+    /**
+     * The number of events recorded in the current game.
+     */
+    private int myEventCount;
+
+    /**
+     * The seed of the current game.
+     */
+    private long mySeed;
+
+    /**
+     * The width of the board when the current game started.
+     */
+    private int myWidth;
+
+    /**
+     * The height of the board when the current game started.
+     */
+    private int myHeight;
+
+    /**
+     * The time the current game started in milliseconds.
+     */
+    private long myStartTime;
+
+    /**
+     * The time of the previous event in milliseconds.
+     */
+    private long myLastTime;
+
+    /**
+     * The ReplayRecorder constructor, which takes a Keyframe every
+     * DEFAULT_KEYFRAME_INTERVAL locked pieces.
+     *
+     * @param theBoard The Board the recorded Inputs are applied to.
+     */
+    public ReplayRecorder(final Board theBoard) {
+        this(theBoard, DEFAULT_KEYFRAME_INTERVAL);
+    }
+
+    /**
+     * The ReplayRecorder constructor.
+     *
+     * @param theBoard The Board the recorded Inputs are applied to.
+     * @param theKeyframeInterval The number of locked pieces between Keyframes,
+     *                            or 0 to record no Keyframes.
+     */
+    public ReplayRecorder(final Board theBoard, final int theKeyframeInterval) {
+        if (theKeyframeInterval < 0) {
+            throw new IllegalArgumentException("Invalid keyframe interval: "
+                                               + theKeyframeInterval);
+        }
+        myBoard = theBoard;
+        myKeyframeInterval = theKeyframeInterval;
+        myKeyframes = new ArrayList<Keyframe>();
+        myEvents = new byte[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Starts a new game on the Board with a random seed, and starts a new recording.
+     */
+    public void newGame() {
+        newGame(new PieceSource().getSeed(), currentTimeMillis());
+    }
+
+    /**
+     * Starts a new game on the Board with the given seed, and starts a new recording.
+     *
+     * @param theSeed The seed of the new game.
+     * @param theTime The time the game starts, in milliseconds on the same clock as
+     *                the times passed to record.
+     */
+    public void newGame(final long theSeed, final long theTime) {
+        mySeed = theSeed;
+        myWidth = myBoard.getWidth();
+        myHeight = myBoard.getHeight();
+        mySize = 0;
+        myEventCount = 0;
+        myKeyframes.clear();
+        myNextKeyframe = myKeyframeInterval;
+        myStartTime = theTime;
+        myLastTime = theTime;
+        myBoard.newGame(theSeed);
+    }
+
+    /**
+     * Applies an Input to the Board now, and records it.
+     *
+     * @param theInput The Input to apply.
+     */
+    public void record(final Input theInput) {
+        record(theInput, currentTimeMillis());
+    }
+
+    /**
+     * Applies an Input to the Board, and records it with the given time.
+     *
+     * @param theInput The Input to apply.
+     * @param theTime The time of the Input in milliseconds; times earlier than the
+     *                previous Input are recorded as simultaneous with it.
+     */
+    public void record(final Input theInput, final long theTime) {
+        final long delta = Math.max(0, theTime - myLastTime);
+        myLastTime = Math.max(myLastTime, theTime);
+        if (mySize + Replay.MAX_VARINT_BYTES > myEvents.length) {
+            myEvents = Arrays.copyOf(myEvents, myEvents.length * 2);
+        }
+        mySize = Replay.putVarint(myEvents, mySize, Replay.encodeEvent(delta, theInput));
+        myEventCount++;
+        theInput.apply(myBoard);
+        
+        if (myKeyframeInterval > 0 && myBoard.getPiecesFrozen() >= myNextKeyframe) {
+            myKeyframes.add(new Keyframe(myEventCount, mySize, myLastTime - myStartTime,
+                                         myBoard.snapshot()));
+            myNextKeyframe = myBoard.getPiecesFrozen() + myKeyframeInterval;
+        }
+    }
+
+    /**
+     * Returns the Board the recorded Inputs are applied to.
+     *
+     * @return The recorded Board.
+     */
+    public Board getBoard() {
+        return myBoard;
+    }
+
+    /**
+     * Returns the number of events recorded in the current game.
+     *
+     * @return The number of recorded Inputs, including gravity ticks.
+     */
+    public int getEventCount() {
+        return myEventCount;
+    }
+
+    /**
+     * Returns the recording of the current game so far. Recording continues
+     * unaffected.
+     *
+     * @return A Replay of the current game.
+     */
+    public Replay toReplay() {
+        return new Replay(myWidth, myHeight, mySeed, myEventCount,
+                          Arrays.copyOf(myEvents, mySize), new ArrayList<Keyframe>(myKeyframes));
+    }
+
+    /**
+     * Builds the seek index of an existing Replay by recording it again on a
+     * headless Board. The events of the result are identical to those of the Replay.
+     *
+     * @param theReplay The Replay to index.
+     * @param theKeyframeInterval The number of locked pieces between Keyframes.
+     * @return A copy of the Replay with a new seek index.
+     */
+    public static Replay index(final Replay theReplay, final int theKeyframeInterval) {
+        final ReplayRecorder recorder = new ReplayRecorder(
+            new Board(theReplay.getWidth(), theReplay.getHeight()), theKeyframeInterval);
+        recorder.newGame(theReplay.getSeed(), 0);
+        final byte[] events = theReplay.getEvents();
+        final int[] position = {0};
+        long time = 0;
+        for (int i = 0; i < theReplay.getEventCount(); i++) {
+            final long event = Replay.getVarint(events, position);
+            time += event >>> Replay.INPUT_BITS;
+            recorder.record(Input.valueOf((int) (event & Replay.INPUT_MASK)), time);
+        }
+        return recorder.toReplay();
+    }
+
+    /**
+     * Returns the current time of the recording clock.
+     *
+     * @return The current time in milliseconds.
+     */
+    private static long currentTimeMillis() {
+        return System.nanoTime() / NANOS_PER_MILLI;
+    }
+}
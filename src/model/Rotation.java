@@ -1,6 +1,6 @@
 package model;
 
-import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * The Rotation class, which enumerates any possible rotation that
@@ -33,11 +33,6 @@ public enum Rotation {
      */
     THREEQUARTER;
 
-    /**
-     * A Random object used for generating random rotations.
-     */
-    private static final Random RANDOM = new Random();
-
     /**
      * Create a new Rotation that is rotated 90 degrees clockwise
      * as compared to the current one.
@@ -49,12 +44,13 @@ public enum Rotation {
     }
 
     /**
-     * Creates a new Rotation with a random angle.
+     * Creates a new Rotation with a random angle drawn from the given generator.
      * 
+     * @param theRandom The generator to draw from.
      * @return A new Rotation object with a random angle.
      */
-    public static Rotation random() {
-        return values()[RANDOM.nextInt(values().length)];
+    public static Rotation random(final SplittableRandom theRandom) {
+        return values()[theRandom.nextInt(values().length)];
     }
 
 }
\ No newline at end of file
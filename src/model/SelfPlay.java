@@ -0,0 +1,355 @@
+package model;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * The SelfPlay class. A SelfPlay plays batches of headless games with an agent on a
+ * pool of worker threads, one game per task. Every worker thread gets its own agent
+ * from a factory and every game its own Board and seed, so the games share no
+ * mutable state and the throughput grows with the number of cores. The agents'
+ * searches run on the worker thread that plays the game, since the pool's threads
+ * are already busy playing. Each game's seed is split from a master seed up front,
+ * so any game of a batch can be replayed on its own from its seed. The Monte Carlo
+ * agent seeds its rollouts from the game's seed too, but its searches are bounded
+ * by time, so a replay only matches while each search runs as many rollouts.
+ *
+ * Run from the command line, it streams a line per finished game and then reports
+ * the throughput of the batch and the distribution of the lines cleared per game.
+ *
+ * @author Logan Stafford
+ * @version 1.0
+ */
+public final class SelfPlay {
+
+    /**
+     * The GameResult class, which holds the outcome of one game of a batch.
+     */
+    public static final class GameResult {
+
+        /**
+         * The index of the game within its batch.
+         */
+        private final int myIndex;
+
+        /**
+         * The seed of the game's PieceSource.
+         */
+        private final long mySeed;
+
+        /**
+         * The number of pieces frozen.
+         */
+        private final int myPieces;
+
+        /**
+         * The number of lines cleared.
+         */
+        private final int myLines;
+
+        /**
+         * The number of Inputs applied.
+         */
+        private final long myInputs;
+
+        /**
+         * The duration of the game in nanoseconds.
+         */
+        private final long myNanos;
+
+        /**
+         * The GameResult constructor.
+         *
+         * @param theIndex The index of the game within its batch.
+         * @param theSeed The seed of the game's PieceSource.
+         * @param thePieces The number of pieces frozen.
+         * @param theLines The number of lines cleared.
+         * @param theInputs The number of Inputs applied.
+         * @param theNanos The duration of the game in nanoseconds.
+         */
+        GameResult(final int theIndex, final long theSeed, final int thePieces,
+                   final int theLines, final long theInputs, final long theNanos) {
+            myIndex = theIndex;
+            mySeed = theSeed;
+            myPieces = thePieces;
+            myLines = theLines;
+            myInputs = theInputs;
+            myNanos = theNanos;
+        }
+
+        /**
+         * Returns the index of the game within its batch.
+         *
+         * @return The game index.
+         */
+        public int getIndex() {
+            return myIndex;
+        }
+
+        /**
+         * Returns the seed of the game's PieceSource.
+         *
+         * @return The seed, which replays the game with the same agent.
+         */
+        public long getSeed() {
+            return mySeed;
+        }
+
+        /**
+         * Returns the number of pieces frozen.
+         *
+         * @return The piece count.
+         */
+        public int getPieces() {
+            return myPieces;
+        }
+
+        /**
+         * Returns the number of lines cleared.
+         *
+         * @return The line count.
+         */
+        public int getLines() {
+            return myLines;
+        }
+
+        /**
+         * Returns the number of Inputs applied.
+         *
+         * @return The Input count.
+         */
+        public long getInputs() {
+            return myInputs;
+        }
+
+        /**
+         * Returns the duration of the game.
+         *
+         * @return The duration in nanoseconds.
+         */
+        public long getNanos() {
+            return myNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "game %d seed %d: %d pieces, %d lines, %d inputs,"
+                                 + " %.1f ms", myIndex, mySeed, myPieces, myLines, myInputs,
+                                 myNanos / NANOS_PER_MILLI);
+        }
+    }
+
+    /**
+     * The number of games played from the command line by default.
+     */
+    private static final int DEFAULT_GAMES = 100;
+
+    /**
+     * The number of Inputs after which a game played from the command line is
+     * abandoned by default.
+     */
+    private static final long DEFAULT_MAX_INPUTS = 100_000L;
+
+    /**
+     * The time budget per piece of the Monte Carlo agent played from the command line.
+     */
+    private static final long MONTE_CARLO_BUDGET_MILLIS = 2;
+
+    /**
+     * The percentiles of the lines per game reported from the command line.
+     */
+    private static final int[] PERCENTILES = {10, 25, 50, 75, 90, 99};
+
+    /**
+     * The number of nanoseconds in a millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * The number of nanoseconds in a second.
+     */
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    /**
+     * The width of the boards.
+     */
+    private final int myWidth;
+
+    /**
+     * The height of the boards.
+     */
+    private final int myHeight;
+
+    /**
+     * The simulator that plays each game.
+     */
+    private final GameSimulator mySimulator;
+
+    /**
+     * The factory that creates an agent for each worker thread.
+     */
+    private final Supplier<? extends GameSimulator.Script> myAgents;
+
+    /**
+     * The SelfPlay constructor.
+     *
+     * @param theWidth The width of the boards.
+     * @param theHeight The height of the boards.
+     * @param theMaxInputs The number of Inputs after which a game is abandoned.
+     * @param theAgents The factory that creates an agent for each worker thread;
+     *                  the agents it creates must not share mutable state.
+     */
+    public SelfPlay(final int theWidth, final int theHeight, final long theMaxInputs,
+                    final Supplier<? extends GameSimulator.Script> theAgents) {
+        myWidth = theWidth;
+        myHeight = theHeight;
+        mySimulator = new GameSimulator(theWidth, theHeight, 0, theMaxInputs);
+        myAgents = theAgents;
+    }
+
+    /**
+     * Plays a batch of games on a pool, reporting each game as it finishes.
+     *
+     * @param theGames The number of games to play.
+     * @param theSeed The master seed every game's seed is split from.
+     * @param thePool The pool to play the games on.
+     * @param theListener Called with each game's result as it finishes, from the
+     *                    worker thread that played it.
+     * @return The results of every game, in game order.
+     */
+    public GameResult[] run(final int theGames, final long theSeed, final ForkJoinPool thePool,
+                            final Consumer<? super GameResult> theListener) {
+        final PieceSource master = new PieceSource(theSeed);
+        final long[] seeds = new long[theGames];
+        for (int i = 0; i < seeds.length; i++) {
+            seeds[i] = master.split().getSeed();
+        }
+
+        final ThreadLocal<GameSimulator.Script> agents = ThreadLocal.withInitial(myAgents);
+        final GameResult[] results = new GameResult[theGames];
+        try {
+            thePool.submit(() -> IntStream.range(0, theGames).parallel().forEach(game -> {
+                results[game] = play(game, seeds[game], agents.get());
+                theListener.accept(results[game]);
+            })).get();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Self-play interrupted", ex);
+        } catch (final ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+        return results;
+    }
+
+    /**
+     * Plays one game on a fresh Board.
+     *
+     * @param theIndex The index of the game within its batch.
+     * @param theSeed The seed of the game's PieceSource.
+     * @param theAgent The agent of the worker thread.
+     * @return The outcome of the game.
+     */
+    private GameResult play(final int theIndex, final long theSeed,
+                            final GameSimulator.Script theAgent) {
+        final Board board = new Board(myWidth, myHeight, theSeed);
+        final long start = System.nanoTime();
+        final long inputs = mySimulator.play(board, theAgent);
+        return new GameResult(theIndex, theSeed, board.getPiecesFrozen(),
+                              board.getLinesCleared(), inputs, System.nanoTime() - start);
+    }
+
+    /**
+     * Creates the factory for an agent named on the command line. The searches of
+     * the agents it creates run on the calling thread.
+     *
+     * @param theName The agent: greedy, beam or mcts.
+     * @return The factory.
+     * @throws IllegalArgumentException if the agent is unknown.
+     */
+    private static Supplier<? extends GameSimulator.Script> createAgents(final String theName) {
+        final Supplier<? extends GameSimulator.Script> result;
+        if ("greedy".equals(theName)) {
+            result = GreedyAgent::new;
+        } else if ("beam".equals(theName)) {
+            final TranspositionTable table = new TranspositionTable();
+            result = () -> new BeamAgent(new BeamSearch(WeightedHeuristic.DEFAULT,
+                                                        BeamSearch.DEFAULT_BEAM_WIDTH,
+                                                        null, table), 1, 0);
+        } else if ("mcts".equals(theName)) {
+            result = () -> new MonteCarloAgent(
+                new MonteCarloSearch(WeightedHeuristic.DEFAULT,
+                                     MonteCarloSearch.DEFAULT_BRANCHING,
+                                     MonteCarloSearch.DEFAULT_ROLLOUT_PIECES, null, 0L),
+                MONTE_CARLO_BUDGET_MILLIS);
+        } else {
+            throw new IllegalArgumentException("Unknown agent: " + theName);
+        }
+        return result;
+    }
+
+    /**
+     * Plays a batch of games from the command line, streaming each result, and prints
+     * the throughput and the distribution of lines cleared per game.
+     *
+     * @param theArgs Optional arguments: agent (greedy, beam or mcts), games, threads,
+     *                seed, maximum Inputs per game.
+     */
+    public static void main(final String[] theArgs) {
+        final String agent = Arguments.getString(theArgs, 0, "greedy");
+        final int games = Arguments.getInt(theArgs, 1, DEFAULT_GAMES);
+        final int threads = Arguments.getThreads(theArgs, 2);
+        final long seed = Arguments.getLong(theArgs, 3, new PieceSource().getSeed());
+        final long maxInputs = Arguments.getLong(theArgs, 4, DEFAULT_MAX_INPUTS);
+
+        final ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            final SelfPlay selfPlay = new SelfPlay(Board.DEFAULT_BOARD_WIDTH,
+                                                   Board.DEFAULT_BOARD_HEIGHT, maxInputs,
+                                                   createAgents(agent));
+            System.out.printf("%s: %d games on %d threads, seed %d%n", agent, games, threads,
+                              seed);
+            final long start = System.nanoTime();
+            final GameResult[] results = selfPlay.run(games, seed, pool, System.out::println);
+            final double seconds = (System.nanoTime() - start) / NANOS_PER_SECOND;
+
+            final int[] lines = new int[results.length];
+            long pieces = 0;
+            double sum = 0;
+            for (int i = 0; i < results.length; i++) {
+                lines[i] = results[i].getLines();
+                pieces += results[i].getPieces();
+                sum += lines[i];
+            }
+            Arrays.sort(lines);
+            final double mean = sum / Math.max(1, lines.length);
+            double squares = 0;
+            for (final int line : lines) {
+                squares += (line - mean) * (line - mean);
+            }
+
+            System.out.printf("%.1f games/s, %.0f pieces/s over %.2f s%n", games / seconds,
+                              pieces / seconds, seconds);
+            if (lines.length > 0) {
+                final StringBuilder sb = new StringBuilder();
+                sb.append(String.format(Locale.ROOT, "lines: mean %.1f, stddev %.1f, min %d",
+                                        mean, Math.sqrt(squares / lines.length), lines[0]));
+                for (final int percentile : PERCENTILES) {
+                    sb.append(", p").append(percentile).append(' ')
+                      .append(lines[(lines.length - 1) * percentile / 100]);
+                }
+                sb.append(", max ").append(lines[lines.length - 1]);
+                System.out.println(sb);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
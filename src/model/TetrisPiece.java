@@ -1,6 +1,7 @@
 package model;
 
-import java.util.Random;
+import java.util.Arrays;
+import java.util.SplittableRandom;
 
 /**
  * The TetrisPiece class, which enumerates the different types of Tetris pieces that exist.
@@ -49,9 +50,9 @@ public enum TetrisPiece {
     Z (3, 2, Block.Z, new Point(0, 2), new Point(1, 2), new Point(1, 1), new Point(2, 1));
 
     /**
-     * A Random object, which is used in generating a random piece
+     * The size of the square that bounds every TetrisPiece in any rotation.
      */
-    private static final Random RANDOM = new Random();
+    private static final int BOUNDING_SIZE = 4;
 
     /**
      * An integer representing the width of the TetrisPiece.
@@ -74,6 +75,46 @@ public enum TetrisPiece {
      */
     private final Block myBlock;
 
+    /**
+     * The precomputed local points of the TetrisPiece in every rotation,
+     * indexed by Rotation ordinal. Points are immutable, so these tables are
+     * shared by every MovableTetrisPiece.
+     */
+    private final Point[][] myRotatedPoints;
+
+    /**
+     * The occupancy masks of each local row of the TetrisPiece, indexed by
+     * Rotation ordinal and then by local row. Bit x of a mask is set when the
+     * rotated TetrisPiece has a block at local column x of that row.
+     */
+    private final long[][] myRowMasks;
+
+    /**
+     * The lowest local y-coordinate in each local column of the rotated TetrisPiece,
+     * indexed by Rotation ordinal and then by local column (BOUNDING_SIZE for empty columns).
+     */
+    private final int[][] myColumnBottoms;
+
+    /**
+     * The smallest local x-coordinate of the rotated TetrisPiece, indexed by Rotation ordinal.
+     */
+    private final int[] myMinX;
+
+    /**
+     * The largest local x-coordinate of the rotated TetrisPiece, indexed by Rotation ordinal.
+     */
+    private final int[] myMaxX;
+
+    /**
+     * The smallest local y-coordinate of the rotated TetrisPiece, indexed by Rotation ordinal.
+     */
+    private final int[] myMinY;
+
+    /**
+     * The largest local y-coordinate of the rotated TetrisPiece, indexed by Rotation ordinal.
+     */
+    private final int[] myMaxY;
+
     /**
      * The sole TetrisPiece constructor.
      * 
@@ -88,6 +129,36 @@ public enum TetrisPiece {
         myHeight = theHeight;
         myBlock = theBlock;
         myPoints = thePoints.clone();
+
+        final int rotations = Rotation.values().length;
+        myRotatedPoints = new Point[rotations][];
+        myRowMasks = new long[rotations][BOUNDING_SIZE];
+        myColumnBottoms = new int[rotations][BOUNDING_SIZE];
+        myMinX = new int[rotations];
+        myMaxX = new int[rotations];
+        myMinY = new int[rotations];
+        myMaxY = new int[rotations];
+        
+        /* Precomputing the points, row masks and bounds of every rotation. */
+        for (final Rotation rotation : Rotation.values()) {
+            final int r = rotation.ordinal();
+            myMinX[r] = Integer.MAX_VALUE;
+            myMaxX[r] = Integer.MIN_VALUE;
+            myMinY[r] = Integer.MAX_VALUE;
+            myMaxY[r] = Integer.MIN_VALUE;
+            Arrays.fill(myColumnBottoms[r], BOUNDING_SIZE);
+            myRotatedPoints[r] = new Point[thePoints.length];
+            for (int i = 0; i < thePoints.length; i++) {
+                final Point p = rotate(thePoints[i], rotation, theWidth, theBlock == Block.O);
+                myRotatedPoints[r][i] = p;
+                myRowMasks[r][p.getY()] |= 1L << p.getX();
+                myColumnBottoms[r][p.getX()] = Math.min(myColumnBottoms[r][p.getX()], p.getY());
+                myMinX[r] = Math.min(myMinX[r], p.getX());
+                myMaxX[r] = Math.max(myMaxX[r], p.getX());
+                myMinY[r] = Math.min(myMinY[r], p.getY());
+                myMaxY[r] = Math.max(myMaxY[r], p.getY());
+            }
+        }
     }
 
     /**
@@ -127,11 +198,146 @@ public enum TetrisPiece {
     }
 
     /**
-     * Get a random TetrisPiece.
+     * Returns the number of points (blocks) in the TetrisPiece.
+     * 
+     * @return The number of points in the TetrisPiece.
+     */
+    protected int getPointCount() {
+        return myPoints.length;
+    }
+
+    /**
+     * Returns one precomputed local point of the rotated TetrisPiece without copying.
      * 
+     * @param theRotation The rotation of the TetrisPiece.
+     * @param theIndex The index of the point, from 0 to getPointCount() - 1.
+     * @return The local point of the rotated TetrisPiece.
+     */
+    protected Point getPoint(final Rotation theRotation, final int theIndex) {
+        return myRotatedPoints[theRotation.ordinal()][theIndex];
+    }
+
+    /**
+     * Returns the width of the bounding box of the rotated TetrisPiece.
+     * 
+     * @param theRotation The rotation of the TetrisPiece.
+     * @return The width of the rotated TetrisPiece.
+     */
+    protected int getWidth(final Rotation theRotation) {
+        return myMaxX[theRotation.ordinal()] - myMinX[theRotation.ordinal()] + 1;
+    }
+
+    /**
+     * Returns the height of the bounding box of the rotated TetrisPiece.
+     * 
+     * @param theRotation The rotation of the TetrisPiece.
+     * @return The height of the rotated TetrisPiece.
+     */
+    protected int getHeight(final Rotation theRotation) {
+        return myMaxY[theRotation.ordinal()] - myMinY[theRotation.ordinal()] + 1;
+    }
+
+    /**
+     * Returns the occupancy mask of a local row of the rotated TetrisPiece.
+     * 
+     * @param theRotation The rotation of the TetrisPiece.
+     * @param theRow The local row, from 0 (bottom) upwards.
+     * @return The occupancy mask of the local row.
+     */
+    protected long getRowMask(final Rotation theRotation, final int theRow) {
+        return myRowMasks[theRotation.ordinal()][theRow];
+    }
+
+    /**
+     * Returns the lowest local y-coordinate of the rotated TetrisPiece in a local column.
+     * 
+     * @param theRotation The rotation of the TetrisPiece.
+     * @param theColumn The local column, between getMinX and getMaxX of the rotation.
+     * @return The lowest local y-coordinate of a block in the column.
+     */
+    protected int getColumnBottom(final Rotation theRotation, final int theColumn) {
+        return myColumnBottoms[theRotation.ordinal()][theColumn];
+    }
+
+    /**
+     * Returns the smallest local x-coordinate of the rotated TetrisPiece.
+     * 
+     * @param theRotation The rotation of the TetrisPiece.
+     * @return The smallest local x-coordinate.
+     */
+    protected int getMinX(final Rotation theRotation) {
+        return myMinX[theRotation.ordinal()];
+    }
+
+    /**
+     * Returns the largest local x-coordinate of the rotated TetrisPiece.
+     * 
+     * @param theRotation The rotation of the TetrisPiece.
+     * @return The largest local x-coordinate.
+     */
+    protected int getMaxX(final Rotation theRotation) {
+        return myMaxX[theRotation.ordinal()];
+    }
+
+    /**
+     * Returns the smallest local y-coordinate of the rotated TetrisPiece.
+     * 
+     * @param theRotation The rotation of the TetrisPiece.
+     * @return The smallest local y-coordinate.
+     */
+    protected int getMinY(final Rotation theRotation) {
+        return myMinY[theRotation.ordinal()];
+    }
+
+    /**
+     * Returns the largest local y-coordinate of the rotated TetrisPiece.
+     * 
+     * @param theRotation The rotation of the TetrisPiece.
+     * @return The largest local y-coordinate.
+     */
+    protected int getMaxY(final Rotation theRotation) {
+        return myMaxY[theRotation.ordinal()];
+    }
+
+    /**
+     * Get a random TetrisPiece. Each Board draws from its own generator
+     * (see PieceSource), so games never share random state.
+     * 
+     * @param theRandom The generator to draw from.
      * @return A random TetrisPiece object.
      */
-    protected static TetrisPiece getRandomPiece() {
-        return values()[RANDOM.nextInt(values().length)];
+    protected static TetrisPiece getRandomPiece(final SplittableRandom theRandom) {
+        return values()[theRandom.nextInt(values().length)];
+    }
+
+    /**
+     * Rotates a local point of a TetrisPiece clockwise around the piece's
+     * bounding square. Only used to build the precomputed rotation tables.
+     * 
+     * @param thePoint The local point to rotate.
+     * @param theRotation The rotation to apply.
+     * @param theWidth The width of the TetrisPiece.
+     * @param theFixed True if the piece does not change shape when rotated (the 'O' piece).
+     * @return The rotated local point.
+     */
+    private static Point rotate(final Point thePoint, final Rotation theRotation,
+                                final int theWidth, final boolean theFixed) {
+        Point result = thePoint;
+        if (!theFixed) {
+            switch (theRotation) {
+                case QUARTER:
+                    result = new Point(thePoint.getY(), theWidth - thePoint.getX() - 1);
+                    break;
+                case HALF:
+                    result = new Point(theWidth - thePoint.getX() - 1,
+                                       theWidth - thePoint.getY() - 1);
+                    break;
+                case THREEQUARTER:
+                    result = new Point(theWidth - thePoint.getY() - 1, thePoint.getX());
+                    break;
+                default:
+            }
+        }
+        return result;
     }
 }
\ No newline at end of file
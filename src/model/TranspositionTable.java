@@ -0,0 +1,153 @@
+package model;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The TranspositionTable class. A TranspositionTable remembers the scores of
+ * positions by a 64-bit position hash, so that a position reached by different
+ * move orders, or again on a later move, is scored only once.
+ *
+ * The table is a fixed-size array of slots shared by every search thread without
+ * locks. Each slot holds the score and the key XOR-ed with the score; a reader
+ * accepts a slot only if the two agree with its key, so a slot torn by racing
+ * writers reads as a miss rather than as a wrong score. A new entry simply
+ * replaces whatever its slot held.
+ *
+ * @author Logan Stafford
+ * @version 1.0
+ */
+public final class TranspositionTable {
+
+    /**
+     * The default number of slots.
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 20;
+
+    /**
+     * The largest number of slots.
+     */
+    private static final int MAX_CAPACITY = 1 << 26;
+
+    /**
+     * The slots, two longs each: the key XOR the score bits, then the score bits.
+     */
+    private final AtomicLongArray mySlots;
+
+    /**
+     * The mask that maps a key to a slot.
+     */
+    private final int myMask;
+
+    /**
+     * The number of lookups that found a score.
+     */
+    private final LongAdder myHits = new LongAdder();
+
+    /**
+     * The number of lookups that found no score.
+     */
+    private final LongAdder myMisses = new LongAdder();
+
+    /**
+     * The TranspositionTable constructor, which creates DEFAULT_CAPACITY slots.
+     */
+    public TranspositionTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * The TranspositionTable constructor.
+     *
+     * @param theCapacity The number of slots, rounded up to a power of two.
+     * @throws IllegalArgumentException if the capacity is not positive or too large.
+     */
+    public TranspositionTable(final int theCapacity) {
+        if (theCapacity < 1 || theCapacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Invalid capacity: " + theCapacity);
+        }
+        final int capacity = Integer.highestOneBit(theCapacity - 1) << 1;
+        myMask = Math.max(capacity, 1) - 1;
+        mySlots = new AtomicLongArray(2 * (myMask + 1));
+    }
+
+    /**
+     * Looks up the score of a position.
+     *
+     * @param theKey The position hash.
+     * @return The score, or NaN if the table does not hold it.
+     */
+    public double get(final long theKey) {
+        final int slot = getSlot(theKey);
+        final long value = mySlots.get(slot + 1);
+        double result = Double.NaN;
+        if ((mySlots.get(slot) ^ value) == theKey && value != 0) {
+            result = Double.longBitsToDouble(value);
+            myHits.increment();
+        } else {
+            myMisses.increment();
+        }
+        return result;
+    }
+
+    /**
+     * Stores the score of a position, replacing whatever its slot held.
+     *
+     * @param theKey The position hash.
+     * @param theScore The score.
+     */
+    public void put(final long theKey, final double theScore) {
+        final int slot = getSlot(theKey);
+        final long value = Double.doubleToLongBits(theScore);
+        mySlots.set(slot + 1, value);
+        mySlots.set(slot, theKey ^ value);
+    }
+
+    /**
+     * Removes every score and resets the hit and miss counts.
+     */
+    public void clear() {
+        for (int i = 0; i < mySlots.length(); i++) {
+            mySlots.set(i, 0);
+        }
+        myHits.reset();
+        myMisses.reset();
+    }
+
+    /**
+     * Returns the number of slots.
+     *
+     * @return The capacity of the table.
+     */
+    public int getCapacity() {
+        return myMask + 1;
+    }
+
+    /**
+     * Returns the number of lookups that found a score.
+     *
+     * @return The number of hits.
+     */
+    public long getHits() {
+        return myHits.sum();
+    }
+
+    /**
+     * Returns the number of lookups that found no score.
+     *
+     * @return The number of misses.
+     */
+    public long getMisses() {
+        return myMisses.sum();
+    }
+
+    /**
+     * Returns the index of the slot of a key.
+     *
+     * @param theKey The position hash.
+     * @return The index of the first long of its slot.
+     */
+    private int getSlot(final long theKey) {
+        return 2 * ((int) (theKey ^ theKey >>> Integer.SIZE) & myMask);
+    }
+}
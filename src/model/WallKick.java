@@ -0,0 +1,159 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * The WallKick class. This class holds the Super Rotation System wall kick
+ * offsets tried, in order, when a rotated piece does not fit where it is. The
+ * offsets are precomputed, static tables indexed by piece, from-rotation and
+ * to-rotation, and are read one coordinate at a time, so probing kicks never
+ * allocates. The J, L, S, T and Z pieces share one table, the I piece has its
+ * own, and the O piece never kicks.
+ *
+ * Only quarter turns have kicks; every other pair of rotations has none.
+ * A counterclockwise turn uses the offsets of the matching clockwise turn, negated.
+ *
+ * @author Logan Stafford
+ * @version 1.0
+ */
+final class WallKick {
+
+    /**
+     * The number of Rotations, used to index the tables by a pair of Rotations.
+     */
+    private static final int ROTATIONS = Rotation.values().length;
+
+    /**
+     * The clockwise kick offsets of the J, L, S, T and Z pieces, indexed by the
+     * from-rotation ordinal, as interleaved x and y offsets.
+     */
+    private static final int[][] JLSTZ_CLOCKWISE = {
+        {0, 0, -1, 0, -1, 1, 0, -2, -1, -2},
+        {0, 0, 1, 0, 1, -1, 0, 2, 1, 2},
+        {0, 0, 1, 0, 1, 1, 0, -2, 1, -2},
+        {0, 0, -1, 0, -1, -1, 0, 2, -1, 2},
+    };
+
+    /**
+     * The clockwise kick offsets of the I piece, indexed by the from-rotation
+     * ordinal, as interleaved x and y offsets.
+     */
+    private static final int[][] I_CLOCKWISE = {
+        {0, 0, -2, 0, 1, 0, -2, -1, 1, 2},
+        {0, 0, -1, 0, 2, 0, -1, 2, 2, -1},
+        {0, 0, 2, 0, -1, 0, 2, 1, -1, -2},
+        {0, 0, 1, 0, -2, 0, 1, -2, -2, 1},
+    };
+
+    /**
+     * A shared, empty table for rotations without kicks.
+     */
+    private static final int[] NO_KICKS = new int[0];
+
+    /**
+     * The kick offsets of every piece, indexed by the TetrisPiece ordinal and then by
+     * from-rotation ordinal * ROTATIONS + to-rotation ordinal.
+     */
+    private static final int[][][] KICKS = buildKicks();
+
+    /**
+     * A dummy constructor used to prevent instantiation.
+     */
+    private WallKick() {
+        throw new IllegalStateException();
+    }
+
+    /**
+     * Returns the number of kick offsets to try for a rotation.
+     *
+     * @param thePiece The piece being rotated.
+     * @param theFrom The Rotation before the turn.
+     * @param theTo The Rotation after the turn.
+     * @return The number of offsets, or 0 if the rotation has no kicks.
+     */
+    static int getKickCount(final TetrisPiece thePiece, final Rotation theFrom,
+                            final Rotation theTo) {
+        return getKicks(thePiece, theFrom, theTo).length / 2;
+    }
+
+    /**
+     * Returns the x offset of a kick.
+     *
+     * @param thePiece The piece being rotated.
+     * @param theFrom The Rotation before the turn.
+     * @param theTo The Rotation after the turn.
+     * @param theIndex The index of the kick, in the order kicks are tried.
+     * @return The x offset of the kick.
+     */
+    static int getKickX(final TetrisPiece thePiece, final Rotation theFrom,
+                        final Rotation theTo, final int theIndex) {
+        return getKicks(thePiece, theFrom, theTo)[2 * theIndex];
+    }
+
+    /**
+     * Returns the y offset of a kick.
+     *
+     * @param thePiece The piece being rotated.
+     * @param theFrom The Rotation before the turn.
+     * @param theTo The Rotation after the turn.
+     * @param theIndex The index of the kick, in the order kicks are tried.
+     * @return The y offset of the kick.
+     */
+    static int getKickY(final TetrisPiece thePiece, final Rotation theFrom,
+                        final Rotation theTo, final int theIndex) {
+        return getKicks(thePiece, theFrom, theTo)[2 * theIndex + 1];
+    }
+
+    /**
+     * Looks up the interleaved kick offsets of a rotation.
+     *
+     * @param thePiece The piece being rotated.
+     * @param theFrom The Rotation before the turn.
+     * @param theTo The Rotation after the turn.
+     * @return The interleaved x and y offsets; never modify the returned array.
+     */
+    private static int[] getKicks(final TetrisPiece thePiece, final Rotation theFrom,
+                                  final Rotation theTo) {
+        return KICKS[thePiece.ordinal()][theFrom.ordinal() * ROTATIONS + theTo.ordinal()];
+    }
+
+    /**
+     * Builds the kick tables of every piece and pair of Rotations.
+     *
+     * @return The kick tables, indexed as described for KICKS.
+     */
+    private static int[][][] buildKicks() {
+        final int[][][] kicks = new int[TetrisPiece.values().length][][];
+        for (final TetrisPiece piece : TetrisPiece.values()) {
+            final int[][] pieceKicks = new int[ROTATIONS * ROTATIONS][];
+            Arrays.fill(pieceKicks, NO_KICKS);
+            if (piece != TetrisPiece.O) {
+                int[][] clockwise = JLSTZ_CLOCKWISE;
+                if (piece == TetrisPiece.I) {
+                    clockwise = I_CLOCKWISE;
+                }
+                for (int from = 0; from < ROTATIONS; from++) {
+                    final int to = (from + 1) % ROTATIONS;
+                    pieceKicks[from * ROTATIONS + to] = clockwise[from];
+                    pieceKicks[to * ROTATIONS + from] = negate(clockwise[from]);
+                }
+            }
+            kicks[piece.ordinal()] = pieceKicks;
+        }
+        return kicks;
+    }
+
+    /**
+     * Negates every offset of a kick table.
+     *
+     * @param theKicks The interleaved offsets to negate.
+     * @return A new table of the negated offsets.
+     */
+    private static int[] negate(final int[] theKicks) {
+        final int[] result = new int[theKicks.length];
+        for (int i = 0; i < theKicks.length; i++) {
+            result[i] = -theKicks[i];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,529 @@
+package model;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * The WeightTuner class. A WeightTuner evolves the weights of a WeightedHeuristic
+ * by playing seeded headless games, using the cross-entropy method - a diagonal
+ * relative of CMA-ES that copes well with the noise of Tetris scores. Every
+ * generation it samples a population of weight vectors from a normal distribution,
+ * has a GreedyAgent play the same set of games with each one, and refits the
+ * mean and spread of the distribution to the elite candidates that cleared the
+ * most lines.
+ *
+ * Every game of every candidate runs as its own fork-join task, on a headless
+ * Board fed by a PieceSource with the game's own seed. The seeds, and the samples
+ * of each generation, are derived from the tuner's seed and the generation number
+ * alone, so a run is reproducible whatever the number of cores, and a run resumed
+ * from a checkpoint continues exactly as if it had not stopped. Games are capped at
+ * a number of pieces, since good weights may otherwise never lose. The default cap
+ * is several times the number of pieces the default weights survive on average, so
+ * that the lines cleared keep telling candidates apart rather than all reaching the
+ * most the cap allows.
+ *
+ * @author Logan Stafford
+ * @version 1.0
+ */
+public final class WeightTuner {
+
+    /**
+     * The default number of candidates per generation.
+     */
+    public static final int DEFAULT_POPULATION = 40;
+
+    /**
+     * The default number of elite candidates the distribution is refitted to.
+     */
+    public static final int DEFAULT_ELITE = 10;
+
+    /**
+     * The default number of games each candidate plays.
+     */
+    public static final int DEFAULT_GAMES = 10;
+
+    /**
+     * The default number of pieces after which a game is stopped.
+     */
+    public static final int DEFAULT_MAX_PIECES = 10_000;
+
+    /**
+     * The spread of the first generation around the default weights.
+     */
+    private static final double INITIAL_SIGMA = 0.5;
+
+    /**
+     * The variance added to the spread every generation, so that it does not
+     * collapse before the mean has settled.
+     */
+    private static final double NOISE = 0.01;
+
+    /**
+     * The odd multiplier that derives a generation's seed from the tuner's seed.
+     */
+    private static final long GENERATION_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    /**
+     * The number of generations run from the command line by default.
+     */
+    private static final int DEFAULT_GENERATIONS = 20;
+
+    /**
+     * The number of nanoseconds in a second.
+     */
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    /**
+     * The width of the tuning boards.
+     */
+    private final int myWidth;
+
+    /**
+     * The height of the tuning boards.
+     */
+    private final int myHeight;
+
+    /**
+     * The number of candidates per generation.
+     */
+    private final int myPopulation;
+
+    /**
+     * The number of elite candidates the distribution is refitted to.
+     */
+    private final int myElite;
+
+    /**
+     * The number of games each candidate plays.
+     */
+    private final int myGames;
+
+    /**
+     * The number of pieces after which a game is stopped.
+     */
+    private final int myMaxPieces;
+
+    /**
+     * The seed every generation's samples and games are derived from.
+     */
+    private final long mySeed;
+
+    /**
+     * The mean of the weight distribution.
+     */
+    private final double[] myMean;
+
+    /**
+     * The standard deviation of each weight.
+     */
+    private final double[] mySigma;
+
+    /**
+     * The weights of the best candidate found so far.
+     */
+    private double[] myBestWeights;
+
+    /**
+     * The fitness of the best candidate found so far.
+     */
+    private double myBestFitness;
+
+    /**
+     * The number of generations run.
+     */
+    private int myGeneration;
+
+    /**
+     * The PlacementSearch of each worker thread.
+     */
+    private final ThreadLocal<PlacementSearch> mySearches =
+        ThreadLocal.withInitial(PlacementSearch::new);
+
+    /**
+     * The WeightTuner constructor, which starts from the default weights.
+     *
+     * @param theWidth The width of the tuning boards.
+     * @param theHeight The height of the tuning boards.
+     * @param thePopulation The number of candidates per generation.
+     * @param theElite The number of elite candidates the distribution is refitted to.
+     * @param theGames The number of games each candidate plays.
+     * @param theMaxPieces The number of pieces after which a game is stopped.
+     * @param theSeed The seed every generation is derived from.
+     * @throws IllegalArgumentException if the elite is not between 1 and the
+     *                                  population, or a game count is not positive.
+     */
+    public WeightTuner(final int theWidth, final int theHeight, final int thePopulation,
+                       final int theElite, final int theGames, final int theMaxPieces,
+                       final long theSeed) {
+        if (theElite < 1 || theElite > thePopulation || theGames < 1 || theMaxPieces < 1) {
+            throw new IllegalArgumentException("Invalid population, elite or game settings");
+        }
+        myWidth = theWidth;
+        myHeight = theHeight;
+        myPopulation = thePopulation;
+        myElite = theElite;
+        myGames = theGames;
+        myMaxPieces = theMaxPieces;
+        mySeed = theSeed;
+        myMean = WeightedHeuristic.DEFAULT.getWeights();
+        mySigma = new double[WeightedHeuristic.WEIGHT_COUNT];
+        Arrays.fill(mySigma, INITIAL_SIGMA);
+        myBestWeights = myMean.clone();
+        myBestFitness = Double.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * Runs one generation: samples the candidates, plays their games on a pool,
+     * and refits the distribution to the elite.
+     *
+     * @param thePool The pool to play the games on.
+     * @return The mean fitness of the generation's candidates.
+     */
+    public double step(final ForkJoinPool thePool) {
+        final long generationSeed = mySeed + GENERATION_MULTIPLIER * (myGeneration + 1);
+        final Random random = new Random(generationSeed);
+        final double[][] candidates = new double[myPopulation][WeightedHeuristic.WEIGHT_COUNT];
+        for (final double[] candidate : candidates) {
+            for (int i = 0; i < candidate.length; i++) {
+                candidate[i] = myMean[i] + mySigma[i] * random.nextGaussian();
+            }
+        }
+        final long[] seeds = new long[myGames];
+        final SplittableRandom seedSource = new SplittableRandom(generationSeed);
+        for (int i = 0; i < seeds.length; i++) {
+            seeds[i] = seedSource.nextLong();
+        }
+
+        /* One task per game of every candidate; all candidates play the same games. */
+        final int[] lines = new int[myPopulation * myGames];
+        run(thePool, () -> IntStream.range(0, lines.length).parallel().forEach(
+            task -> lines[task] = play(candidates[task / myGames], seeds[task % myGames])));
+
+        final double[] fitness = new double[myPopulation];
+        final Integer[] order = new Integer[myPopulation];
+        double total = 0;
+        for (int c = 0; c < myPopulation; c++) {
+            for (int g = 0; g < myGames; g++) {
+                fitness[c] += lines[c * myGames + g];
+            }
+            fitness[c] /= myGames;
+            order[c] = c;
+            total += fitness[c];
+        }
+        Arrays.sort(order, (theFirst, theSecond) -> Double.compare(fitness[theSecond],
+                                                                   fitness[theFirst]));
+        if (fitness[order[0]] > myBestFitness) {
+            myBestFitness = fitness[order[0]];
+            myBestWeights = candidates[order[0]].clone();
+        }
+
+        for (int i = 0; i < myMean.length; i++) {
+            double mean = 0;
+            for (int e = 0; e < myElite; e++) {
+                mean += candidates[order[e]][i];
+            }
+            mean /= myElite;
+            double variance = 0;
+            for (int e = 0; e < myElite; e++) {
+                variance += (candidates[order[e]][i] - mean) * (candidates[order[e]][i] - mean);
+            }
+            myMean[i] = mean;
+            mySigma[i] = Math.sqrt(variance / myElite + NOISE);
+        }
+        myGeneration++;
+        return total / myPopulation;
+    }
+
+    /**
+     * Plays one game with a candidate's weights.
+     *
+     * @param theWeights The weights of the candidate.
+     * @param theSeed The seed of the game's PieceSource.
+     * @return The number of lines cleared before the game ended or was stopped.
+     */
+    private int play(final double[] theWeights, final long theSeed) {
+        final PlacementSearch search = mySearches.get();
+        final Heuristic heuristic = new WeightedHeuristic(theWeights);
+        final Board board = new Board(myWidth, myHeight, theSeed);
+        board.newGame();
+        while (!board.isGameOver() && board.getPiecesFrozen() < myMaxPieces) {
+            final Placement placement = search.findBest(board, heuristic);
+            if (placement == null) {
+                board.drop();
+            } else {
+                for (int i = 0; i < placement.getInputCount(); i++) {
+                    placement.getInput(i).apply(board);
+                }
+            }
+        }
+        return board.getLinesCleared();
+    }
+
+    /**
+     * Returns the number of generations run.
+     *
+     * @return The generation count.
+     */
+    public int getGeneration() {
+        return myGeneration;
+    }
+
+    /**
+     * Returns the mean of the weight distribution.
+     *
+     * @return A copy of the mean weights.
+     */
+    public double[] getMean() {
+        return myMean.clone();
+    }
+
+    /**
+     * Returns the standard deviation of each weight.
+     *
+     * @return A copy of the standard deviations.
+     */
+    public double[] getSigma() {
+        return mySigma.clone();
+    }
+
+    /**
+     * Returns the weights of the best candidate found so far.
+     *
+     * @return A copy of the best weights.
+     */
+    public double[] getBestWeights() {
+        return myBestWeights.clone();
+    }
+
+    /**
+     * Returns the fitness of the best candidate found so far.
+     *
+     * @return The mean lines cleared per game by the best candidate.
+     */
+    public double getBestFitness() {
+        return myBestFitness;
+    }
+
+    /**
+     * Returns the number of games played per generation.
+     *
+     * @return The population times the games per candidate.
+     */
+    public int getGamesPerGeneration() {
+        return myPopulation * myGames;
+    }
+
+    /**
+     * Writes the settings and state of the tuner to a checkpoint file. The file is
+     * written beside the checkpoint and then moved over it, so an interrupted write
+     * leaves the previous checkpoint intact.
+     *
+     * @param thePath The checkpoint file.
+     * @throws IOException if the checkpoint cannot be written.
+     */
+    public void save(final Path thePath) throws IOException {
+        final Properties properties = new Properties();
+        properties.setProperty("width", Integer.toString(myWidth));
+        properties.setProperty("height", Integer.toString(myHeight));
+        properties.setProperty("population", Integer.toString(myPopulation));
+        properties.setProperty("elite", Integer.toString(myElite));
+        properties.setProperty("games", Integer.toString(myGames));
+        properties.setProperty("maxPieces", Integer.toString(myMaxPieces));
+        properties.setProperty("seed", Long.toString(mySeed));
+        properties.setProperty("generation", Integer.toString(myGeneration));
+        properties.setProperty("mean", join(myMean));
+        properties.setProperty("sigma", join(mySigma));
+        properties.setProperty("bestWeights", join(myBestWeights));
+        properties.setProperty("bestFitness", Double.toString(myBestFitness));
+
+        final Path temporary = thePath.resolveSibling(thePath.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            properties.store(writer, "WeightTuner checkpoint");
+        }
+        Files.move(temporary, thePath, StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a tuner back from a checkpoint file.
+     *
+     * @param thePath The checkpoint file.
+     * @return A tuner that continues from the checkpoint.
+     * @throws IOException if the checkpoint cannot be read.
+     * @throws IllegalArgumentException if the checkpoint is malformed.
+     */
+    public static WeightTuner load(final Path thePath) throws IOException {
+        final Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(thePath, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        final WeightTuner result = new WeightTuner(getInt(properties, "width"),
+                                                   getInt(properties, "height"),
+                                                   getInt(properties, "population"),
+                                                   getInt(properties, "elite"),
+                                                   getInt(properties, "games"),
+                                                   getInt(properties, "maxPieces"),
+                                                   Long.parseLong(get(properties, "seed")));
+        result.myGeneration = getInt(properties, "generation");
+        copy(split(get(properties, "mean")), result.myMean);
+        copy(split(get(properties, "sigma")), result.mySigma);
+        result.myBestWeights = split(get(properties, "bestWeights"));
+        result.myBestFitness = Double.parseDouble(get(properties, "bestFitness"));
+        return result;
+    }
+
+    /**
+     * Runs a task on a pool and waits for it.
+     *
+     * @param thePool The pool.
+     * @param theTask The task.
+     */
+    private static void run(final ForkJoinPool thePool, final Runnable theTask) {
+        try {
+            thePool.submit(theTask).get();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Tuning interrupted", ex);
+        } catch (final ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    /**
+     * Writes weights as a comma-separated list.
+     *
+     * @param theWeights The weights.
+     * @return The list.
+     */
+    private static String join(final double[] theWeights) {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < theWeights.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(theWeights[i]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Reads weights from a comma-separated list.
+     *
+     * @param theList The list.
+     * @return The weights.
+     * @throws IllegalArgumentException if the list does not hold WEIGHT_COUNT numbers.
+     */
+    private static double[] split(final String theList) {
+        final String[] values = theList.split(",");
+        if (values.length != WeightedHeuristic.WEIGHT_COUNT) {
+            throw new IllegalArgumentException("Expected " + WeightedHeuristic.WEIGHT_COUNT
+                                               + " weights: " + theList);
+        }
+        final double[] result = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = Double.parseDouble(values[i].trim());
+        }
+        return result;
+    }
+
+    /**
+     * Copies weights into an array.
+     *
+     * @param theSource The weights.
+     * @param theTarget The array.
+     */
+    private static void copy(final double[] theSource, final double[] theTarget) {
+        System.arraycopy(theSource, 0, theTarget, 0, theTarget.length);
+    }
+
+    /**
+     * Reads a required property of a checkpoint.
+     *
+     * @param theProperties The checkpoint.
+     * @param theKey The property.
+     * @return The value.
+     * @throws IllegalArgumentException if the property is missing.
+     */
+    private static String get(final Properties theProperties, final String theKey) {
+        final String result = theProperties.getProperty(theKey);
+        if (result == null) {
+            throw new IllegalArgumentException("Checkpoint has no " + theKey);
+        }
+        return result;
+    }
+
+    /**
+     * Reads a required integer property of a checkpoint.
+     *
+     * @param theProperties The checkpoint.
+     * @param theKey The property.
+     * @return The value.
+     * @throws IllegalArgumentException if the property is missing or not an integer.
+     */
+    private static int getInt(final Properties theProperties, final String theKey) {
+        return Integer.parseInt(get(theProperties, theKey));
+    }
+
+    /**
+     * Tunes weights from the command line, resuming from the checkpoint file if it
+     * exists and saving it after every generation.
+     *
+     * @param theArgs The checkpoint file, and optionally the number of generations
+     *                to run, the number of threads and the seed of a new run.
+     */
+    public static void main(final String[] theArgs) {
+        if (theArgs.length == 0) {
+            System.err.println("Usage: WeightTuner <checkpoint> [generations] [threads] [seed]");
+            return;
+        }
+        final Path checkpoint = Paths.get(theArgs[0]);
+        final int generations = Arguments.getInt(theArgs, 1, DEFAULT_GENERATIONS);
+        final int threads = Arguments.getThreads(theArgs, 2);
+        final long seed = Arguments.getLong(theArgs, 3, new PieceSource().getSeed());
+
+        final ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            WeightTuner tuner = new WeightTuner(Board.DEFAULT_BOARD_WIDTH,
+                                                Board.DEFAULT_BOARD_HEIGHT, DEFAULT_POPULATION,
+                                                DEFAULT_ELITE, DEFAULT_GAMES,
+                                                DEFAULT_MAX_PIECES, seed);
+            if (Files.exists(checkpoint)) {
+                tuner = load(checkpoint);
+                System.out.println("Resuming at generation " + tuner.getGeneration());
+            }
+            for (int i = 0; i < generations; i++) {
+                final long start = System.nanoTime();
+                final double fitness = tuner.step(pool);
+                final double seconds = (System.nanoTime() - start) / NANOS_PER_SECOND;
+                tuner.save(checkpoint);
+                System.out.printf("generation %d: mean %.1f lines, best %.1f, %.0f games/min,"
+                                  + " mean %s%n", tuner.getGeneration(), fitness,
+                                  tuner.getBestFitness(),
+                                  tuner.getGamesPerGeneration() * 60 / seconds,
+                                  Arrays.toString(tuner.getMean()));
+            }
+            System.out.println("best " + new WeightedHeuristic(tuner.getBestWeights()));
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * The WeightedHeuristic class. A WeightedHeuristic scores a placement by a weighted
+ * sum of the aggregate height, lines cleared, holes and bumpiness of the board it
+ * leaves. The default weights are the well-known hand-tuned ones, which penalize
+ * height, holes and bumpiness and reward clearing lines.
+ *
+ * @author Logan Stafford
+ * @version 1.0
+ */
+public final class WeightedHeuristic implements Heuristic {
+
+    /**
+     * The number of weights.
+     */
+    public static final int WEIGHT_COUNT = 4;
+
+    /**
+     * The index of the aggregate height weight.
+     */
+    public static final int AGGREGATE_HEIGHT = 0;
+
+    /**
+     * The index of the lines cleared weight.
+     */
+    public static final int LINES = 1;
+
+    /**
+     * The index of the holes weight.
+     */
+    public static final int HOLES = 2;
+
+    /**
+     * The index of the bumpiness weight.
+     */
+    public static final int BUMPINESS = 3;
+
+    /**
+     * A WeightedHeuristic with the default weights.
+     */
+    public static final WeightedHeuristic DEFAULT =
+        new WeightedHeuristic(-0.510066, 0.760666, -0.35663, -0.184483);
+
+    /**
+     * The weight of the aggregate height.
+     */
+    private final double myHeightWeight;
+
+    /**
+     * The weight of the lines cleared.
+     */
+    private final double myLinesWeight;
+
+    /**
+     * The weight of the holes.
+     */
+    private final double myHolesWeight;
+
+    /**
+     * The weight of the bumpiness.
+     */
+    private final double myBumpinessWeight;
+
+    /**
+     * The WeightedHeuristic constructor.
+     *
+     * @param theHeightWeight The weight of the aggregate height.
+     * @param theLinesWeight The weight of the lines cleared.
+     * @param theHolesWeight The weight of the holes.
+     * @param theBumpinessWeight The weight of the bumpiness.
+     */
+    public WeightedHeuristic(final double theHeightWeight, final double theLinesWeight,
+                             final double theHolesWeight, final double theBumpinessWeight) {
+        myHeightWeight = theHeightWeight;
+        myLinesWeight = theLinesWeight;
+        myHolesWeight = theHolesWeight;
+        myBumpinessWeight = theBumpinessWeight;
+    }
+
+    /**
+     * The WeightedHeuristic constructor.
+     *
+     * @param theWeights The weights, indexed by AGGREGATE_HEIGHT, LINES, HOLES and BUMPINESS.
+     * @throws IllegalArgumentException if there are not WEIGHT_COUNT weights.
+     */
+    public WeightedHeuristic(final double[] theWeights) {
+        this(checkWeights(theWeights)[AGGREGATE_HEIGHT], theWeights[LINES],
+             theWeights[HOLES], theWeights[BUMPINESS]);
+    }
+
+    @Override
+    public double evaluate(final BoardFeatures theFeatures) {
+        return myHeightWeight * theFeatures.getAggregateHeight()
+               + myLinesWeight * theFeatures.getLinesCleared()
+               + myHolesWeight * theFeatures.getHoles()
+               + myBumpinessWeight * theFeatures.getBumpiness();
+    }
+
+    /**
+     * Returns the weights.
+     *
+     * @return A new array of the weights, indexed by AGGREGATE_HEIGHT, LINES, HOLES
+     *         and BUMPINESS.
+     */
+    public double[] getWeights() {
+        final double[] result = new double[WEIGHT_COUNT];
+        result[AGGREGATE_HEIGHT] = myHeightWeight;
+        result[LINES] = myLinesWeight;
+        result[HOLES] = myHolesWeight;
+        result[BUMPINESS] = myBumpinessWeight;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "WeightedHeuristic" + Arrays.toString(getWeights());
+    }
+
+    /**
+     * Checks the number of weights.
+     *
+     * @param theWeights The weights.
+     * @return The weights.
+     * @throws IllegalArgumentException if there are not WEIGHT_COUNT weights.
+     */
+    private static double[] checkWeights(final double[] theWeights) {
+        if (theWeights.length != WEIGHT_COUNT) {
+            throw new IllegalArgumentException("Expected " + WEIGHT_COUNT + " weights: "
+                                               + Arrays.toString(theWeights));
+        }
+        return theWeights;
+    }
+}
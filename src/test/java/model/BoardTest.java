@@ -0,0 +1,52 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The BoardTest class. Tests that observers told the game is over see the
+ * final board.
+ *
+ * @author Logan Stafford
+ * @version 1.0
+ */
+public class BoardTest {
+
+    /**
+     * The maximum number of drops before the game must be over.
+     */
+    private static final int MAX_DROPS = 1000;
+
+    /**
+     * The number of seeded games played.
+     */
+    private static final int SEEDS = 20;
+
+    /**
+     * Tests that a piece frozen above the top is fully frozen and counted before
+     * the game over event.
+     */
+    @Test
+    public void testGameOverSeesFinalBoard() {
+        for (long seed = 1; seed <= SEEDS; seed++) {
+            final Board board = new Board(10, 20, seed);
+            final byte[][] atGameOver = new byte[1][];
+            board.addObserver((theBoard, theData) -> {
+                if (theData instanceof BoardEvent
+                    && ((BoardEvent) theData).getType() == BoardEvent.Type.GAME_OVER) {
+                    atGameOver[0] = board.snapshot().toByteArray();
+                }
+            });
+            board.newGame(seed);
+            for (int i = 0; i < MAX_DROPS && !board.isGameOver(); i++) {
+                board.drop();
+            }
+            assertTrue(board.isGameOver());
+            assertNotNull(atGameOver[0]);
+            assertArrayEquals(board.snapshot().toByteArray(), atGameOver[0]);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * The ReplayArchiveTest class. Tests that games appended to an archive, across
+ * reopened writers and after an interrupted append, read back unchanged.
+ *
+ * @author Logan Stafford
+ * @version 1.0
+ */
+public class ReplayArchiveTest {
+
+    /**
+     * The number of Inputs recorded per game.
+     */
+    private static final int INPUTS = 1500;
+
+    /**
+     * The number of locked pieces between Keyframes.
+     */
+    private static final int KEYFRAME_INTERVAL = 10;
+
+    /**
+     * The directory holding the archive of each test.
+     */
+    @TempDir
+    Path myDirectory;
+
+    /**
+     * Appends a recorded game to an archive, scored by its seed.
+     *
+     * @param theWriter The archive writer.
+     * @param theRecorder The recorder holding the game.
+     * @throws IOException if the game cannot be written.
+     */
+    private static void append(final ReplayArchiveWriter theWriter,
+                               final ReplayRecorder theRecorder) throws IOException {
+        final Replay replay = theRecorder.toReplay();
+        theWriter.append(replay, theRecorder.getBoard().snapshot(), replay.getSeed());
+    }
+
+    /**
+     * Checks that an archive entry holds a recorded game.
+     *
+     * @param theArchive The archive.
+     * @param theEntry The entry index.
+     * @param theRecorder The recorder holding the game.
+     * @throws IOException if the entry cannot be read.
+     */
+    private static void assertEntry(final ReplayArchive theArchive, final int theEntry,
+                                    final ReplayRecorder theRecorder) throws IOException {
+        final Replay replay = theRecorder.toReplay();
+        final BoardSnapshot finalState = theRecorder.getBoard().snapshot();
+        assertEquals(replay.getSeed(), theArchive.getSeed(theEntry));
+        assertEquals(replay.getSeed(), theArchive.getScore(theEntry));
+        assertEquals(finalState.getLinesCleared(), theArchive.getLinesCleared(theEntry));
+        assertEquals(finalState.getPiecesFrozen(), theArchive.getPiecesFrozen(theEntry));
+        assertEquals(replay.getWidth(), theArchive.getWidth(theEntry));
+        assertEquals(replay.getHeight(), theArchive.getHeight(theEntry));
+        assertArrayEquals(replay.toByteArray(), theArchive.getReplay(theEntry).toByteArray());
+        assertArrayEquals(finalState.toByteArray(),
+                          theArchive.getFinalState(theEntry).toByteArray());
+    }
+
+    /**
+     * Tests that games appended by successive writers are all read back.
+     *
+     * @throws IOException if the archive cannot be used.
+     */
+    @Test
+    public void testAppendReopenRead() throws IOException {
+        final Path path = myDirectory.resolve("games.ctra");
+        final ReplayRecorder first = ReplayTest.record(1, INPUTS, KEYFRAME_INTERVAL);
+        final ReplayRecorder second = ReplayTest.record(2, INPUTS, KEYFRAME_INTERVAL);
+        final ReplayRecorder third = ReplayTest.record(3, INPUTS, 0);
+
+        try (ReplayArchiveWriter writer = new ReplayArchiveWriter(path)) {
+            assertEquals(0, writer.getEntryCount());
+            append(writer, first);
+            append(writer, second);
+        }
+        try (ReplayArchive archive = ReplayArchive.open(path)) {
+            assertEquals(2, archive.getEntryCount());
+            assertEntry(archive, 0, first);
+            assertEntry(archive, 1, second);
+        }
+
+        try (ReplayArchiveWriter writer = new ReplayArchiveWriter(path)) {
+            assertEquals(2, writer.getEntryCount());
+            append(writer, third);
+        }
+        try (ReplayArchive archive = ReplayArchive.open(path)) {
+            assertEquals(3, archive.getEntryCount());
+            assertEntry(archive, 0, first);
+            assertEntry(archive, 1, second);
+            assertEntry(archive, 2, third);
+        }
+    }
+
+    /**
+     * Tests that a partly written index record is ignored by readers and dropped by
+     * the next writer, whose append then reads back in its place.
+     *
+     * @throws IOException if the archive cannot be used.
+     */
+    @Test
+    public void testTruncatedIndex() throws IOException {
+        final Path path = myDirectory.resolve("games.ctra");
+        final ReplayRecorder first = ReplayTest.record(4, INPUTS, KEYFRAME_INTERVAL);
+        final ReplayRecorder second = ReplayTest.record(5, INPUTS, KEYFRAME_INTERVAL);
+        final ReplayRecorder third = ReplayTest.record(6, INPUTS, KEYFRAME_INTERVAL);
+
+        try (ReplayArchiveWriter writer = new ReplayArchiveWriter(path)) {
+            append(writer, first);
+            append(writer, second);
+        }
+        try (FileChannel index = FileChannel.open(ReplayArchive.getIndexPath(path),
+                                                  StandardOpenOption.WRITE)) {
+            index.truncate(index.size() - ReplayArchive.RECORD_SIZE / 2);
+        }
+        try (ReplayArchive archive = ReplayArchive.open(path)) {
+            assertEquals(1, archive.getEntryCount());
+            assertEntry(archive, 0, first);
+        }
+
+        try (ReplayArchiveWriter writer = new ReplayArchiveWriter(path)) {
+            assertEquals(1, writer.getEntryCount());
+            append(writer, third);
+        }
+        try (ReplayArchive archive = ReplayArchive.open(path)) {
+            assertEquals(2, archive.getEntryCount());
+            assertEntry(archive, 0, first);
+            assertEntry(archive, 1, third);
+        }
+    }
+
+    /**
+     * Tests that an index record whose entry is not fully in the data file is not
+     * counted by readers.
+     *
+     * @throws IOException if the archive cannot be used.
+     */
+    @Test
+    public void testTruncatedData() throws IOException {
+        final Path path = myDirectory.resolve("games.ctra");
+        final ReplayRecorder first = ReplayTest.record(7, INPUTS, KEYFRAME_INTERVAL);
+        final ReplayRecorder second = ReplayTest.record(8, INPUTS, KEYFRAME_INTERVAL);
+
+        try (ReplayArchiveWriter writer = new ReplayArchiveWriter(path)) {
+            append(writer, first);
+            append(writer, second);
+        }
+        try (FileChannel data = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            data.truncate(data.size() - 1);
+        }
+        try (ReplayArchive archive = ReplayArchive.open(path)) {
+            assertEquals(1, archive.getEntryCount());
+            assertEntry(archive, 0, first);
+        }
+    }
+}
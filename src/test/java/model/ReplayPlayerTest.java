@@ -0,0 +1,94 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The ReplayPlayerTest class. Tests that seeking through a Replay, with or without
+ * Keyframes, reaches the same board as playing it one event at a time.
+ *
+ * @author Logan Stafford
+ * @version 1.0
+ */
+public class ReplayPlayerTest {
+
+    /**
+     * The seed of the recorded game.
+     */
+    private static final long SEED = 7_777L;
+
+    /**
+     * The number of Inputs recorded.
+     */
+    private static final int INPUTS = 3000;
+
+    /**
+     * The number of locked pieces between Keyframes.
+     */
+    private static final int KEYFRAME_INTERVAL = 4;
+
+    /**
+     * The number of events between the positions compared.
+     */
+    private static final int STRIDE = 97;
+
+    /**
+     * Tests that playing a Replay back ends on the recorded board.
+     */
+    @Test
+    public void testPlaybackMatchesRecording() {
+        final ReplayRecorder recorder = ReplayTest.record(SEED, INPUTS, KEYFRAME_INTERVAL);
+        final ReplayPlayer player = new ReplayPlayer(recorder.toReplay());
+        assertEquals(recorder.getEventCount(), player.playToEnd());
+        assertArrayEquals(recorder.getBoard().snapshot().toByteArray(),
+                          player.getBoard().snapshot().toByteArray());
+    }
+
+    /**
+     * Tests that seeking forwards and backwards reaches the board stepping reaches.
+     */
+    @Test
+    public void testSeekMatchesStepping() {
+        final Replay replay = ReplayTest.record(SEED, INPUTS, KEYFRAME_INTERVAL).toReplay();
+        assertTrue(replay.getKeyframes().size() > 1);
+        final ReplayPlayer stepper = new ReplayPlayer(replay);
+        final ReplayPlayer seeker = new ReplayPlayer(replay);
+        final ReplayPlayer rewinder = new ReplayPlayer(replay);
+        rewinder.seek(replay.getEventCount());
+
+        for (int target = 0; target <= replay.getEventCount(); target += STRIDE) {
+            while (stepper.getEventIndex() < target) {
+                stepper.step();
+            }
+            seeker.seek(target);
+            rewinder.seek(target - STRIDE);
+            rewinder.seek(target);
+            final byte[] expected = stepper.getBoard().snapshot().toByteArray();
+            assertEquals(target, seeker.getEventIndex());
+            assertEquals(stepper.getTime(), seeker.getTime());
+            assertArrayEquals(expected, seeker.getBoard().snapshot().toByteArray());
+            assertEquals(stepper.getTime(), rewinder.getTime());
+            assertArrayEquals(expected, rewinder.getBoard().snapshot().toByteArray());
+        }
+    }
+
+    /**
+     * Tests that seeking in a Replay without Keyframes replays from the start.
+     */
+    @Test
+    public void testSeekWithoutKeyframes() {
+        final Replay indexed = ReplayTest.record(SEED, INPUTS, KEYFRAME_INTERVAL).toReplay();
+        final Replay plain = ReplayTest.record(SEED, INPUTS, 0).toReplay();
+        assertTrue(plain.getKeyframes().isEmpty());
+        final ReplayPlayer indexedPlayer = new ReplayPlayer(indexed);
+        final ReplayPlayer plainPlayer = new ReplayPlayer(plain);
+        final int target = plain.getEventCount() / 2;
+        indexedPlayer.seek(target);
+        plainPlayer.seek(target);
+        assertArrayEquals(indexedPlayer.getBoard().snapshot().toByteArray(),
+                          plainPlayer.getBoard().snapshot().toByteArray());
+    }
+}
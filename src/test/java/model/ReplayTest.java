@@ -0,0 +1,142 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The ReplayTest class. Tests that a Replay survives the binary format unchanged,
+ * and that damaged encodings are rejected.
+ *
+ * @author Logan Stafford
+ * @version 1.0
+ */
+public class ReplayTest {
+
+    /**
+     * The seed of the recorded game.
+     */
+    private static final long SEED = 20_241_225L;
+
+    /**
+     * The number of Inputs recorded.
+     */
+    private static final int INPUTS = 3000;
+
+    /**
+     * The number of locked pieces between Keyframes.
+     */
+    private static final int KEYFRAME_INTERVAL = 5;
+
+    /**
+     * Records a game of random Inputs on a headless Board. Every third Input is a
+     * gravity tick, so pieces keep locking and Keyframes are taken.
+     *
+     * @param theSeed The seed of the game and of the Inputs.
+     * @param theInputs The maximum number of Inputs to record.
+     * @param theKeyframeInterval The number of locked pieces between Keyframes.
+     * @return The recorder, holding the finished recording.
+     */
+    static ReplayRecorder record(final long theSeed, final int theInputs,
+                                 final int theKeyframeInterval) {
+        final ReplayRecorder recorder = new ReplayRecorder(new Board(), theKeyframeInterval);
+        final SplittableRandom random = new SplittableRandom(theSeed);
+        final Input[] inputs = Input.values();
+        recorder.newGame(theSeed, 0);
+        for (int i = 0; i < theInputs && !recorder.getBoard().isGameOver(); i++) {
+            Input input = Input.GRAVITY;
+            if (i % 3 != 0) {
+                input = inputs[random.nextInt(inputs.length)];
+            }
+            recorder.record(input, 16L * i);
+        }
+        return recorder;
+    }
+
+    /**
+     * Tests that decoding an encoded Replay gives back the same game and seek index.
+     */
+    @Test
+    public void testByteArrayRoundTrip() {
+        final Replay replay = record(SEED, INPUTS, KEYFRAME_INTERVAL).toReplay();
+        assertFalse(replay.getKeyframes().isEmpty());
+
+        final byte[] bytes = replay.toByteArray();
+        final Replay decoded = Replay.fromByteArray(bytes);
+        assertEquals(replay.getWidth(), decoded.getWidth());
+        assertEquals(replay.getHeight(), decoded.getHeight());
+        assertEquals(replay.getSeed(), decoded.getSeed());
+        assertEquals(replay.getEventCount(), decoded.getEventCount());
+        assertArrayEquals(replay.getEvents(), decoded.getEvents());
+
+        final List<Keyframe> expected = replay.getKeyframes();
+        final List<Keyframe> actual = decoded.getKeyframes();
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getEventIndex(), actual.get(i).getEventIndex());
+            assertEquals(expected.get(i).getOffset(), actual.get(i).getOffset());
+            assertEquals(expected.get(i).getTime(), actual.get(i).getTime());
+            assertArrayEquals(expected.get(i).getSnapshot().toByteArray(),
+                              actual.get(i).getSnapshot().toByteArray());
+        }
+        assertArrayEquals(bytes, decoded.toByteArray());
+    }
+
+    /**
+     * Tests that a Replay with no events and no Keyframes round-trips.
+     */
+    @Test
+    public void testEmptyRoundTrip() {
+        final ReplayRecorder recorder = new ReplayRecorder(new Board(), 0);
+        recorder.newGame(SEED, 0);
+        final byte[] bytes = recorder.toReplay().toByteArray();
+        final Replay decoded = Replay.fromByteArray(bytes);
+        assertEquals(0, decoded.getEventCount());
+        assertEquals(SEED, decoded.getSeed());
+        assertArrayEquals(bytes, decoded.toByteArray());
+    }
+
+    /**
+     * Tests that damaged encodings are rejected rather than decoded.
+     */
+    @Test
+    public void testRejectsDamagedBytes() {
+        final byte[] bytes = record(SEED, INPUTS, KEYFRAME_INTERVAL).toReplay().toByteArray();
+
+        final byte[] magic = bytes.clone();
+        magic[0] = 'X';
+        assertThrows(IllegalArgumentException.class, () -> Replay.fromByteArray(magic));
+
+        final byte[] version = bytes.clone();
+        version[4] = 2;
+        assertThrows(IllegalArgumentException.class, () -> Replay.fromByteArray(version));
+
+        final byte[] trailing = Arrays.copyOf(bytes, bytes.length + 1);
+        assertThrows(IllegalArgumentException.class, () -> Replay.fromByteArray(trailing));
+
+        final byte[] truncated = Arrays.copyOf(bytes, bytes.length - 1);
+        assertThrows(RuntimeException.class, () -> Replay.fromByteArray(truncated));
+    }
+
+    /**
+     * Tests that a Keyframe whose offset is not on its event is rejected.
+     */
+    @Test
+    public void testRejectsMisplacedKeyframe() {
+        final Replay replay = record(SEED, INPUTS, KEYFRAME_INTERVAL).toReplay();
+        final Keyframe first = replay.getKeyframes().get(0);
+        final Keyframe moved = new Keyframe(first.getEventIndex(), first.getOffset() + 1,
+                                            first.getTime(), first.getSnapshot());
+        final Replay damaged = new Replay(replay.getWidth(), replay.getHeight(),
+                                          replay.getSeed(), replay.getEventCount(),
+                                          replay.getEvents(), List.of(moved));
+        final byte[] bytes = damaged.toByteArray();
+        assertThrows(IllegalArgumentException.class, () -> Replay.fromByteArray(bytes));
+    }
+}
@@ -0,0 +1,146 @@
+package view;
+
+import java.awt.BufferCapabilities;
+import java.awt.Canvas;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Toolkit;
+import java.awt.image.BufferStrategy;
+
+/**
+ * The ActivePlayfield class for the Tetris program. An ActivePlayfield is a Canvas
+ * laid over a GamePanel that draws the playfield itself through a BufferStrategy,
+ * in the frames the RenderScheduler paces, instead of waiting for Swing to coalesce
+ * and paint a repaint request. The drawing is the GamePanel's own, so both pipelines
+ * look the same, and both are held to the same frame rate cap.
+ *
+ * @author Logan Stafford
+ * @version 1.0
+ */
+public class ActivePlayfield extends Canvas implements RenderScheduler.Client {
+
+    /**
+     * A generated serialVersionUID for the ActivePlayfield class.
+     */
+    private static final long serialVersionUID = -2890871496722335160L;
+
+    /**
+     * The number of buffers of the BufferStrategy: a front and a back buffer.
+     */
+    private static final int BUFFER_COUNT = 2;
+
+    /**
+     * The GamePanel whose playfield is drawn.
+     */
+    private final GamePanel myGamePanel;
+
+    /**
+     * The BufferStrategy frames are drawn with, or null before start.
+     */
+    private BufferStrategy myStrategy;
+
+    /**
+     * The ActivePlayfield constructor.
+     *
+     * @param theGamePanel The GamePanel whose playfield is drawn.
+     */
+    public ActivePlayfield(final GamePanel theGamePanel) {
+        super();
+
+        myGamePanel = theGamePanel;
+        setBackground(theGamePanel.getBackground());
+    }
+
+    /**
+     * Creates the BufferStrategy. The canvas must be displayable, that is, part of a
+     * visible window.
+     *
+     * @throws IllegalStateException if the canvas is not displayable.
+     */
+    public void start() {
+        if (!isDisplayable()) {
+            throw new IllegalStateException("The playfield is not in a visible window");
+        }
+        createBufferStrategy(BUFFER_COUNT);
+        myStrategy = getBufferStrategy();
+    }
+
+    /**
+     * Describes the pipeline the BufferStrategy got from the graphics device.
+     *
+     * @return A description of the pipeline, or null before start.
+     */
+    public String getPipeline() {
+        String result = null;
+        if (myStrategy != null) {
+            final BufferCapabilities capabilities = myStrategy.getCapabilities();
+            final StringBuilder sb = new StringBuilder("active BufferStrategy, ");
+            if (capabilities.isPageFlipping()) {
+                sb.append("page flipping");
+            } else {
+                sb.append("blitting");
+            }
+            if (capabilities.getBackBufferCapabilities().isAccelerated()) {
+                sb.append(", accelerated back buffer");
+            } else {
+                sb.append(", unaccelerated back buffer");
+            }
+            result = sb.toString();
+        }
+        return result;
+    }
+
+    /**
+     * Draws the frame the RenderScheduler asked for. The whole playfield is drawn,
+     * since a BufferStrategy shows whole buffers.
+     */
+    @Override
+    public void repaintChanges() {
+        render();
+    }
+
+    /**
+     * Draws a frame into the back buffer and shows it, redrawing it if the buffer's
+     * contents are lost on the way, as can happen to video memory.
+     */
+    public void render() {
+        if (myStrategy != null && isDisplayable()) {
+            do {
+                do {
+                    final Graphics graphics = myStrategy.getDrawGraphics();
+                    try {
+                        myGamePanel.drawPlayfield((Graphics2D) graphics);
+                    } finally {
+                        graphics.dispose();
+                    }
+                } while (myStrategy.contentsRestored());
+                myStrategy.show();
+            } while (myStrategy.contentsLost());
+
+            /* Flushes the frame to the display at once rather than when the queue fills. */
+            Toolkit.getDefaultToolkit().sync();
+        }
+    }
+
+    /**
+     * The overridden paint method of the ActivePlayfield class, which redraws the
+     * frame when the window system exposes the canvas.
+     *
+     * @param theGraphics The Graphics object of the exposed area, which is not used.
+     */
+    @Override
+    public void paint(final Graphics theGraphics) {
+        render();
+    }
+
+    /**
+     * The overridden update method of the ActivePlayfield class, which draws without
+     * clearing the canvas first.
+     *
+     * @param theGraphics The Graphics object of the exposed area, which is not used.
+     */
+    @Override
+    public void update(final Graphics theGraphics) {
+        render();
+    }
+}
@@ -0,0 +1,164 @@
+package view;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+import model.Block;
+
+/**
+ * The BlockSprites class for the Tetris program. A BlockSprites pre-renders the
+ * raised, colored tile of every Block type once per block size, as images compatible
+ * with the screen, so the panels draw a block with a single image copy instead of
+ * setting a color and filling a 3D rectangle with antialiasing on. Since the lines of
+ * a grid overlay run along the top and left edges of every cell, a tile can also be
+ * rendered with its part of the grid already drawn on it.
+ *
+ * @author Logan Stafford
+ * @version 1.0
+ */
+public final class BlockSprites {
+
+    /**
+     * The color of the tile of each Block type that is drawn.
+     */
+    private static final Map<Block, Color> COLORS = new EnumMap<Block, Color>(Block.class);
+
+    static {
+        COLORS.put(Block.I, Color.RED);
+        COLORS.put(Block.L, Color.RED);
+        COLORS.put(Block.O, Color.GREEN);
+        COLORS.put(Block.Z, Color.GREEN);
+        COLORS.put(Block.S, Color.BLUE);
+        COLORS.put(Block.J, Color.BLUE);
+        COLORS.put(Block.T, Color.YELLOW);
+    }
+
+    /**
+     * The tiles of each block size, indexed by Block ordinal; EMPTY has none.
+     */
+    private final Map<Integer, Image[]> myTiles;
+
+    /**
+     * The color of the grid lines drawn on gridded tiles.
+     */
+    private final Color myGridColor;
+
+    /**
+     * The GraphicsConfiguration the tiles are compatible with, or null before the first.
+     */
+    private GraphicsConfiguration myConfiguration;
+
+    /**
+     * The cache key of the tiles last drawn.
+     */
+    private int myLastKey;
+
+    /**
+     * The tiles last drawn, so a frame of one block size skips the lookup.
+     */
+    private Image[] myLastTiles;
+
+    /**
+     * The BlockSprites constructor.
+     *
+     * @param theGridColor The color of the grid lines drawn on gridded tiles.
+     */
+    public BlockSprites(final Color theGridColor) {
+        myTiles = new HashMap<Integer, Image[]>();
+        myGridColor = theGridColor;
+    }
+
+    /**
+     * Draws the tile of a Block, unless the cell is empty.
+     *
+     * @param theGraphics The Graphics2D object used to draw the tile.
+     * @param theBlock The Block type, or null or EMPTY for an empty cell.
+     * @param theX The x coordinate of the tile's top left corner.
+     * @param theY The y coordinate of the tile's top left corner.
+     * @param theSize The width and height of the tile.
+     * @param theGridded Whether to draw the grid lines along the tile's top and left edges.
+     */
+    public void draw(final Graphics2D theGraphics, final Block theBlock, final int theX,
+                     final int theY, final int theSize, final boolean theGridded) {
+        if (theBlock != null) {
+            final Image tile = getTiles(theGraphics.getDeviceConfiguration(), theSize,
+                                        theGridded)[theBlock.ordinal()];
+            if (tile != null) {
+                theGraphics.drawImage(tile, theX, theY, null);
+            }
+        }
+    }
+
+    /**
+     * Returns the tiles of a block size, rendering them on first use. The tiles are
+     * rendered again if the panels are drawn on a different GraphicsConfiguration,
+     * for example after the window moved to another screen.
+     *
+     * @param theConfiguration The GraphicsConfiguration being drawn on.
+     * @param theSize The block size.
+     * @param theGridded Whether the tiles have grid lines along their top and left edges.
+     * @return The tiles, indexed by Block ordinal.
+     */
+    private Image[] getTiles(final GraphicsConfiguration theConfiguration, final int theSize,
+                             final boolean theGridded) {
+        int key = theSize;
+        if (theGridded) {
+            key = -theSize;
+        }
+        if (theConfiguration != myConfiguration && !theConfiguration.equals(myConfiguration)) {
+            myTiles.clear();
+            myLastTiles = null;
+            myConfiguration = theConfiguration;
+        }
+        Image[] result = myLastTiles;
+        if (result == null || key != myLastKey) {
+            result = myTiles.get(key);
+            myLastKey = key;
+        }
+        if (result == null) {
+            result = new Image[Block.values().length];
+            for (final Map.Entry<Block, Color> entry : COLORS.entrySet()) {
+                result[entry.getKey().ordinal()] = createTile(theConfiguration, entry.getValue(),
+                                                              theSize, theGridded);
+            }
+            myTiles.put(key, result);
+        }
+        myLastTiles = result;
+        return result;
+    }
+
+    /**
+     * Renders one tile, exactly as the panels used to draw a block and its grid lines.
+     *
+     * @param theConfiguration The GraphicsConfiguration the tile is compatible with.
+     * @param theColor The color of the tile.
+     * @param theSize The width and height of the tile.
+     * @param theGridded Whether to draw the grid lines along the top and left edges.
+     * @return The tile.
+     */
+    private Image createTile(final GraphicsConfiguration theConfiguration,
+                             final Color theColor, final int theSize, final boolean theGridded) {
+        /* Opaque, since the raised rectangle covers every pixel of the tile. */
+        final Image result = theConfiguration.createCompatibleImage(theSize, theSize,
+                                                                    Transparency.OPAQUE);
+        final Graphics2D g2d = (Graphics2D) result.getGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                             RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.setColor(theColor);
+        g2d.fill3DRect(0, 0, theSize, theSize, true);
+        if (theGridded) {
+            g2d.setColor(myGridColor);
+            g2d.drawLine(0, 0, 0, theSize);
+            g2d.drawLine(0, 0, theSize, 0);
+        }
+        g2d.dispose();
+        return result;
+    }
+}
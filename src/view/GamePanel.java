@@ -1,16 +1,23 @@
 package view;
 
+import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Rectangle;
 import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
 import java.util.Observable;
 import java.util.Observer;
 
 import javax.swing.JPanel;
 
 import model.Board;
+import model.BoardChanges;
+import model.BoardEvent;
+import model.BoardView;
 
 /**
  * The GamePanel class for the Tetris program.
@@ -18,7 +25,7 @@ import model.Board;
  * @author Logan Stafford
  * @version 1.2
  */
-public class GamePanel extends JPanel implements Observer {
+public class GamePanel extends JPanel implements Observer, RenderScheduler.Client {
 
     /**
      * A generated serialVersionUID for the GamePanel class.
@@ -41,27 +48,68 @@ public class GamePanel extends JPanel implements Observer {
     private int myBlockSize;
     
     /**
-     * The data received from the Board as a String.
+     * A read-only view of the Board being drawn, or null before the first update.
      */
-    private String myBoardData;
+    private BoardView myBoard;
+
+    /**
+     * The changed cells of the Board being drawn, or null before the first update.
+     */
+    private BoardChanges myChanges;
 
     /**
      * The option to draw a grid on the GamePanel as a boolean.
      */
     private boolean myCanDrawGameGrid;
+    
+    /**
+     * The RenderScheduler that repaints the panel when the board changes.
+     */
+    private final RenderScheduler myScheduler;
+    
+    /**
+     * The ActivePlayfield that draws the board when active rendering is enabled, or null.
+     */
+    private ActivePlayfield myActivePlayfield;
+    
+    /**
+     * The pre-rendered tiles the blocks are drawn with.
+     */
+    private final BlockSprites mySprites;
+    
+    /**
+     * The cached background layer of the playfield, the dark fill and the grid, or
+     * null when it must be rendered again.
+     */
+    private BufferedImage myBackgroundLayer;
+    
+    /**
+     * Whether the next frame must repaint the whole panel rather than the changed cells.
+     */
+    private boolean myFullRepaint;
   
     /**
-     * The GamePanel constructor. 
+     * The GamePanel constructor, used for a panel with a RenderScheduler of its own.
      * 
      * @param theBlockSize The integer value to set the block size to.
      */
     public GamePanel(final int theBlockSize) {
+        this(theBlockSize, new RenderScheduler());
+    }
+  
+    /**
+     * The GamePanel constructor. 
+     * 
+     * @param theBlockSize The integer value to set the block size to.
+     * @param theScheduler The RenderScheduler that repaints the panel.
+     */
+    public GamePanel(final int theBlockSize, final RenderScheduler theScheduler) {
         super();
         
-        /* Initializing myBoardData as an ArrayList of Character objects. */
-        myBoardData = "";
         myCanDrawGameGrid = true;
         myBlockSize = theBlockSize;
+        myScheduler = theScheduler;
+        mySprites = new BlockSprites(GRID_COLOR);
         
         /* Setting some qualities of the game panel. */
         setPreferredSize(DEFAULT_SIZE);
@@ -69,29 +117,109 @@ public class GamePanel extends JPanel implements Observer {
     }
     
     /** 
-     * The overridden paintComponent method of the GamePanel class.
+     * The overridden paintComponent method of the GamePanel class. With active
+     * rendering enabled, the ActivePlayfield draws the board instead.
      * 
      * @param theGraphics The Graphics2D object used to draw the board.
      */
     @Override
     protected void paintComponent(final Graphics theGraphics) {
-        super.paintComponent(theGraphics);
-        
-        /* Creating and setting properties of the Graphics2D object. */
-        final Graphics2D g2d = (Graphics2D) theGraphics;
-        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
-                             RenderingHints.VALUE_ANTIALIAS_ON);
-
-        /* Drawing a Dark Gray rectangle representing the board.*/
-        theGraphics.setColor(Color.DARK_GRAY);
-        theGraphics.fillRect(0, 0, getWidth(), getHeight());
-        
-        /* Calling methods to draw both the grid and the game board. */
-        drawGameBoard(g2d); 
-        if (myCanDrawGameGrid) {
-            drawGameGrid(g2d);
+        if (myActivePlayfield == null) {
+            drawPlayfield((Graphics2D) theGraphics);
+        } else {
+            super.paintComponent(theGraphics);
+        }
+    }
+    
+    /**
+     * The drawPlayfield method of the GamePanel class, which draws the background,
+     * the board and the grid over the whole panel. Only the blocks are drawn each
+     * frame; the background and grid come from the cached background layer, and the
+     * grid lines over the blocks come with their tiles.
+     * 
+     * @param theGraphics The Graphics2D object used to draw the playfield.
+     */
+    void drawPlayfield(final Graphics2D theGraphics) {
+        theGraphics.drawImage(getBackgroundLayer(theGraphics.getDeviceConfiguration()),
+                              0, 0, null);
+        drawGameBoard(theGraphics); 
+    }
+    
+    /**
+     * The getBackgroundLayer method of the GamePanel class, which renders the
+     * background layer again if it was invalidated or the panel was resized.
+     * 
+     * @param theConfiguration The GraphicsConfiguration the layer is drawn on.
+     * @return The background layer.
+     */
+    private BufferedImage getBackgroundLayer(final GraphicsConfiguration theConfiguration) {
+        final int width = Math.max(1, getWidth());
+        final int height = Math.max(1, getHeight());
+        if (myBackgroundLayer == null || myBackgroundLayer.getWidth() != width
+                        || myBackgroundLayer.getHeight() != height) {
+            myBackgroundLayer = theConfiguration.createCompatibleImage(width, height);
+            final Graphics2D g2d = myBackgroundLayer.createGraphics();
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                                 RenderingHints.VALUE_ANTIALIAS_ON);
+            
+            /* Drawing a Dark Gray rectangle representing the board.*/
+            g2d.setColor(Color.DARK_GRAY);
+            g2d.fillRect(0, 0, width, height);
+            if (myCanDrawGameGrid) {
+                drawGameGrid(g2d);
+            }
+            g2d.dispose();
+        }
+        return myBackgroundLayer;
+    }
+    
+    /**
+     * The enableActiveRendering method of the GamePanel class. Lays an ActivePlayfield
+     * over the panel, which draws the board through a BufferStrategy in each frame the
+     * RenderScheduler renders. The panel must already be in a visible window. If no
+     * BufferStrategy can be created, the panel keeps painting through Swing.
+     * 
+     * @return A description of the rendering pipeline in use.
+     */
+    public String enableActiveRendering() {
+        final ActivePlayfield playfield = new ActivePlayfield(this);
+        setLayout(new BorderLayout());
+        add(playfield, BorderLayout.CENTER);
+        validate();
+        try {
+            playfield.start();
+            myActivePlayfield = playfield;
+        } catch (final IllegalStateException ex) {
+            /* Falling back to passive painting. */
+            remove(playfield);
+            validate();
+        }
+        return getRenderingPipeline();
+    }
+    
+    /**
+     * The getRenderingPipeline method of the GamePanel class.
+     * 
+     * @return A description of the rendering pipeline in use.
+     */
+    public String getRenderingPipeline() {
+        String result = "passive Swing repaint";
+        if (myActivePlayfield != null) {
+            result = myActivePlayfield.getPipeline();
+        }
+        return result;
+    }
+    
+    /**
+     * The requestRender method of the GamePanel class, which has the board drawn
+     * again by whichever pipeline is in use.
+     */
+    private void requestRender() {
+        if (myActivePlayfield == null) {
+            myScheduler.requestRender(this);
+        } else {
+            myScheduler.requestRender(myActivePlayfield);
         }
-        repaint();      
     }
     
     /**
@@ -101,6 +229,9 @@ public class GamePanel extends JPanel implements Observer {
      */
     protected void enableGameGridOverlay(final boolean theOption) {
         myCanDrawGameGrid = theOption;
+        myBackgroundLayer = null;
+        myFullRepaint = true;
+        requestRender();
     }
     
     /**
@@ -110,6 +241,9 @@ public class GamePanel extends JPanel implements Observer {
      */
     protected void setBlockSize(final int theBlockSize) {
         myBlockSize = theBlockSize;
+        myBackgroundLayer = null;
+        myFullRepaint = true;
+        requestRender();
     }
     
     /**
@@ -134,55 +268,85 @@ public class GamePanel extends JPanel implements Observer {
      * @param theGraphics The Graphics2D object used to draw the board.
      */
     private void drawGameBoard(final Graphics2D theGraphics) {        
-        /* Drawing the pieces onto the panel.*/
-        /* Creating some loop variables representing coordinates. */
-        final int boardXOffset = 2;
-        int x = -1 * boardXOffset * myBlockSize;
-        int y = -1 * myBlockSize;
+        if (myBoard == null) {
+            return;
+        }
         
-        /* Iterating through the myBoardData string. */
-        for (int i = 0; i < myBoardData.length(); i++) { 
-            x += myBlockSize;
-            
-            /* If a newLine character is found, increment Y and reset X. */
-            if (myBoardData.charAt(i) == '\n') {
-                y += myBlockSize;
-                x = -1 * boardXOffset * myBlockSize;
-            }
-            
-            /* Drawing the individual pieces, colors chosen by Block type.*/
-            if (myBoardData.charAt(i) == 'I' 
-                            || myBoardData.charAt(i) == 'L') {                
-                theGraphics.setColor(Color.RED);
-                theGraphics.fill3DRect(x, y, myBlockSize, myBlockSize, true);                
-            } else if (myBoardData.charAt(i) == 'O' 
-                            || myBoardData.charAt(i) == 'Z') {                
-                theGraphics.setColor(Color.GREEN);
-                theGraphics.fill3DRect(x, y, myBlockSize, myBlockSize, true);                
-            } else if (myBoardData.charAt(i) == 'S' 
-                            || myBoardData.charAt(i) == 'J') {
-                theGraphics.setColor(Color.BLUE);
-                theGraphics.fill3DRect(x, y, myBlockSize, myBlockSize, true);
-            } else if (myBoardData.charAt(i) == 'T') {
-                theGraphics.setColor(Color.YELLOW);
-                theGraphics.fill3DRect(x, y, myBlockSize, myBlockSize, true); 
+        /* Limiting the drawing to the cells inside the area being repainted. */
+        final int height = myBoard.getHeight();
+        int firstColumn = 0;
+        int lastColumn = myBoard.getWidth() - 1;
+        int topRow = height - 1;
+        int bottomRow = 0;
+        final Rectangle clip = theGraphics.getClipBounds();
+        if (clip != null) {
+            firstColumn = Math.max(firstColumn, clip.x / myBlockSize);
+            lastColumn = Math.min(lastColumn, (clip.x + clip.width - 1) / myBlockSize);
+            topRow = Math.min(topRow, height - 1 - clip.y / myBlockSize);
+            bottomRow = Math.max(bottomRow, height - 1 - (clip.y + clip.height - 1) / myBlockSize);
+        }
+        
+        /* Drawing the pieces onto the panel, top row first. */
+        for (int row = topRow; row >= bottomRow; row--) {
+            final int y = (height - 1 - row) * myBlockSize;
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                final int x = column * myBlockSize;
+                
+                /* Drawing the individual pieces, tiles chosen by Block type.*/
+                mySprites.draw(theGraphics, myBoard.getBlock(column, row), x, y, myBlockSize,
+                               myCanDrawGameGrid);
             }
         }        
     }
     
+    /**
+     * The repaintChanges method of the GamePanel class, which repaints the rectangle
+     * around the cells the board reports as changed since the last frame, or the
+     * whole panel after a new game, a row clear or a change of grid or block size.
+     * Swing merges the dirty regions of a component into one rectangle anyway, so
+     * a single rectangle is requested.
+     */
+    @Override
+    public void repaintChanges() {
+        if (myFullRepaint || myChanges == null || myChanges.isFullyChanged()) {
+            repaint();
+        } else {
+            final int height = myBoard.getHeight();
+            long columns = 0;
+            int topRow = -1;
+            int bottomRow = height;
+            for (int row = 0; row < height; row++) {
+                final long cells = myChanges.getChangedCells(row);
+                if (cells != 0) {
+                    columns |= cells;
+                    topRow = row;
+                    bottomRow = Math.min(bottomRow, row);
+                }
+            }
+            if (columns != 0) {
+                final int first = Long.numberOfTrailingZeros(columns);
+                final int last = Long.SIZE - 1 - Long.numberOfLeadingZeros(columns);
+                repaint(first * myBlockSize, (height - 1 - topRow) * myBlockSize,
+                        (last - first + 1) * myBlockSize,
+                        (topRow - bottomRow + 1) * myBlockSize);
+            }
+        }
+        myFullRepaint = false;
+        if (myChanges != null) {
+            myChanges.clearChanges();
+        }
+    }
+    
     /**
      * The overridden update method of the GamePanel class.
      */
     @Override
     public void update(final Observable theObservable, final Object theData) {        
-        if (theObservable instanceof Board && theData instanceof String) {            
-            /* Add the contents of the data to my field. */
-            myBoardData = new String((String) theData);
-            
-            final int belowGridIndex = myBoardData.indexOf('-') - 1;           
-            myBoardData = new String(myBoardData.substring(belowGridIndex));
-          
-            repaint();            
+        if (theObservable instanceof Board && theData instanceof BoardEvent) {            
+            /* Keep a read-only view of the board and draw it on the next paint. */
+            myBoard = (Board) theObservable;
+            myChanges = (Board) theObservable;
+            requestRender();            
         }
     }  
 }
\ No newline at end of file
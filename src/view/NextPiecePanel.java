@@ -5,7 +5,9 @@ import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
 import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
 import java.util.Observable;
 import java.util.Observer;
 
@@ -14,8 +16,11 @@ import javax.swing.JPanel;
 import javax.swing.border.LineBorder;
 import javax.swing.border.TitledBorder;
 
+import model.Block;
 import model.Board;
+import model.BoardEvent;
 import model.MovableTetrisPiece;
+import model.Point;
 
 /**
  * The NextPiecePanel class for the Tetris program.
@@ -64,16 +69,33 @@ public class NextPiecePanel extends JPanel implements Observer {
      * An integer used to size the drawing correctly.
      */
     private static final int PANEL_SIZE = 100;
-
+    
+    /**
+     * The number of rows of the panel grid; the y-coordinates of a piece count up
+     * from its bottom row.
+     */
+    private static final int GRID_ROWS = PANEL_SIZE / BLOCK_SIZE;
+    
     /**
-     * A internal MovableTetrisPiece object used for drawing the next piece.
+     * The points of the next piece, with its origin at the bottom left of the grid.
      */
-    private MovableTetrisPiece myNextPiece;
+    private Point[] myNextPiecePoints;
     
     /**
-     * A String representation of the myNextPiece field.
+     * The Block type of the next piece.
      */
-    private String myNextPieceString;
+    private Block myNextPieceBlock;
+    
+    /**
+     * The pre-rendered tiles the next piece is drawn with.
+     */
+    private final BlockSprites mySprites;
+    
+    /**
+     * The cached background layer of the panel, the backgrounds and the grid, or
+     * null when it must be rendered again.
+     */
+    private BufferedImage myBackgroundLayer;
 
     /**
      * A flag to determine if it is okay to draw the next piece.
@@ -86,12 +108,27 @@ public class NextPiecePanel extends JPanel implements Observer {
     private boolean myCanDrawGameGrid;
     
     /**
-     * The NextPiecePanel constructor.
+     * The RenderScheduler that repaints the panel when the next piece changes.
+     */
+    private final RenderScheduler myScheduler;
+    
+    /**
+     * The NextPiecePanel constructor, used for a panel with a RenderScheduler of its own.
      */
     public NextPiecePanel() {
+        this(new RenderScheduler());
+    }
+    
+    /**
+     * The NextPiecePanel constructor.
+     * 
+     * @param theScheduler The RenderScheduler that repaints the panel.
+     */
+    public NextPiecePanel(final RenderScheduler theScheduler) {
         super();
         
-        myNextPieceString = "";
+        myScheduler = theScheduler;
+        mySprites = new BlockSprites(GRID_COLOR);
         myCanDrawGameGrid = true;
         
         /* Setting some properties of the panel. */
@@ -107,26 +144,46 @@ public class NextPiecePanel extends JPanel implements Observer {
      */
     @Override
     protected void paintComponent(final Graphics theGraphics) {
-        super.paintComponent(theGraphics);
-        
-        /* Creating and setting properties of the Graphics2D object. */
+        /* Antialiasing stays on for the titled border, which is painted afterwards. */
         final Graphics2D g2d = (Graphics2D) theGraphics;
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
                              RenderingHints.VALUE_ANTIALIAS_ON);
         
-        /* Drawing a Dark Gray rectangle representing the panel.*/
-        theGraphics.setColor(Color.DARK_GRAY);
-        theGraphics.fillRect(X_OFFSET, Y_OFFSET, PANEL_SIZE, 
-                             PANEL_SIZE);
-        
-        /* Calling methods to draw both the grid and the next piece. */
+        /* Drawing the cached background, dark rectangle and grid, then the next piece. */
+        g2d.drawImage(getBackgroundLayer(g2d.getDeviceConfiguration()), 0, 0, null);
         if (myNextPieceFlag) {
             drawNextPiece(g2d);
         }
-        if (myCanDrawGameGrid) {
-            drawGameGrid(g2d);
+    }
+    
+    /**
+     * The getBackgroundLayer method of the NextPiecePanel class, which renders the
+     * background layer again if it was invalidated or the panel was resized.
+     * 
+     * @param theConfiguration The GraphicsConfiguration the layer is drawn on.
+     * @return The background layer.
+     */
+    private BufferedImage getBackgroundLayer(final GraphicsConfiguration theConfiguration) {
+        final int width = Math.max(1, getWidth());
+        final int height = Math.max(1, getHeight());
+        if (myBackgroundLayer == null || myBackgroundLayer.getWidth() != width
+                        || myBackgroundLayer.getHeight() != height) {
+            myBackgroundLayer = theConfiguration.createCompatibleImage(width, height);
+            final Graphics2D g2d = myBackgroundLayer.createGraphics();
+            g2d.setColor(getBackground());
+            g2d.fillRect(0, 0, width, height);
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                                 RenderingHints.VALUE_ANTIALIAS_ON);
+            
+            /* Drawing a Dark Gray rectangle representing the panel.*/
+            g2d.setColor(Color.DARK_GRAY);
+            g2d.fillRect(X_OFFSET, Y_OFFSET, PANEL_SIZE, PANEL_SIZE);
+            if (myCanDrawGameGrid) {
+                drawGameGrid(g2d);
+            }
+            g2d.dispose();
         }
-        repaint();
+        return myBackgroundLayer;
     }
     
     /**
@@ -136,6 +193,8 @@ public class NextPiecePanel extends JPanel implements Observer {
      */
     public void enableGameGridOverlay(final boolean theOption) {
         myCanDrawGameGrid = theOption;
+        myBackgroundLayer = null;
+        myScheduler.requestRender(this);
     }
     
     /**
@@ -160,38 +219,11 @@ public class NextPiecePanel extends JPanel implements Observer {
      * @param theGraphics The Graphics2D object used to draw the piece.
      */
     private void drawNextPiece(final Graphics2D theGraphics) {        
-        /* Drawing the pieces onto the panel.*/
-        /* Creating some loop variables representing coordinates. */
-        int x = X_OFFSET;
-        int y = Y_OFFSET;
-        
-        /* Iterating through the NextPiece string. */
-        for (int i = 0; i < myNextPieceString.length(); i++) { 
-            x += BLOCK_SIZE;
-            
-            /* If a newLine character is found, increment Y and reset X. */
-            if (myNextPieceString.charAt(i) == '\n') {
-                y += BLOCK_SIZE;
-                x = X_OFFSET;
-            }
-            
-            /* Drawing the individual pieces, colors chosen by Block type.*/
-            if (myNextPieceString.charAt(i) == 'I' 
-                            || myNextPieceString.charAt(i) == 'L') {                
-                theGraphics.setColor(Color.RED);
-                theGraphics.fill3DRect(x - BLOCK_SIZE, y, BLOCK_SIZE, BLOCK_SIZE, true);
-            } else if (myNextPieceString.charAt(i) == 'O' 
-                            || myNextPieceString.charAt(i) == 'Z') {                
-                theGraphics.setColor(Color.GREEN);
-                theGraphics.fill3DRect(x - BLOCK_SIZE, y, BLOCK_SIZE, BLOCK_SIZE, true);
-            } else if (myNextPieceString.charAt(i) == 'S' 
-                            || myNextPieceString.charAt(i) == 'J') {
-                theGraphics.setColor(Color.BLUE);
-                theGraphics.fill3DRect(x - BLOCK_SIZE, y, BLOCK_SIZE, BLOCK_SIZE, true);
-            } else if (myNextPieceString.charAt(i) == 'T') {
-                theGraphics.setColor(Color.YELLOW);
-                theGraphics.fill3DRect(x - BLOCK_SIZE, y, BLOCK_SIZE, BLOCK_SIZE, true); 
-            }           
+        /* Drawing a tile at each point of the piece, with rows counted from the top. */
+        for (final Point point : myNextPiecePoints) {
+            mySprites.draw(theGraphics, myNextPieceBlock, X_OFFSET + point.getX() * BLOCK_SIZE,
+                           Y_OFFSET + (GRID_ROWS - 1 - point.getY()) * BLOCK_SIZE,
+                           BLOCK_SIZE, myCanDrawGameGrid);
         }        
     }
     
@@ -220,18 +252,21 @@ public class NextPiecePanel extends JPanel implements Observer {
      */
     @Override
     public void update(final Observable theObservable, final Object theData) {        
-        /* If the object is a Board and the data is a MovableTetris Piece... */
+        /* If the object is a Board and the data is a "next piece" event... */
         if (theObservable instanceof Board 
-                        && theData instanceof MovableTetrisPiece) { 
+                        && theData instanceof BoardEvent
+                        && ((BoardEvent) theData).getType() == BoardEvent.Type.NEXT_PIECE) { 
             
-            /* Set the internal "myNextPiece" field to the input data object. */
-            myNextPiece = (MovableTetrisPiece) theData;
-            myNextPieceString = new String(myNextPiece.toString());
+            /* Keeping the points and Block type of the event's piece for drawing. */
+            final MovableTetrisPiece nextPiece = new MovableTetrisPiece(
+                ((BoardEvent) theData).getNextPiece(), new Point(0, 0));
+            myNextPiecePoints = nextPiece.getBoardPoints();
+            myNextPieceBlock = nextPiece.getBlock();
             
             /* Set the internal flag to true so the panel knows when to draw the piece. */
             myNextPieceFlag = true;
+            myScheduler.requestRender(this);
         }        
-        repaint();        
     }
     
 }
\ No newline at end of file
@@ -0,0 +1,216 @@
+package view;
+
+import java.awt.Component;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+/**
+ * The RenderScheduler class for the Tetris program. The panels of the game ask the
+ * scheduler for a render when the model reports a change, and the scheduler repaints
+ * them at most once per frame at the configured frame rate, whether they paint through
+ * Swing or draw their frames themselves. While nothing has changed,
+ * the scheduler's timer is stopped and nothing is repainted, so a paused or finished
+ * game costs no CPU.
+ *
+ * @author Logan Stafford
+ * @version 1.0
+ */
+public final class RenderScheduler {
+
+    /**
+     * The Client interface, for components that repaint only the parts of themselves
+     * that changed since the last frame, or that draw their frames themselves.
+     */
+    public interface Client {
+
+        /**
+         * Called instead of repaint in each frame the component asked to render, to
+         * request repaints of just the regions that changed, or to draw the frame.
+         */
+        void repaintChanges();
+    }
+
+    /**
+     * The default frame rate cap in frames per second.
+     */
+    public static final int DEFAULT_FRAME_RATE = 60;
+
+    /**
+     * The highest frame rate cap that can be set.
+     */
+    public static final int MAX_FRAME_RATE = 240;
+
+    /**
+     * The number of nanoseconds in a second.
+     */
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    /**
+     * The number of nanoseconds in a millisecond.
+     */
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    /**
+     * The components waiting for the next frame.
+     */
+    private final Set<Component> myPending;
+
+    /**
+     * The single-shot timer that renders the next frame.
+     */
+    private final Timer myTimer;
+
+    /**
+     * The System.nanoTime of the most recent frames, as a ring of MAX_FRAME_RATE slots.
+     */
+    private final long[] myFrameTimes;
+
+    /**
+     * The index in the ring the next frame time is written to.
+     */
+    private int myFrameIndex;
+
+    /**
+     * The frame rate cap in frames per second.
+     */
+    private int myFrameRate;
+
+    /**
+     * The time between frames at the frame rate cap, in nanoseconds.
+     */
+    private long myFrameNanos;
+
+    /**
+     * The System.nanoTime at which the next frame may be rendered.
+     */
+    private long myNextFrame;
+
+    /**
+     * The RenderScheduler constructor, which caps the frame rate at DEFAULT_FRAME_RATE.
+     */
+    public RenderScheduler() {
+        this(DEFAULT_FRAME_RATE);
+    }
+
+    /**
+     * The RenderScheduler constructor.
+     *
+     * @param theFrameRate The frame rate cap in frames per second.
+     * @throws IllegalArgumentException if the frame rate is not between 1 and MAX_FRAME_RATE.
+     */
+    public RenderScheduler(final int theFrameRate) {
+        myPending = new LinkedHashSet<Component>();
+        myFrameTimes = new long[MAX_FRAME_RATE];
+        myTimer = new Timer(0, new ActionListener() {
+            @Override
+            public void actionPerformed(final ActionEvent theEvent) {
+                renderFrame();
+            }
+        });
+        myTimer.setRepeats(false);
+        setFrameRate(theFrameRate);
+    }
+
+    /**
+     * Sets the frame rate cap.
+     *
+     * @param theFrameRate The frame rate cap in frames per second.
+     * @throws IllegalArgumentException if the frame rate is not between 1 and MAX_FRAME_RATE.
+     */
+    public void setFrameRate(final int theFrameRate) {
+        if (theFrameRate < 1 || theFrameRate > MAX_FRAME_RATE) {
+            throw new IllegalArgumentException("Invalid frame rate: " + theFrameRate);
+        }
+        myFrameRate = theFrameRate;
+        myFrameNanos = NANOS_PER_SECOND / theFrameRate;
+    }
+
+    /**
+     * Returns the frame rate cap.
+     *
+     * @return The frame rate cap in frames per second.
+     */
+    public int getFrameRate() {
+        return myFrameRate;
+    }
+
+    /**
+     * Returns the frame rate achieved over the last second. Every frame is rendered
+     * by the scheduler at no more than MAX_FRAME_RATE, so the ring of frame times
+     * holds all the frames of the last second.
+     *
+     * @return The number of frames rendered in the last second.
+     */
+    public int getFps() {
+        final long since = System.nanoTime() - NANOS_PER_SECOND;
+        int result = 0;
+        for (final long time : myFrameTimes) {
+            if (time != 0 && time - since > 0) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Asks for a component to be repainted in the next frame. Requests made before
+     * the frame is rendered are coalesced. A component that is a Client repaints its
+     * changes itself. May be called from any thread.
+     *
+     * @param theComponent The component to repaint.
+     */
+    public void requestRender(final Component theComponent) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            myPending.add(theComponent);
+            schedule();
+        } else {
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    requestRender(theComponent);
+                }
+            });
+        }
+    }
+
+    /**
+     * Starts the timer for the next frame, unless it is already running. A frame
+     * after an idle period is rendered at once; otherwise it waits for its slot.
+     */
+    private void schedule() {
+        if (!myTimer.isRunning()) {
+            final long now = System.nanoTime();
+            if (myNextFrame - now < 0) {
+                myNextFrame = now;
+            }
+            myTimer.setInitialDelay((int) ((myNextFrame - now + NANOS_PER_MILLI / 2)
+                                           / NANOS_PER_MILLI));
+            myTimer.start();
+        }
+    }
+
+    /**
+     * Repaints the pending components.
+     */
+    private void renderFrame() {
+        for (final Component component : myPending) {
+            if (component instanceof Client) {
+                ((Client) component).repaintChanges();
+            } else {
+                component.repaint();
+            }
+        }
+        myPending.clear();
+        myFrameTimes[myFrameIndex] = System.nanoTime();
+        myFrameIndex = (myFrameIndex + 1) % myFrameTimes.length;
+
+        /* Frame slots advance from the schedule rather than the timer, so a burst of
+         * requests is still held to the frame rate. */
+        myNextFrame += myFrameNanos;
+    }
+}
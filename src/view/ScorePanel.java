@@ -7,6 +7,7 @@ import java.awt.Font;
 import java.awt.Graphics;
 import java.util.Observable;
 import java.util.Observer;
+import java.util.function.IntConsumer;
 
 import javax.swing.Box;
 import javax.swing.JLabel;
@@ -17,6 +18,7 @@ import javax.swing.border.LineBorder;
 import javax.swing.border.TitledBorder;
 
 import model.Board;
+import model.BoardEvent;
 
 /**
  * The ScorePanel class for the Tetris program.
@@ -91,6 +93,11 @@ public class ScorePanel extends JPanel implements Observer {
      */
     private int myDifficultyModifier;
     
+    /**
+     * The listener told the final score of each game that ends, or null.
+     */
+    private IntConsumer myGameOverListener;
+    
     /**
      * An integer representing the high score.
      */
@@ -102,9 +109,9 @@ public class ScorePanel extends JPanel implements Observer {
     private boolean myNewHighScoreReached;
 
     /**
-     * An integer array representing the score.
+     * An integer representing the number of rows cleared by the last clear.
      */
-    private Integer[] myScoreData;
+    private int myClearedRowCount;
 
     /**
      * The timer of the game.
@@ -148,6 +155,16 @@ public class ScorePanel extends JPanel implements Observer {
         myDifficultyModifier = theDifficultyModifier;
     }
     
+    /**
+     * The setGameOverListener method of the ScorePanel class. The listener is told
+     * the final score of each game once the panel has handled the end of the game.
+     *
+     * @param theListener The listener, or null for none.
+     */
+    protected void setGameOverListener(final IntConsumer theListener) {
+        myGameOverListener = theListener;
+    }
+    
     /**
      * The setTimerSpeed method of the ScorePanel class.
      *
@@ -240,18 +257,19 @@ public class ScorePanel extends JPanel implements Observer {
      */
     @Override
     public void update(final Observable theObservable, final Object theData) {
-        /* If the object is a Board and the data is a Integer Array... */
+        /* If the object is a Board and the data is a "rows cleared" event... */
         if (theObservable instanceof Board 
-                        && theData instanceof Integer[]) {
-            myScoreData = (Integer[]) theData;
+                        && theData instanceof BoardEvent
+                        && ((BoardEvent) theData).getType() == BoardEvent.Type.ROWS_CLEARED) {
+            myClearedRowCount = ((BoardEvent) theData).getClearedRowCount();
             
             /* Calculate the current score... */
-            for (int i = 0; i <= myScoreData.length; i++) {
+            for (int i = 0; i <= myClearedRowCount; i++) {
                 myScore = myScore + (myLevel * SCORE_MULTIPLIER * myDifficultyModifier);
             }
             
             /* ...and update class fields. */
-            myNumberOfLinesCleared += myScoreData.length;
+            myNumberOfLinesCleared += myClearedRowCount;
             myLinesUntilNextLevel--;
             
             if (myLinesUntilNextLevel == 0) {
@@ -268,7 +286,8 @@ public class ScorePanel extends JPanel implements Observer {
             
             repaint();
         } else if (theObservable instanceof Board 
-                        && theData instanceof Boolean) {
+                        && theData instanceof BoardEvent
+                        && ((BoardEvent) theData).getType() == BoardEvent.Type.GAME_OVER) {
             if (myNewHighScoreReached) {
                 JOptionPane.showMessageDialog(null, 
                                               "Congratulations, you've reached a new "
@@ -278,12 +297,16 @@ public class ScorePanel extends JPanel implements Observer {
             
             /* Else if the game is over and a boolean received... */
             final int defaultLinesUntilNextLevelValue = 5;
+            final int finalScore = myScore;
             myLevel = 0;
             myScore = 0;
             myNumberOfLinesCleared = 0;
             myLinesUntilNextLevel = defaultLinesUntilNextLevelValue;
             
             repaint();
+            if (myGameOverListener != null) {
+                myGameOverListener.accept(finalScore);
+            }
         }             
     }    
 }
\ No newline at end of file
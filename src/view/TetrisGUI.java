@@ -11,6 +11,7 @@ import java.awt.event.KeyEvent;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Observable;
 import java.util.Observer;
 
@@ -26,11 +27,16 @@ import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JPopupMenu;
 import javax.swing.Timer;
 import javax.swing.border.LineBorder;
 import javax.swing.border.TitledBorder;
 
 import model.Board;
+import model.BoardEvent;
+import model.Input;
+import model.ReplayArchiveWriter;
+import model.ReplayRecorder;
 
 /**
  * The TetrisGUI class for the Tetris program.
@@ -45,6 +51,11 @@ public class TetrisGUI extends KeyAdapter implements Observer {
      */
     protected static Board myGameBoard;
     
+    /**
+     * The ReplayRecorder that applies every input to the game board and records it.
+     */
+    protected static ReplayRecorder myReplayRecorder;
+    
     /**
      * The program's frame and pop-up menu icon.
      */
@@ -55,6 +66,11 @@ public class TetrisGUI extends KeyAdapter implements Observer {
      */
     private static final String BACKGROUND_IMG = "./media/background.jpg";
     
+    /**
+     * A String representing the file location of the archive of finished games.
+     */
+    private static final String REPLAY_ARCHIVE = "./replays.ctra";
+    
     /**
      * The background color used for the game panel.
      */
@@ -115,6 +131,39 @@ public class TetrisGUI extends KeyAdapter implements Observer {
      */ 
     private NextPiecePanel myNextPiecePanel;
     
+    /**
+     * The RenderScheduler that repaints the game and next piece panels.
+     */
+    private RenderScheduler myRenderScheduler;
+    
+    /**
+     * Whether the playfield is drawn with active rendering rather than Swing repaints.
+     */
+    private final boolean myActiveRendering;
+    
+    /**
+     * Whether archiving a finished game has failed and been reported.
+     */
+    private boolean myArchiveFailed;
+    
+    /**
+     * The TetrisGUI constructor, used for a GUI that paints through Swing.
+     */
+    public TetrisGUI() {
+        this(false);
+    }
+    
+    /**
+     * The TetrisGUI constructor.
+     * 
+     * @param theActiveRendering Whether to draw the playfield with active rendering,
+     *                           falling back to Swing repaints if it is unavailable.
+     */
+    public TetrisGUI(final boolean theActiveRendering) {
+        super();
+        myActiveRendering = theActiveRendering;
+    }
+    
     /**
      * The line cleared WAV file represented as a Clip object.
      */
@@ -138,13 +187,20 @@ public class TetrisGUI extends KeyAdapter implements Observer {
     private void setUpFrame() {        
         /* Initializing some class fields */
         myGameBoard = new Board();
+        myReplayRecorder = new ReplayRecorder(myGameBoard);
         myGameTimer = new Timer(EASY_TIMER_SPEED, new TimerListener()); 
+        myRenderScheduler = new RenderScheduler();
         myMoveLeftControl = "A";
         myMoveRightControl = "D";
         myRotateControl = "W";
         myDownControl = "S";
         myDropControl = "Space";
         
+        /* Heavyweight popups, so the menus are not hidden behind the active playfield. */
+        if (myActiveRendering) {
+            JPopupMenu.setDefaultLightWeightPopupEnabled(false);
+        }
+        
         /* Initializing the GUI's JFrame. */
         final JFrame frame = new JFrame("Tetris - Merry Christmas!");        
         frame.setIconImage(new ImageIcon(ICON_IMAGE).getImage());        
@@ -159,7 +215,8 @@ public class TetrisGUI extends KeyAdapter implements Observer {
         
         /* Tidying up the properties of the frame. */
         final TetrisMenuBar menuBar = new TetrisMenuBar(frame, myGameTimer, 
-                                                  myGamePanel, myScorePanel, myNextPiecePanel);
+                                                  myGamePanel, myScorePanel, myNextPiecePanel,
+                                                  myRenderScheduler);
         frame.setJMenuBar(menuBar);
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         frame.setSize(DEFAULT_FRAME_SIZE);
@@ -167,6 +224,11 @@ public class TetrisGUI extends KeyAdapter implements Observer {
         frame.setLocationRelativeTo(null);
         frame.setVisible(true);
         
+        /* Choosing the rendering pipeline, which needs the frame to be visible. */
+        if (myActiveRendering) {
+            myGamePanel.enableActiveRendering();
+        }
+        
         /* Adding the KeyListener to the GUI. */
         frame.addKeyListener(this);
         
@@ -230,7 +292,7 @@ public class TetrisGUI extends KeyAdapter implements Observer {
         
         /* Initializing the GamePanel. */
         final int defaultBlockSize = 25;
-        myGamePanel = new GamePanel(defaultBlockSize);
+        myGamePanel = new GamePanel(defaultBlockSize, myRenderScheduler);
         
         /* Adding the GamePanel to the list of the board's observers. */
         myGameBoard.addObserver(myGamePanel);
@@ -253,8 +315,9 @@ public class TetrisGUI extends KeyAdapter implements Observer {
         final Box gameInfoPanel = new Box(BoxLayout.PAGE_AXIS);
         
         /* Creating and instantiating the individual info panels. */
-        myNextPiecePanel = new NextPiecePanel();
+        myNextPiecePanel = new NextPiecePanel(myRenderScheduler);
         myScorePanel = new ScorePanel(myGameTimer);
+        myScorePanel.setGameOverListener(this::archiveGame);
         final ControlsPanel controlsPanel = new ControlsPanel();
         final MusicPanel musicPanel = new MusicPanel();
         
@@ -296,16 +359,48 @@ public class TetrisGUI extends KeyAdapter implements Observer {
     public void update(final Observable theObservable, final Object theData) {
         /* Listens for the game to be over and plays "Game Over" sound. */
         /* And, listens for a line to be cleared and plays "Line Cleared" sound. */
-        if (theObservable instanceof Board && theData instanceof Boolean) {
+        if (theObservable instanceof Board && isEvent(theData, BoardEvent.Type.GAME_OVER)) {
             myGameTimer.stop();
             drawGameOver();            
-        } else if (theObservable instanceof Board && theData instanceof Integer[]) {           
+        } else if (theObservable instanceof Board 
+                        && isEvent(theData, BoardEvent.Type.ROWS_CLEARED)) {           
             myLineClearedSound.start();
             myLineClearedSound.setFramePosition(0);
             
         }
     }
     
+    /**
+     * The archiveGame method of the TetrisGUI class. Appends the recording, final
+     * board and final score of the game that just ended to the replay archive.
+     * Only the first failure is reported, so a game in a read-only directory is
+     * not interrupted at the end of every game.
+     * 
+     * @param theScore The final score of the game, as counted by the score panel.
+     */
+    private void archiveGame(final int theScore) {
+        try (ReplayArchiveWriter archive = new ReplayArchiveWriter(Paths.get(REPLAY_ARCHIVE))) {
+            archive.append(myReplayRecorder.toReplay(), myGameBoard.snapshot(), theScore);
+        } catch (final IOException ex) {
+            if (!myArchiveFailed) {
+                myArchiveFailed = true;
+                System.err.println("Finished games are not archived: " + ex);
+            }
+        }
+    }
+    
+    /**
+     * The isEvent method of the TetrisGUI class. Checks if observer data
+     * received from the Board is a BoardEvent of a given type.
+     * 
+     * @param theData The data received from the Board.
+     * @param theType The BoardEvent type to check for.
+     * @return True if the data is a BoardEvent of the given type, otherwise false.
+     */
+    private static boolean isEvent(final Object theData, final BoardEvent.Type theType) {
+        return theData instanceof BoardEvent && ((BoardEvent) theData).getType() == theType;
+    }
+    
     /**
      * The overridden keyPressed method of the TetrisGUI class.
      */
@@ -319,15 +414,15 @@ public class TetrisGUI extends KeyAdapter implements Observer {
         /* Check to see if the game timer is running before executing method calls. */
         if (myGameTimer.isRunning()) {
             if (keyText.equals(myMoveLeftControl)) {
-                myGameBoard.left();            
+                myReplayRecorder.record(Input.LEFT);            
             } else if (keyText.equals(myMoveRightControl)) {
-                myGameBoard.right();
+                myReplayRecorder.record(Input.RIGHT);
             } else if (keyText.equals(myRotateControl)) {
-                myGameBoard.rotate();
+                myReplayRecorder.record(Input.ROTATE);
             } else if (keyText.equals(myDownControl)) {
-                myGameBoard.down();
+                myReplayRecorder.record(Input.DOWN);
             } else if (keyText.equals(myDropControl)) {
-                myGameBoard.drop();
+                myReplayRecorder.record(Input.DROP);
             }
         }        
     }
@@ -339,8 +434,8 @@ public class TetrisGUI extends KeyAdapter implements Observer {
     private class TimerListener implements ActionListener {
         @Override
         public void actionPerformed(final ActionEvent theEvent) {
-            /* Calls the down method for each increment of the timer. */
-            myGameBoard.down();            
+            /* Applies (and records) a gravity tick for each increment of the timer. */
+            myReplayRecorder.record(Input.GRAVITY);            
         }
     }
     
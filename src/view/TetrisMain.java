@@ -1,6 +1,7 @@
 package view;
 
 import java.awt.EventQueue;
+import java.util.Arrays;
 
 /**
  * The TetrisMain driver class for the Christmas Tetris program. This class simply
@@ -21,15 +22,17 @@ public final class TetrisMain {
     }
     
     /**
-     * The main method of the TetrisMain class, which invokes
+     * The main method of the TetrisMain class, which invokes the GUI.
      * 
-     * @param theArgs Command line arguments - not application for this program.
+     * @param theArgs Command line arguments - "--active" draws the playfield with
+     *                active rendering instead of Swing repaints.
      */
     public static void main(final String[] theArgs) {                
+        final boolean activeRendering = Arrays.asList(theArgs).contains("--active");
         EventQueue.invokeLater(new Runnable() {
             @Override
             public void run() {
-                new TetrisGUI().start();
+                new TetrisGUI(activeRendering).start();
             }
         });
     }
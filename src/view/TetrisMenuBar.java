@@ -20,6 +20,7 @@ import javax.sound.sampled.UnsupportedAudioFileException;
 import javax.swing.ButtonGroup;
 import javax.swing.ImageIcon;
 import javax.swing.JCheckBoxMenuItem;
+import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JMenu;
 import javax.swing.JMenuBar;
@@ -28,8 +29,11 @@ import javax.swing.JOptionPane;
 import javax.swing.JRadioButtonMenuItem;
 import javax.swing.KeyStroke;
 import javax.swing.Timer;
+import javax.swing.event.MenuEvent;
+import javax.swing.event.MenuListener;
 
 import model.Board;
+import model.BoardEvent;
 
 /**
  * The TetrisMenuBar class for the Tetris program.
@@ -108,6 +112,11 @@ public class TetrisMenuBar extends JMenuBar implements Observer {
      * The number to multiply the score by on "Hard" difficulty.
      */
     private static final int HARD_DIFF_MULTIPLIER = 3;
+    
+    /**
+     * The frame rate caps that can be chosen, in frames per second.
+     */
+    private static final int[] FRAME_RATES = {60, 120, 144};
 
     /**
      * The frame of the GUI.
@@ -129,6 +138,11 @@ public class TetrisMenuBar extends JMenuBar implements Observer {
      */
     private JMenuItem myPauseGameButton;
     
+    /**
+     * The "Save Replay" menu item.
+     */
+    private JMenuItem mySaveReplayButton;
+    
     /**
      * The Timer used by the GUI.
      */
@@ -149,6 +163,11 @@ public class TetrisMenuBar extends JMenuBar implements Observer {
      */
     private final NextPiecePanel myNextPiecePanel;
     
+    /**
+     * The RenderScheduler that repaints the game.
+     */
+    private final RenderScheduler myRenderScheduler;
+    
     /**
      * The background music WAV file represented as a Clip object.
      */
@@ -167,11 +186,13 @@ public class TetrisMenuBar extends JMenuBar implements Observer {
      * @param theGamePanel The GamePanel of the program.
      * @param theScorePanel The ScorePanel of the program.
      * @param theNextPiecePanel The NextPiecePanel of the program.
+     * @param theRenderScheduler The RenderScheduler of the program.
      */
     public TetrisMenuBar(final JFrame theFrame, final Timer theGameTimer, 
                          final GamePanel theGamePanel, 
                          final ScorePanel theScorePanel, 
-                         final NextPiecePanel theNextPiecePanel) {
+                         final NextPiecePanel theNextPiecePanel,
+                         final RenderScheduler theRenderScheduler) {
         super();
         
         /* Initializing fields */
@@ -180,6 +201,7 @@ public class TetrisMenuBar extends JMenuBar implements Observer {
         myGamePanel = theGamePanel;
         myScorePanel = theScorePanel;
         myNextPiecePanel = theNextPiecePanel;
+        myRenderScheduler = theRenderScheduler;
         
         /* Calling helper method to create the menu bar. */
         createMenuBar();
@@ -247,6 +269,8 @@ public class TetrisMenuBar extends JMenuBar implements Observer {
         fileMenu.addSeparator();
         fileMenu.add(createPauseGameButton());
         fileMenu.addSeparator();
+        fileMenu.add(createSaveReplayButton());
+        fileMenu.addSeparator();
         fileMenu.add(createQuitButton());
         
         return fileMenu;
@@ -269,8 +293,9 @@ public class TetrisMenuBar extends JMenuBar implements Observer {
             @Override
             public void actionPerformed(final ActionEvent theEvent) {
                 myGameTimer.restart();                
-                TetrisGUI.myGameBoard.newGame();                              
+                TetrisGUI.myReplayRecorder.newGame();                              
                 myNewGameButton.setEnabled(false);
+                mySaveReplayButton.setEnabled(false);
                 myEndGameButton.setEnabled(true);
                 myPauseGameButton.setEnabled(true);
                 
@@ -301,6 +326,7 @@ public class TetrisMenuBar extends JMenuBar implements Observer {
                 myEndGameButton.setEnabled(false);
                 myPauseGameButton.setEnabled(false);
                 myNewGameButton.setEnabled(true);
+                mySaveReplayButton.setEnabled(true);
             }
         });
         
@@ -336,6 +362,43 @@ public class TetrisMenuBar extends JMenuBar implements Observer {
         return myPauseGameButton;
     }
     
+    /**
+     * The createSaveReplayButton method of the TetrisMenuBar class. The button
+     * saves the recording of the last game to a replay file, and is only enabled
+     * once that game has ended.
+     * 
+     * @return The "Save Replay" button used in the "File" menu.
+     */
+    private JMenuItem createSaveReplayButton() {
+        /* Instantiating the "Save Replay" JMenuItem. */
+        mySaveReplayButton = new JMenuItem("Save Replay...");
+        mySaveReplayButton.setMnemonic(KeyEvent.VK_R);
+        mySaveReplayButton.setEnabled(false);
+        
+        /* Creating an ActionListener for the "Save Replay" button. */
+        mySaveReplayButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(final ActionEvent theEvent) {
+                final JFileChooser chooser = new JFileChooser(".");
+                chooser.setSelectedFile(new File("game.ctrp"));
+                if (chooser.showSaveDialog(myFrame) == JFileChooser.APPROVE_OPTION) {
+                    try {
+                        TetrisGUI.myReplayRecorder.toReplay()
+                                        .write(chooser.getSelectedFile().toPath());
+                    } catch (final IOException ex) {
+                        JOptionPane.showMessageDialog(null, 
+                                                      "Replay could not be saved!",
+                                                    "File IO Exception",
+                                                    JOptionPane.INFORMATION_MESSAGE,
+                                                    new ImageIcon(ICON_IMAGE));
+                    }
+                }
+            }
+        });
+        
+        return mySaveReplayButton;
+    }
+    
     /**
      * The createQuitButton method of the TetrisMenuBar class.
      * 
@@ -375,6 +438,7 @@ public class TetrisMenuBar extends JMenuBar implements Observer {
         optionsMenu.add(createGridToggleMenuItem());
         optionsMenu.addSeparator();
         optionsMenu.add(createChangeGridSizeSubMenu());
+        optionsMenu.add(createFrameRateSubMenu());
         optionsMenu.addSeparator();
         optionsMenu.add(createDifficultySubMenu());
                 
@@ -482,6 +546,68 @@ public class TetrisMenuBar extends JMenuBar implements Observer {
         return gridSizeSubMenu;
     }
     
+    /**
+     * The createFrameRateSubMenu method of the TetrisMenuBar class. This method
+     * creates and returns a JMenu object used to cap the frame rate of the game,
+     * which also shows the frame rate achieved over the last second and the
+     * rendering pipeline in use.
+     * 
+     * @return The frame rate sub-menu of the Options menu.
+     */
+    private JMenu createFrameRateSubMenu() {
+        /* Creating and instantiating the frameRate JMenu object. */
+        final JMenu frameRateSubMenu = new JMenu("Frame Rate");
+        
+        /* Disabled items that show the achieved frame rate and the rendering
+         * pipeline whenever the menu opens. */
+        final JMenuItem fpsItem = new JMenuItem();
+        fpsItem.setEnabled(false);
+        frameRateSubMenu.add(fpsItem);
+        final JMenuItem pipelineItem = new JMenuItem();
+        pipelineItem.setEnabled(false);
+        frameRateSubMenu.add(pipelineItem);
+        frameRateSubMenu.addSeparator();
+        frameRateSubMenu.addMenuListener(new MenuListener() {
+            @Override
+            public void menuSelected(final MenuEvent theEvent) {
+                fpsItem.setText("Achieved: " + myRenderScheduler.getFps() + " FPS");
+                pipelineItem.setText("Pipeline: " + myGamePanel.getRenderingPipeline());
+            }
+            
+            @Override
+            public void menuDeselected(final MenuEvent theEvent) {
+                /* Nothing to update. */
+            }
+            
+            @Override
+            public void menuCanceled(final MenuEvent theEvent) {
+                /* Nothing to update. */
+            }
+        });
+        
+        /* Adding radio buttons to the JMenu to select the frame rate cap. */
+        final ButtonGroup frameRateGroup = new ButtonGroup();
+        for (final int frameRate : FRAME_RATES) {
+            final JRadioButtonMenuItem aRate = new JRadioButtonMenuItem(frameRate + " Hz");
+            frameRateGroup.add(aRate);
+            frameRateSubMenu.add(aRate);
+            
+            if (frameRate == myRenderScheduler.getFrameRate()) {
+                aRate.setSelected(true);
+            }
+            
+            /* Creating an action listener for each JRadioButtonMenuItem. */
+            aRate.addActionListener(new ActionListener() {
+                @Override
+                public void actionPerformed(final ActionEvent theEvent) {
+                    myRenderScheduler.setFrameRate(frameRate);
+                }
+            });
+        }
+        
+        return frameRateSubMenu;
+    }
+    
     /**
      * The setGridSize method. This method is a helper method for
      * the actionListener in the GridSize selector.
@@ -491,10 +617,8 @@ public class TetrisMenuBar extends JMenuBar implements Observer {
     protected void setGridSize(final String theSize) {
         if (theSize.equals(DEFAULT_GRID_SIZE_STR)) {
             final int defaultBlockSize = 25;
-            final int defWidth = 10;
-            final int defHeight = 20;  
             myGamePanel.setBlockSize(defaultBlockSize);
-            TetrisGUI.myGameBoard.setSize(defWidth, defHeight);
+            TetrisGUI.myGameBoard.setSize(Board.DEFAULT_BOARD_WIDTH, Board.DEFAULT_BOARD_HEIGHT);
         } else if (theSize.equals(LARGE_GRID_SIZE_STR)) { 
             final int largeBlockSize = 18;
             final int largeWidth = 14;
@@ -710,11 +834,13 @@ public class TetrisMenuBar extends JMenuBar implements Observer {
      */
     @Override
     public void update(final Observable theObservable, final Object theData) {
-        /* Only if theData is boolean and theObject is a Board, end the game. */
-        if (theObservable instanceof Board && theData instanceof Boolean) {
+        /* Only if theData is a "game over" event and theObject is a Board, end the game. */
+        if (theObservable instanceof Board && theData instanceof BoardEvent
+                        && ((BoardEvent) theData).getType() == BoardEvent.Type.GAME_OVER) {
             myPauseGameButton.setEnabled(false);
             myEndGameButton.setEnabled(false);
             myNewGameButton.setEnabled(true);
+            mySaveReplayButton.setEnabled(true);
         }        
     }
 